@@ -0,0 +1,100 @@
+package benchmarks;
+
+import database.DatabaseConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+
+/**
+ * Встроенная H2 в режиме MSSQLServer вместо SQL Server: схема из benchmarks/schema.sql,
+ * данные — DatasetGenerator. Сервисы приложения работают с ней как обычно,
+ * через DatabaseConnection (URL задаётся системным свойством carhub.db.url).
+ */
+public class BenchmarkDatabase {
+
+    /**
+     * База в памяти для JMH: заполняется заново в каждом форке
+     */
+    public static final String URL = "jdbc:h2:mem:carhub-bench;MODE=MSSQLServer;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_DELAY=-1";
+
+    /**
+     * База в файле (./carhub-load.mv.db) для DatasetGenerator и LoadDriver: генерируется один раз
+     */
+    public static final String FILE_URL = "jdbc:h2:file:./carhub-load;MODE=MSSQLServer;NON_KEYWORDS=YEAR,VALUE";
+
+    private static final String USER_PASSWORD = "password123";
+
+    private static boolean started;
+
+    /**
+     * Поднять базу в памяти и заполнить её (один раз на JVM). Вызывать до первого обращения
+     * к DatabaseConnection: адрес базы читается при загрузке класса.
+     *
+     * @param cars  количество автомобилей
+     * @param users количество пользователей
+     */
+    public static synchronized void start(int cars, int users) throws SQLException {
+        if (started) return;
+        GeneratorConfig config = GeneratorConfig.DEFAULT.withVolume(cars, users);
+        useEmbedded(URL, config.threads());
+        createSchemaIfMissing();
+        new DatasetGenerator(config).generate();
+        started = true;
+    }
+
+    /**
+     * Направить DatabaseConnection на встроенную базу, если адрес не задан явно (-Dcarhub.db.url).
+     * Пул расширяется под число потоков: каждый держит своё соединение.
+     */
+    public static void useEmbedded(String url, int threads) {
+        if (System.getProperty("carhub.db.url") == null) {
+            System.setProperty("carhub.db.url", url);
+        }
+        if (System.getProperty("carhub.db.pool.maxSize") == null) {
+            System.setProperty("carhub.db.pool.maxSize", String.valueOf(Math.max(10, threads + 2)));
+        }
+    }
+
+    /**
+     * Пароль всех сгенерированных пользователей
+     */
+    public static String userPassword() {
+        return USER_PASSWORD;
+    }
+
+    /**
+     * Создать таблицы, если их ещё нет
+     */
+    public static void createSchemaIfMissing() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                throw new SQLException("Нет подключения к базе бенчмарков");
+            }
+            try (ResultSet tables = conn.getMetaData().getTables(null, null, "CARS", null)) {
+                if (tables.next()) return;
+            }
+            createSchema(conn);
+        }
+    }
+
+    private static void createSchema(Connection conn) throws SQLException {
+        String script;
+        try (InputStream in = BenchmarkDatabase.class.getResourceAsStream("/benchmarks/schema.sql")) {
+            if (in == null) throw new SQLException("Не найден benchmarks/schema.sql");
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Не удалось прочитать схему", e);
+        }
+
+        // H2 выполняет только первый оператор из строки — выполняем по одному
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) {
+                    stmt.execute(sql);
+                }
+            }
+        }
+    }
+}
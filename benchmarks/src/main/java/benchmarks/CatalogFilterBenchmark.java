@@ -0,0 +1,130 @@
+package benchmarks;
+
+import catalog.FacetIndex;
+import catalog.RangeIndex;
+import catalog.SearchIndex;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import models.Car;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Фильтрация каталога как в CarHubController.applyFilters: поиск + цена + год + бренд,
+ * счётчики фасетов и сортировка по цене.
+ *
+ * scan* — прежний путь (filterCar и предикаты по каждому автомобилю),
+ * indexed* — текущий путь через SearchIndex, RangeIndex и FacetIndex.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CatalogFilterBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int cars;
+
+    @Param({"", "toyota", "land cr"})
+    public String query;
+
+    // Типичный набор фильтров: бренд, диапазон цены и года
+    private static final String BRAND = "Toyota";
+    private static final double MIN_PRICE = 5_000_000;
+    private static final double MAX_PRICE = 25_000_000;
+    private static final int MIN_YEAR = 2010;
+    private static final int MAX_YEAR = 2022;
+
+    private ObservableList<Car> catalog;
+    private SearchIndex searchIndex;
+    private RangeIndex rangeIndex;
+    private FacetIndex facetIndex;
+
+    @Setup
+    public void setup() {
+        catalog = FXCollections.observableArrayList(SyntheticData.cars(cars, SyntheticData.SEED));
+        searchIndex = new SearchIndex();
+        searchIndex.bindTo(catalog);
+        rangeIndex = new RangeIndex();
+        rangeIndex.bindTo(catalog);
+        facetIndex = new FacetIndex();
+        facetIndex.bindTo(catalog);
+        // Первое обращение строит индексы — в замеры не входит
+        indexedFilter();
+    }
+
+    @Benchmark
+    public List<Car> scanFilter() {
+        String q = query.toLowerCase().trim();
+        return catalog.stream()
+                .filter(car -> filterCar(car, q))
+                .filter(this::matchesFilters)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Car> scanFilterAndSort() {
+        List<Car> result = scanFilter();
+        result.sort(Comparator.comparingDouble(Car::getPrice));
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, Integer> scanBrandCounts() {
+        String q = query.toLowerCase().trim();
+        return catalog.stream()
+                .filter(car -> filterCar(car, q))
+                .filter(car -> car.getPrice() >= MIN_PRICE && car.getPrice() <= MAX_PRICE)
+                .filter(car -> car.getYear() == null || (car.getYear() >= MIN_YEAR && car.getYear() <= MAX_YEAR))
+                .filter(car -> car.getBrand() != null)
+                .collect(Collectors.groupingBy(Car::getBrand, Collectors.summingInt(car -> 1)));
+    }
+
+    @Benchmark
+    public BitSet indexedFilter() {
+        BitSet base = searchIndex.search(query);
+        base.and(rangeIndex.range(RangeIndex.Field.PRICE, MIN_PRICE, MAX_PRICE, false));
+        base.and(rangeIndex.range(RangeIndex.Field.YEAR, (double) MIN_YEAR, (double) MAX_YEAR, true));
+        base.and(facetIndex.brandIds(BRAND, true));
+        return base;
+    }
+
+    @Benchmark
+    public List<Car> indexedFilterAndSort() {
+        return rangeIndex.sorted(RangeIndex.Field.PRICE, true, indexedFilter());
+    }
+
+    @Benchmark
+    public Map<String, Integer> indexedBrandCounts() {
+        BitSet base = searchIndex.search(query);
+        base.and(rangeIndex.range(RangeIndex.Field.PRICE, MIN_PRICE, MAX_PRICE, false));
+        base.and(rangeIndex.range(RangeIndex.Field.YEAR, (double) MIN_YEAR, (double) MAX_YEAR, true));
+        return facetIndex.brandCounts(base);
+    }
+
+    // Прежний CarHubController.filterCar: подстрока в названии, модели, бренде или цене
+    private static boolean filterCar(Car car, String query) {
+        if (query.isEmpty()) return true;
+        String brand = car.getBrand() == null ? "" : car.getBrand().toLowerCase();
+        return car.getName().toLowerCase().contains(query)
+                || car.getModel().toLowerCase().contains(query)
+                || brand.contains(query)
+                || String.valueOf(car.getPrice()).contains(query);
+    }
+
+    // Прежние предикаты applyFilters: автомобили без года не отсекаются фильтром по году
+    private boolean matchesFilters(Car car) {
+        if (!BRAND.equalsIgnoreCase(car.getBrand())) return false;
+        if (car.getPrice() < MIN_PRICE || car.getPrice() > MAX_PRICE) return false;
+        Integer year = car.getYear();
+        return year == null || (year >= MIN_YEAR && year <= MAX_YEAR);
+    }
+}
@@ -0,0 +1,386 @@
+package benchmarks;
+
+import database.DatabaseConnection;
+import models.Car;
+import utils.PasswordUtil;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Массовая загрузка синтетических данных во все таблицы CarHub:
+ * users_secure, Cars, CarImages, favorites, comments_ratings, Reservations, Purchases.
+ *
+ * Строки вставляются JDBC-пакетами по batchSize в несколько потоков: каждый поток берёт
+ * часть диапазона (PARTITION_ROWS строк) на своём соединении и коммитит её целиком.
+ * Содержимое части зависит только от зерна и номера части, поэтому распределения
+ * одинаковы при любом числе потоков.
+ *
+ *     java -Dcarhub.gen.cars=1000000 -Dcarhub.gen.users=200000 -cp benchmarks.jar benchmarks.DatasetGenerator
+ */
+public class DatasetGenerator {
+
+    // Строк в одной части (единица работы потока и транзакция)
+    private static final int PARTITION_ROWS = 20_000;
+
+    private static final String SALT = "00112233445566778899aabbccddeeff";
+    private static final String[] PAYMENT_METHODS = { "cash", "card", "bank_transfer", "credit" };
+
+    private final GeneratorConfig config;
+    private final AtomicLong rows = new AtomicLong();
+
+    // id, выданные базой на первом этапе (IDENTITY): на них ссылаются остальные таблицы
+    private int[] userIds;
+    private int[] carIds;
+    private double[] carPrices;
+
+    public DatasetGenerator(GeneratorConfig config) {
+        this.config = config;
+    }
+
+    public static void main(String[] args) throws Exception {
+        GeneratorConfig config = GeneratorConfig.fromSystemProperties();
+        BenchmarkDatabase.useEmbedded(BenchmarkDatabase.FILE_URL, config.threads());
+        BenchmarkDatabase.createSchemaIfMissing();
+        new DatasetGenerator(config).generate();
+        System.exit(0);
+    }
+
+    /**
+     * Заполнить базу (схема уже должна существовать)
+     *
+     * @return общее число вставленных строк
+     */
+    public long generate() throws SQLException {
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, config.threads()), r -> {
+            Thread t = new Thread(r, "carhub-gen");
+            t.setDaemon(true);
+            return t;
+        });
+
+        try {
+            // Этап 1: независимые таблицы
+            List<Future<?>> tasks = new ArrayList<>();
+            int firstUser = nextId("users_secure");
+            int firstCar = nextId("Cars");
+            for (int from = 0; from < config.users(); from += PARTITION_ROWS) {
+                int part = from;
+                tasks.add(executor.submit(() -> insertUsers(firstUser, part, Math.min(part + PARTITION_ROWS, config.users()))));
+            }
+            for (int from = 0; from < config.cars(); from += PARTITION_ROWS) {
+                int part = from;
+                tasks.add(executor.submit(() -> insertCars(part, Math.min(part + PARTITION_ROWS, config.cars()))));
+            }
+            await(tasks);
+            report("users_secure, Cars", start);
+
+            // При дозагрузке связанные строки получают только новые пользователи и автомобили,
+            // ссылаться же можно на любой автомобиль
+            userIds = readIds("SELECT id FROM users_secure WHERE id >= " + firstUser + " ORDER BY id");
+            readCars();
+            int newCars = Arrays.binarySearch(carIds, firstCar);
+            int firstNewCar = newCars >= 0 ? newCars : -newCars - 1;
+            if (userIds.length == 0 || carIds.length == 0) {
+                throw new SQLException("Нет пользователей или автомобилей для связанных таблиц");
+            }
+
+            // Этап 2: таблицы со ссылками на автомобили и пользователей
+            tasks.clear();
+            for (int from = firstNewCar; from < carIds.length; from += PARTITION_ROWS) {
+                int part = from;
+                tasks.add(executor.submit(() -> insertImages(part, Math.min(part + PARTITION_ROWS, carIds.length))));
+            }
+            for (int from = 0; from < userIds.length; from += PARTITION_ROWS) {
+                int part = from;
+                tasks.add(executor.submit(() -> insertUserActivity(part, Math.min(part + PARTITION_ROWS, userIds.length))));
+            }
+            await(tasks);
+            report("CarImages, favorites, comments_ratings, Reservations, Purchases", start);
+        } finally {
+            executor.shutdownNow();
+        }
+        return rows.get();
+    }
+
+    private Void insertUsers(int firstId, int from, int to) throws SQLException {
+        Random random = partitionRandom(1, from);
+        String hash = PasswordUtil.hashPassword(BenchmarkDatabase.userPassword(), SALT);
+        String sql = "INSERT INTO users_secure (username, password_hash, salt, fullname, role, is_active) VALUES (?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = open(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Batch batch = new Batch(stmt);
+            for (int i = from; i < to; i++) {
+                // Номер от MAX(id) + 1 — логины уникальны и при дозагрузке в непустую базу
+                stmt.setString(1, "user" + (firstId + i));
+                stmt.setString(2, hash);
+                stmt.setString(3, SALT);
+                stmt.setString(4, "Пользователь " + (firstId + i));
+                stmt.setString(5, firstId + i == 1 ? "admin" : "user");
+                stmt.setBoolean(6, random.nextInt(10) > 0);
+                batch.add();
+            }
+            batch.flush();
+            conn.commit();
+        }
+        return null;
+    }
+
+    private Void insertCars(int from, int to) throws SQLException {
+        Random random = partitionRandom(2, from);
+        String sql = "INSERT INTO Cars (name, model, price, brand, year, mileage, description, imageUrl) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+        try (Connection conn = open(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Batch batch = new Batch(stmt);
+            for (int i = from; i < to; i++) {
+                Car car = SyntheticData.car(i + 1, random, config);
+                stmt.setString(1, car.getName());
+                stmt.setString(2, car.getModel());
+                stmt.setDouble(3, car.getPrice());
+                stmt.setString(4, car.getBrand());
+                stmt.setObject(5, car.getYear());
+                stmt.setObject(6, car.getMileage());
+                stmt.setString(7, car.getDescription());
+                stmt.setString(8, car.getImageUrl());
+                batch.add();
+            }
+            batch.flush();
+            conn.commit();
+        }
+        return null;
+    }
+
+    // 1..maxPhotos фото на автомобиль, первое — главное
+    private Void insertImages(int from, int to) throws SQLException {
+        Random random = partitionRandom(3, from);
+        String sql = "INSERT INTO CarImages (car_id, image_url, is_main, display_order) VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = open(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Batch batch = new Batch(stmt);
+            for (int i = from; i < to; i++) {
+                int photos = 1 + random.nextInt(Math.max(1, config.maxPhotos()));
+                for (int order = 0; order < photos; order++) {
+                    stmt.setInt(1, carIds[i]);
+                    stmt.setString(2, "/images/cars/" + carIds[i] + "_" + order + ".jpg");
+                    stmt.setBoolean(3, order == 0);
+                    stmt.setInt(4, order);
+                    batch.add();
+                }
+            }
+            batch.flush();
+            conn.commit();
+        }
+        return null;
+    }
+
+    // Избранное, отзывы и заявки пользователей [from, to): популярные автомобили получают больше
+    private Void insertUserActivity(int from, int to) throws SQLException {
+        Random random = partitionRandom(4, from);
+
+        try (Connection conn = open();
+             PreparedStatement favorites = conn.prepareStatement(
+                     "INSERT INTO favorites (user_id, car_id) VALUES (?, ?)");
+             PreparedStatement reviews = conn.prepareStatement(
+                     "INSERT INTO comments_ratings (car_id, user_id, comment, rating) VALUES (?, ?, ?, ?)");
+             PreparedStatement reservations = conn.prepareStatement(
+                     "INSERT INTO Reservations (car_id, user_id, customer_name, phone, email, reservation_date, notes) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?)");
+             PreparedStatement purchases = conn.prepareStatement(
+                     "INSERT INTO Purchases (car_id, user_id, customer_name, phone, email, price, payment_method, notes) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            Batch favoriteBatch = new Batch(favorites);
+            Batch reviewBatch = new Batch(reviews);
+            Batch reservationBatch = new Batch(reservations);
+            Batch purchaseBatch = new Batch(purchases);
+            long now = System.currentTimeMillis();
+
+            for (int i = from; i < to; i++) {
+                int userId = userIds[i];
+
+                // Пара (user_id, car_id) в favorites уникальна
+                BitSet chosen = new BitSet();
+                int favoriteCount = around(random, config.favoritesPerUser());
+                for (int k = 0; k < favoriteCount; k++) {
+                    int car = popularCar(random);
+                    if (chosen.get(car)) continue;
+                    chosen.set(car);
+                    favorites.setInt(1, userId);
+                    favorites.setInt(2, carIds[car]);
+                    favoriteBatch.add();
+                }
+
+                int reviewCount = around(random, config.reviewsPerUser());
+                for (int k = 0; k < reviewCount; k++) {
+                    boolean withComment = random.nextInt(100) < config.commentPercent();
+                    boolean withRating = !withComment || random.nextBoolean();
+                    reviews.setInt(1, carIds[popularCar(random)]);
+                    reviews.setInt(2, userId);
+                    reviews.setString(3, withComment ? "Отзыв пользователя " + userId : null);
+                    reviews.setObject(4, withRating ? 1 + random.nextInt(5) : null);
+                    reviewBatch.add();
+                }
+
+                if (random.nextInt(100) < config.ordersPercent()) {
+                    int car = popularCar(random);
+                    String name = "Пользователь " + userId;
+                    String phone = "+7 700 " + String.format("%07d", userId % 10_000_000);
+                    String email = "user" + userId + "@example.kz";
+                    if (random.nextInt(100) < config.purchasePercent()) {
+                        purchases.setInt(1, carIds[car]);
+                        purchases.setInt(2, userId);
+                        purchases.setString(3, name);
+                        purchases.setString(4, phone);
+                        purchases.setString(5, email);
+                        purchases.setDouble(6, carPrices[car]);
+                        purchases.setString(7, PAYMENT_METHODS[random.nextInt(PAYMENT_METHODS.length)]);
+                        purchases.setString(8, null);
+                        purchaseBatch.add();
+                    } else {
+                        reservations.setInt(1, carIds[car]);
+                        reservations.setInt(2, userId);
+                        reservations.setString(3, name);
+                        reservations.setString(4, phone);
+                        reservations.setString(5, email);
+                        reservations.setTimestamp(6, new Timestamp(now + random.nextInt(30) * 86_400_000L));
+                        reservations.setString(7, null);
+                        reservationBatch.add();
+                    }
+                }
+            }
+            favoriteBatch.flush();
+            reviewBatch.flush();
+            reservationBatch.flush();
+            purchaseBatch.flush();
+            conn.commit();
+        }
+        return null;
+    }
+
+    /**
+     * Накопление строк в пакет: отправка каждые batchSize строк
+     */
+    private class Batch {
+        private final PreparedStatement stmt;
+        private int pending;
+
+        Batch(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+
+        void add() throws SQLException {
+            stmt.addBatch();
+            if (++pending >= config.batchSize()) {
+                flush();
+            }
+        }
+
+        void flush() throws SQLException {
+            if (pending == 0) return;
+            stmt.executeBatch();
+            rows.addAndGet(pending);
+            pending = 0;
+        }
+    }
+
+    private Connection open() throws SQLException {
+        Connection conn = DatabaseConnection.getConnection();
+        if (conn == null) {
+            throw new SQLException("Нет подключения к базе данных");
+        }
+        conn.setAutoCommit(false);
+        return conn;
+    }
+
+    private Random partitionRandom(int table, int from) {
+        return new Random(config.seed() * 31 + table * 1_000_003L + from);
+    }
+
+    // Индекс автомобиля с перекосом к популярным
+    private int popularCar(Random random) {
+        return SyntheticData.skewed(random, carIds.length, config.carSkew());
+    }
+
+    // Случайное целое со средним mean (равномерно от 0 до 2·mean)
+    private static int around(Random random, double mean) {
+        double value = random.nextDouble() * 2 * mean;
+        return (int) value + (random.nextDouble() < value - Math.floor(value) ? 1 : 0);
+    }
+
+    private int nextId(String table) throws SQLException {
+        try (Connection conn = open(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM " + table)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private int[] readIds(String sql) throws SQLException {
+        try (Connection conn = open(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            IntList ids = new IntList();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+            return ids.toArray();
+        }
+    }
+
+    private void readCars() throws SQLException {
+        carIds = readIds("SELECT id FROM Cars ORDER BY id");
+        carPrices = new double[carIds.length];
+        try (Connection conn = open(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT price FROM Cars ORDER BY id")) {
+            for (int i = 0; i < carPrices.length && rs.next(); i++) {
+                carPrices[i] = rs.getDouble(1);
+            }
+        }
+    }
+
+    private void report(String stage, long start) {
+        long ms = Math.max(1, System.currentTimeMillis() - start);
+        System.out.printf("✅ %s: всего %,d строк за %,d мс (%,d строк/с)%n", stage, rows.get(), ms, rows.get() * 1000 / ms);
+    }
+
+    private static void await(List<Future<?>> tasks) throws SQLException {
+        try {
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Загрузка прервана", e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Throwable cause = e.getCause();
+            throw cause instanceof SQLException ? (SQLException) cause : new SQLException("Ошибка загрузки", cause);
+        }
+    }
+
+    /**
+     * Растущий массив int без упаковки (id миллионов строк)
+     */
+    static class IntList {
+        private int[] values = new int[1024];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package benchmarks;
+
+import models.Car;
+import org.openjdk.jmh.annotations.*;
+import utils.ExportUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Экспорт каталога в CSV
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExportBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int cars;
+
+    private List<Car> catalog;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        catalog = SyntheticData.cars(cars, SyntheticData.SEED);
+        file = Files.createTempFile("carhub-export", ".csv").toFile();
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public long exportCarsToCSV() throws IOException {
+        ExportUtil.exportCarsToCSV(catalog, file);
+        return file.length();
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+/**
+ * Объёмы и распределения синтетических данных.
+ * Значения по умолчанию переопределяются системными свойствами carhub.gen.* (см. fromSystemProperties).
+ *
+ * @param cars             количество автомобилей
+ * @param users            количество пользователей
+ * @param threads          потоков загрузки
+ * @param batchSize        строк в одном JDBC-пакете
+ * @param seed             зерно генератора: одинаковое зерно — одинаковые распределения
+ * @param priceMedian      медиана цены, ₸ (цена распределена логнормально)
+ * @param priceSigma       разброс логарифма цены
+ * @param brandSkew        перекос популярности брендов (1 — равномерно, больше — сильнее)
+ * @param carSkew          перекос популярности автомобилей для избранного, отзывов и заявок
+ * @param nullYearPercent  доля автомобилей без года и пробега, %
+ * @param maxPhotos        фото на автомобиль: от 1 до maxPhotos
+ * @param favoritesPerUser среднее число избранных на пользователя
+ * @param reviewsPerUser   среднее число отзывов на пользователя
+ * @param commentPercent   доля отзывов с текстом, % (остальные — только оценка)
+ * @param ordersPercent    доля пользователей с заявкой, %
+ * @param purchasePercent  доля покупок среди заявок, % (остальные — бронирования)
+ */
+public record GeneratorConfig(int cars, int users, int threads, int batchSize, long seed,
+                              double priceMedian, double priceSigma,
+                              double brandSkew, double carSkew, int nullYearPercent, int maxPhotos,
+                              double favoritesPerUser, double reviewsPerUser, int commentPercent,
+                              int ordersPercent, int purchasePercent) {
+
+    public static final GeneratorConfig DEFAULT = new GeneratorConfig(
+            100_000, 10_000, Math.min(8, Runtime.getRuntime().availableProcessors()), 1_000, 42,
+            12_000_000, 0.6, 2.0, 2.0, 3, 3, 8, 2.5, 50, 25, 33);
+
+    public static GeneratorConfig fromSystemProperties() {
+        GeneratorConfig d = DEFAULT;
+        return new GeneratorConfig(
+                Integer.getInteger("carhub.gen.cars", d.cars),
+                Integer.getInteger("carhub.gen.users", d.users),
+                Integer.getInteger("carhub.gen.threads", d.threads),
+                Integer.getInteger("carhub.gen.batchSize", d.batchSize),
+                Long.getLong("carhub.gen.seed", d.seed),
+                doubleProperty("carhub.gen.priceMedian", d.priceMedian),
+                doubleProperty("carhub.gen.priceSigma", d.priceSigma),
+                doubleProperty("carhub.gen.brandSkew", d.brandSkew),
+                doubleProperty("carhub.gen.carSkew", d.carSkew),
+                Integer.getInteger("carhub.gen.nullYearPercent", d.nullYearPercent),
+                Integer.getInteger("carhub.gen.maxPhotos", d.maxPhotos),
+                doubleProperty("carhub.gen.favoritesPerUser", d.favoritesPerUser),
+                doubleProperty("carhub.gen.reviewsPerUser", d.reviewsPerUser),
+                Integer.getInteger("carhub.gen.commentPercent", d.commentPercent),
+                Integer.getInteger("carhub.gen.ordersPercent", d.ordersPercent),
+                Integer.getInteger("carhub.gen.purchasePercent", d.purchasePercent));
+    }
+
+    public GeneratorConfig withVolume(int cars, int users) {
+        return new GeneratorConfig(cars, users, threads, batchSize, seed, priceMedian, priceSigma,
+                brandSkew, carSkew, nullYearPercent, maxPhotos, favoritesPerUser, reviewsPerUser,
+                commentPercent, ordersPercent, purchasePercent);
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
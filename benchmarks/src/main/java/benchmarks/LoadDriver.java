@@ -0,0 +1,355 @@
+package benchmarks;
+
+import catalog.CatalogPager;
+import catalog.CatalogQuery;
+import catalog.RangeIndex;
+import database.DatabaseConnection;
+import models.Car;
+import services.CommentsService;
+import services.FavoritesService;
+import services.ReservationsService;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Нагрузочный прогон: параллельные сессии пользователей вызывают те же сервисы, что и экраны
+ * приложения, и в конце печатают пропускную способность и перцентили задержки по операциям.
+ *
+ * Сессия — поток со своим пользователем, который по очереди выбирает действие по весам:
+ *   BROWSE   — страница каталога со случайными фильтрами и сортировкой, 1–3 страницы вглубь
+ *   DETAILS  — карточка автомобиля: комментарии, средняя оценка, своя оценка
+ *   FAVORITE — добавить или убрать автомобиль из избранного
+ *   COMMENT  — комментарий, иногда с оценкой
+ *   RESERVE  — бронирование
+ *
+ * Настройки (системные свойства):
+ *   carhub.load.sessions        параллельных сессий (16)
+ *   carhub.load.durationSeconds длительность замера (60)
+ *   carhub.load.warmupSeconds   прогрев без учёта в результатах (10)
+ *   carhub.load.mix             веса действий (browse:55,details:25,favorite:10,comment:6,reserve:4)
+ *
+ * BROWSE выполняет тот же запрос каталога, что и приложение, с главным фото из CarImages. В базе
+ * без CarImages сервис перешёл бы на запасной запрос без фото, и BROWSE мерил бы его — поэтому
+ * такую базу прогон не принимает.
+ *
+ * Пустая база сначала заполняется DatasetGenerator (настройки carhub.gen.*); carhub.gen.carSkew
+ * задаёт и популярность автомобилей в сессиях.
+ *
+ *     java -Dcarhub.load.sessions=32 -cp benchmarks.jar benchmarks.LoadDriver
+ */
+public class LoadDriver {
+
+    enum Op { BROWSE, DETAILS, FAVORITE, COMMENT, RESERVE }
+
+    private static final int PAGE_SIZE = 100;
+
+    private final int sessions;
+    private final GeneratorConfig config;
+    private final long warmupMs;
+    private final long durationMs;
+    private final int[] weights = new int[Op.values().length];
+    private int totalWeight;
+
+    private int[] userIds;
+    private int[] carIds;
+    private List<String> brands;
+
+    private volatile boolean recording;
+    private volatile boolean stopped;
+
+    public LoadDriver(int sessions, GeneratorConfig config, long warmupSeconds, long durationSeconds, String mix) {
+        this.sessions = sessions;
+        this.config = config;
+        this.warmupMs = warmupSeconds * 1000;
+        this.durationMs = durationSeconds * 1000;
+        for (String part : mix.split(",")) {
+            String[] kv = part.trim().split(":");
+            weights[Op.valueOf(kv[0].trim().toUpperCase()).ordinal()] = Integer.parseInt(kv[1].trim());
+        }
+        for (int w : weights) totalWeight += w;
+        if (totalWeight <= 0) {
+            throw new IllegalArgumentException("Пустая смесь действий: " + mix);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = Integer.getInteger("carhub.load.sessions", 16);
+        GeneratorConfig config = GeneratorConfig.fromSystemProperties();
+        BenchmarkDatabase.useEmbedded(BenchmarkDatabase.FILE_URL, Math.max(sessions, config.threads()));
+        BenchmarkDatabase.createSchemaIfMissing();
+
+        LoadDriver driver = new LoadDriver(sessions, config,
+                Long.getLong("carhub.load.warmupSeconds", 10),
+                Long.getLong("carhub.load.durationSeconds", 60),
+                System.getProperty("carhub.load.mix", "browse:55,details:25,favorite:10,comment:6,reserve:4"));
+        if (!driver.loadIds()) {
+            System.out.println("⏳ База пуста — генерирую данные...");
+            new DatasetGenerator(config).generate();
+            driver.loadIds();
+        }
+        driver.run();
+        System.exit(0);
+    }
+
+    /**
+     * Прочитать id пользователей, автомобилей и список брендов
+     *
+     * @return false, если в базе нет пользователей или автомобилей
+     */
+    boolean loadIds() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("Нет подключения к базе данных");
+            requireCarImages(conn);
+            userIds = ids(conn, "SELECT id FROM users_secure ORDER BY id");
+            carIds = ids(conn, "SELECT id FROM Cars ORDER BY id");
+            brands = new ArrayList<>();
+            try (Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT DISTINCT brand FROM Cars WHERE brand IS NOT NULL")) {
+                while (rs.next()) brands.add(rs.getString(1));
+            }
+        }
+        return userIds.length > 0 && carIds.length > 0;
+    }
+
+    private static void requireCarImages(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT TOP 1 id FROM CarImages")) {
+            rs.next();
+        } catch (SQLException e) {
+            throw new SQLException("Нет таблицы CarImages: BROWSE замерял бы запасной запрос каталога без фото", e);
+        }
+    }
+
+    void run() throws InterruptedException {
+        System.out.printf("▶ %d сессий, прогрев %d с, замер %d с, %,d пользователей, %,d авто%n",
+                sessions, warmupMs / 1000, durationMs / 1000, userIds.length, carIds.length);
+
+        List<Session> all = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(sessions);
+        for (int i = 0; i < sessions; i++) {
+            // Пользователь принадлежит одной сессии: его избранное меняет только она
+            Session session = new Session(userIds[i % userIds.length], new Random(SyntheticData.SEED + i));
+            all.add(session);
+            Thread t = new Thread(() -> {
+                try {
+                    session.loop();
+                } finally {
+                    done.countDown();
+                }
+            }, "carhub-load-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+
+        Thread.sleep(warmupMs);
+        recording = true;
+        long start = System.nanoTime();
+        Thread.sleep(durationMs);
+        recording = false;
+        long elapsed = System.nanoTime() - start;
+        stopped = true;
+        done.await(30, TimeUnit.SECONDS);
+
+        report(all, elapsed);
+    }
+
+    private void report(List<Session> all, long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.printf("%-9s %9s %9s %8s %9s %9s %9s %9s %9s%n",
+                "Операция", "Всего", "Оп/с", "Ошибок", "p50 мс", "p90 мс", "p99 мс", "p99.9 мс", "max мс");
+
+        LatencySamples total = new LatencySamples();
+        int totalErrors = 0;
+        for (Op op : Op.values()) {
+            LatencySamples merged = new LatencySamples();
+            int errors = 0;
+            for (Session s : all) {
+                merged.addAll(s.samples[op.ordinal()]);
+                errors += s.errors[op.ordinal()];
+            }
+            total.addAll(merged);
+            totalErrors += errors;
+            printRow(op.name(), merged, errors, seconds);
+        }
+        printRow("ВСЕГО", total, totalErrors, seconds);
+    }
+
+    private static void printRow(String name, LatencySamples samples, int errors, double seconds) {
+        long[] sorted = samples.sorted();
+        System.out.printf("%-9s %,9d %9.1f %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                name, sorted.length, sorted.length / seconds, errors,
+                ms(percentile(sorted, 50)), ms(percentile(sorted, 90)), ms(percentile(sorted, 99)),
+                ms(percentile(sorted, 99.9)), ms(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static int[] ids(Connection conn, String sql) throws SQLException {
+        DatasetGenerator.IntList ids = new DatasetGenerator.IntList();
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) ids.add(rs.getInt(1));
+        }
+        return ids.toArray();
+    }
+
+    /**
+     * Одна сессия пользователя: свои счётчики и задержки, без общих блокировок
+     */
+    private class Session {
+        final int userId;
+        final Random random;
+        final LatencySamples[] samples = new LatencySamples[Op.values().length];
+        final int[] errors = new int[Op.values().length];
+        // Избранное пользователя, как его видит сессия (для переключения без лишних запросов)
+        final Set<Integer> favorites = new HashSet<>();
+
+        Session(int userId, Random random) {
+            this.userId = userId;
+            this.random = random;
+            for (int i = 0; i < samples.length; i++) samples[i] = new LatencySamples();
+        }
+
+        void loop() {
+            loadFavorites();
+            while (!stopped) {
+                Op op = nextOp();
+                long start = System.nanoTime();
+                boolean ok;
+                try {
+                    ok = execute(op);
+                } catch (Exception e) {
+                    ok = false;
+                }
+                long latency = System.nanoTime() - start;
+                if (recording) {
+                    samples[op.ordinal()].add(latency);
+                    if (!ok) errors[op.ordinal()]++;
+                }
+            }
+        }
+
+        private Op nextOp() {
+            int r = random.nextInt(totalWeight);
+            for (Op op : Op.values()) {
+                r -= weights[op.ordinal()];
+                if (r < 0) return op;
+            }
+            return Op.BROWSE;
+        }
+
+        private boolean execute(Op op) throws SQLException {
+            switch (op) {
+                case BROWSE:
+                    return browse();
+                case DETAILS: {
+                    int carId = randomCar();
+                    CommentsService.getCommentsByCar(carId);
+                    CommentsService.getAverageRating(carId);
+                    CommentsService.getRatingsCount(carId);
+                    CommentsService.getUserRating(carId, userId);
+                    return true;
+                }
+                case FAVORITE: {
+                    int carId = randomCar();
+                    if (favorites.remove(carId)) {
+                        return FavoritesService.removeFromFavorites(userId, carId);
+                    }
+                    favorites.add(carId);
+                    return FavoritesService.addToFavorites(userId, carId);
+                }
+                case COMMENT: {
+                    int carId = randomCar();
+                    boolean ok = CommentsService.addComment(carId, userId, "Нагрузочный отзыв " + random.nextInt(1000));
+                    if (random.nextInt(3) == 0) {
+                        ok &= CommentsService.setRating(carId, userId, 1 + random.nextInt(5));
+                    }
+                    return ok;
+                }
+                default:
+                    return ReservationsService.createReservation(randomCar(), userId, "Пользователь " + userId,
+                            "+7 700 000 0000", "user" + userId + "@example.kz",
+                            LocalDateTime.now().plusDays(1 + random.nextInt(30)), null);
+            }
+        }
+
+        // Случайные фильтры как в панели каталога, затем несколько страниц вглубь
+        private boolean browse() throws SQLException {
+            CatalogQuery query = CatalogQuery.ALL;
+            if (random.nextInt(100) < 60) {
+                RangeIndex.Field[] fields = RangeIndex.Field.values();
+                Double minPrice = random.nextBoolean() ? 5_000_000.0 + random.nextInt(10) * 1_000_000.0 : null;
+                Integer minYear = random.nextBoolean() ? 2005 + random.nextInt(15) : null;
+                query = new CatalogQuery(
+                        random.nextInt(4) == 0 ? SyntheticData.MODELS[random.nextInt(SyntheticData.MODELS.length)] : null,
+                        random.nextBoolean() && !brands.isEmpty() ? brands.get(random.nextInt(brands.size())) : null,
+                        minPrice, minPrice != null ? minPrice * 3 : null,
+                        minYear, null, true,
+                        random.nextBoolean() ? fields[random.nextInt(fields.length)] : null,
+                        random.nextBoolean());
+            }
+            CatalogPager pager = new CatalogPager(query, PAGE_SIZE);
+            int pages = 1 + random.nextInt(3);
+            for (int i = 0; i < pages && !pager.isExhausted(); i++) {
+                List<Car> page = pager.nextPage();
+                if (page.isEmpty()) break;
+            }
+            return true;
+        }
+
+        private int randomCar() {
+            return carIds[SyntheticData.skewed(random, carIds.length, config.carSkew())];
+        }
+
+        private void loadFavorites() {
+            try (Connection conn = DatabaseConnection.getConnection()) {
+                if (conn == null) return;
+                try (PreparedStatement stmt = conn.prepareStatement("SELECT car_id FROM favorites WHERE user_id = ?")) {
+                    stmt.setInt(1, userId);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) favorites.add(rs.getInt(1));
+                    }
+                }
+            } catch (SQLException e) {
+                System.err.println("❌ Не удалось прочитать избранное пользователя " + userId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Задержки одной операции в наносекундах (растущий массив без упаковки)
+     */
+    static class LatencySamples {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        void addAll(LatencySamples other) {
+            for (int i = 0; i < other.size; i++) add(other.values[i]);
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utils.PasswordUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Хеширование и проверка пароля (вход и регистрация)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PasswordBenchmark {
+
+    private String password;
+    private String salt;
+    private String hash;
+
+    @Setup
+    public void setup() {
+        password = "CarHub2025!";
+        salt = PasswordUtil.generateSaltHex(16);
+        hash = PasswordUtil.hashPassword(password, salt);
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return PasswordUtil.hashPassword(password, salt);
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return PasswordUtil.verifyPassword(password, salt, hash);
+    }
+}
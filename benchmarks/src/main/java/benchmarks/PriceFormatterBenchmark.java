@@ -0,0 +1,42 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import utils.PriceFormatter;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Форматирование цены (каждая ячейка таблицы и карточка каталога)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceFormatterBenchmark {
+
+    private static final int PRICES = 1024;
+
+    private final double[] prices = new double[PRICES];
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(SyntheticData.SEED);
+        for (int i = 0; i < PRICES; i++) {
+            prices[i] = Math.round(Math.exp(16.3 + 0.6 * random.nextGaussian()) / 1000.0) * 1000.0;
+        }
+    }
+
+    @Benchmark
+    public String format() {
+        return PriceFormatter.format(prices[next++ & (PRICES - 1)]);
+    }
+
+    @Benchmark
+    public String formatInMillions() {
+        return PriceFormatter.formatInMillions(prices[next++ & (PRICES - 1)]);
+    }
+}
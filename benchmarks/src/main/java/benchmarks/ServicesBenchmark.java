@@ -0,0 +1,104 @@
+package benchmarks;
+
+import catalog.CatalogQuery;
+import catalog.RangeIndex;
+import models.Car;
+import models.CardStats;
+import models.DashboardSnapshot;
+import org.openjdk.jmh.annotations.*;
+import services.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервисный слой против встроенной H2 (BenchmarkDatabase) с синтетическими данными.
+ *
+ * Запросы каталога те же, что на SQL Server (главное фото из CarImages — подзапросом), но планы
+ * у H2 свои: абсолютные числа не совпадут, сравнивать имеет смысл результаты до и после изменения.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServicesBenchmark {
+
+    @Param({"10000"})
+    public int cars;
+
+    @Param({"2000"})
+    public int users;
+
+    private static final int PAGE_SIZE = 100;
+    // Пользователь сессии: избранное загружается один раз, как после входа
+    private static final int SESSION_USER = 1;
+
+    private CatalogQuery filteredQuery;
+    private List<Integer> pageIds;
+    private Random random;
+
+    @Setup
+    public void setup() throws SQLException {
+        BenchmarkDatabase.start(cars, users);
+        filteredQuery = new CatalogQuery("toyota", null, 5_000_000.0, 25_000_000.0, 2010, 2022, true,
+                RangeIndex.Field.PRICE, true);
+        pageIds = new ArrayList<>();
+        for (int id = 1; id <= PAGE_SIZE; id++) {
+            pageIds.add(id);
+        }
+        random = new Random(SyntheticData.SEED);
+        FavoritesService.loadSession(SESSION_USER);
+    }
+
+    private int randomCar() {
+        return 1 + random.nextInt(cars);
+    }
+
+    @Benchmark
+    public List<Car> catalogFirstPage() throws SQLException {
+        return CarsService.getCarsPage(CatalogQuery.ALL, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Car> catalogFilteredPage() throws SQLException {
+        return CarsService.getCarsPage(filteredQuery, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Car> catalogAll() throws SQLException {
+        return CarsService.getAllCars();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public DashboardSnapshot dashboardSnapshot() {
+        return StatisticsService.getDashboardSnapshot();
+    }
+
+    @Benchmark
+    public DashboardSnapshot dashboardSnapshotCached() {
+        return StatisticsCache.getSnapshot();
+    }
+
+    @Benchmark
+    public double averageRating() {
+        return CommentsService.getAverageRating(randomCar());
+    }
+
+    @Benchmark
+    public Map<Integer, CardStats> cardStatsPage() {
+        return CardStatsService.loadFor(pageIds, SESSION_USER);
+    }
+
+    @Benchmark
+    public boolean isFavorite() {
+        return FavoritesService.isFavorite(SESSION_USER, randomCar());
+    }
+}
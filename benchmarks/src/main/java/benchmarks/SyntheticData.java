@@ -0,0 +1,70 @@
+package benchmarks;
+
+import models.Car;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Синтетический каталог с фиксированным зерном: одинаковые данные при каждом запуске,
+ * чтобы результаты до и после оптимизации можно было сравнивать
+ */
+public class SyntheticData {
+
+    public static final long SEED = GeneratorConfig.DEFAULT.seed();
+
+    static final String[] BRANDS = {
+        "Toyota", "Lexus", "Hyundai", "Kia", "Chevrolet", "Volkswagen", "BMW", "Mercedes-Benz",
+        "Audi", "Nissan", "Mitsubishi", "Subaru", "Mazda", "Honda", "Lada", "Geely",
+        "Chery", "Haval", "Skoda", "Renault", "Ford", "Land Rover", "Porsche", "Tesla"
+    };
+
+    static final String[] MODELS = {
+        "Camry", "Corolla", "Land Cruiser", "RAV4", "Sonata", "Tucson", "Elantra", "Sportage",
+        "K5", "Cobalt", "Tracker", "Polo", "Tiguan", "X5", "3 Series", "E-Class", "A6", "Q7",
+        "X-Trail", "Outlander", "Forester", "CX-5", "CR-V", "Granta", "Vesta", "Monjaro",
+        "Tiggo 7", "Jolion", "Octavia", "Duster", "Explorer", "Range Rover", "Cayenne", "Model 3"
+    };
+
+    static final String[] TRIMS = { "Comfort", "Elegance", "Prestige", "Sport", "Luxe", "Base", "Premium" };
+
+    /**
+     * Сгенерировать count автомобилей с id 1..count
+     */
+    public static List<Car> cars(int count, long seed) {
+        Random random = new Random(seed);
+        List<Car> cars = new ArrayList<>(count);
+        for (int id = 1; id <= count; id++) {
+            cars.add(car(id, random, GeneratorConfig.DEFAULT));
+        }
+        return cars;
+    }
+
+    static Car car(int id, Random random, GeneratorConfig config) {
+        // Популярные бренды встречаются чаще: индекс смещён к началу списка
+        String brand = BRANDS[skewed(random, BRANDS.length, config.brandSkew())];
+        String model = MODELS[random.nextInt(MODELS.length)];
+        String name = brand + " " + model + " " + TRIMS[random.nextInt(TRIMS.length)];
+
+        // Цена — логнормальная вокруг медианы, округлена до тысяч
+        double price = Math.round(config.priceMedian() * Math.exp(config.priceSigma() * random.nextGaussian()) / 1000.0) * 1000.0;
+
+        // У небольшой части старых записей нет года и пробега (как в базах до migrate_cars_extra)
+        Integer year = random.nextInt(100) < config.nullYearPercent() ? null : 1995 + random.nextInt(31);
+        Integer mileage = year == null ? null : Math.max(0, (2025 - year) * (8_000 + random.nextInt(20_000)));
+
+        String description = "Автомобиль " + name + ", " + (year != null ? year + " г." : "год не указан");
+        String imageUrl = "/images/cars/" + id + ".jpg";
+        return new Car(id, name, model, price, brand, year, mileage, description, imageUrl);
+    }
+
+    /**
+     * Индекс в [0, bound) со смещением к малым значениям: skew = 1 — равномерно,
+     * 2 — примерно закон Ципфа, больше — ещё сильнее
+     */
+    static int skewed(Random random, int bound, double skew) {
+        double u = random.nextDouble();
+        return Math.min(bound - 1, (int) (bound * Math.pow(u, skew)));
+    }
+}
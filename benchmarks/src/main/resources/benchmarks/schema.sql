@@ -0,0 +1,87 @@
+-- Схема CarHub для встроенной H2 (MODE=MSSQLServer): таблицы и колонки, с которыми работают сервисы (см. src/resources/db)
+
+CREATE TABLE users_secure (
+    id INT IDENTITY(1,1) PRIMARY KEY,
+    username NVARCHAR(50) NOT NULL UNIQUE,
+    password_hash NVARCHAR(128) NOT NULL,
+    salt NVARCHAR(32) NOT NULL,
+    fullname NVARCHAR(100) NOT NULL,
+    role NVARCHAR(20) NOT NULL DEFAULT 'user',
+    is_active BIT NOT NULL DEFAULT 1,
+    created_at DATETIME NOT NULL DEFAULT GETDATE(),
+    updated_at DATETIME NULL
+);
+
+CREATE TABLE Cars (
+    id INT IDENTITY(1,1) PRIMARY KEY,
+    name NVARCHAR(100) NOT NULL,
+    model NVARCHAR(100) NOT NULL,
+    price DECIMAL(18, 2) NOT NULL,
+    brand NVARCHAR(100) NULL,
+    year INT NULL,
+    mileage INT NULL,
+    description NVARCHAR(1000) NULL,
+    imageUrl NVARCHAR(500) NULL
+);
+
+CREATE TABLE CarImages (
+    id INT IDENTITY(1,1) PRIMARY KEY,
+    car_id INT NOT NULL REFERENCES Cars(id) ON DELETE CASCADE,
+    image_url NVARCHAR(500) NOT NULL,
+    is_main BIT DEFAULT 0,
+    display_order INT DEFAULT 0,
+    created_at DATETIME DEFAULT GETDATE()
+);
+
+CREATE TABLE favorites (
+    id INT IDENTITY(1,1) PRIMARY KEY,
+    user_id INT NOT NULL REFERENCES users_secure(id) ON DELETE CASCADE,
+    car_id INT NOT NULL REFERENCES Cars(id) ON DELETE CASCADE,
+    created_at DATETIME DEFAULT GETDATE(),
+    CONSTRAINT UQ_favorites_user_car UNIQUE (user_id, car_id)
+);
+
+CREATE TABLE comments_ratings (
+    id INT IDENTITY(1,1) PRIMARY KEY,
+    car_id INT NOT NULL REFERENCES Cars(id) ON DELETE CASCADE,
+    user_id INT NOT NULL REFERENCES users_secure(id) ON DELETE CASCADE,
+    comment NVARCHAR(1000),
+    rating INT CHECK (rating BETWEEN 1 AND 5),
+    created_at DATETIME DEFAULT GETDATE()
+);
+
+CREATE TABLE Reservations (
+    id INT IDENTITY(1,1) PRIMARY KEY,
+    car_id INT NOT NULL REFERENCES Cars(id) ON DELETE CASCADE,
+    user_id INT NOT NULL REFERENCES users_secure(id) ON DELETE CASCADE,
+    customer_name NVARCHAR(100) NOT NULL,
+    phone NVARCHAR(20) NOT NULL,
+    email NVARCHAR(100),
+    reservation_date DATETIME NOT NULL,
+    status NVARCHAR(20) DEFAULT 'pending',
+    notes NVARCHAR(500),
+    created_at DATETIME DEFAULT GETDATE(),
+    updated_at DATETIME DEFAULT GETDATE()
+);
+
+CREATE TABLE Purchases (
+    id INT IDENTITY(1,1) PRIMARY KEY,
+    car_id INT NOT NULL REFERENCES Cars(id) ON DELETE CASCADE,
+    user_id INT NOT NULL REFERENCES users_secure(id) ON DELETE CASCADE,
+    customer_name NVARCHAR(100) NOT NULL,
+    phone NVARCHAR(20) NOT NULL,
+    email NVARCHAR(100),
+    price DECIMAL(18, 2) NOT NULL,
+    payment_method NVARCHAR(50),
+    status NVARCHAR(20) DEFAULT 'pending',
+    notes NVARCHAR(500),
+    purchase_date DATETIME DEFAULT GETDATE(),
+    completed_at DATETIME
+);
+
+CREATE INDEX IX_CarImages_car ON CarImages(car_id);
+CREATE INDEX IX_favorites_user ON favorites(user_id);
+CREATE INDEX IX_favorites_car ON favorites(car_id);
+CREATE INDEX IX_comments_ratings_car ON comments_ratings(car_id);
+CREATE INDEX IX_reservations_car ON Reservations(car_id);
+CREATE INDEX IX_purchases_car ON Purchases(car_id);
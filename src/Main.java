@@ -2,6 +2,8 @@ import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import monitoring.FlightRecording;
+import monitoring.FxStallDetector;
 import utils.LoggerUtil;
 
 public class Main extends Application {
@@ -12,6 +14,9 @@ public class Main extends Application {
         LoggerUtil.info("🚀 ЗАПУСК ПРИЛОЖЕНИЯ CARHUB");
         LoggerUtil.info("═══════════════════════════════════════════════════════════");
 
+        // Сторож FX-потока: подвисания интерфейса попадают в лог и в отчёт администратора
+        FxStallDetector.start();
+
         // Запускаем с главной страницы (Landing Page)
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/resources/landing-view.fxml"));
         Scene scene = new Scene(fxmlLoader.load(), 1200, 800);
@@ -24,6 +29,8 @@ public class Main extends Application {
     }
 
     public static void main(String[] args) {
+        // Запись JFR по -Dcarhub.jfr=файл (профиль resources/jfr/carhub.jfc)
+        FlightRecording.startIfRequested();
         launch();
     }
 }
@@ -0,0 +1,105 @@
+package catalog;
+
+import models.Car;
+import services.CarsService;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Постраничная загрузка каталога по ключу (keyset): следующая страница
+ * начинается после последнего прочитанного автомобиля (значение поля сортировки, id),
+ * а не через OFFSET, поэтому стоимость страницы не растёт с её номером.
+ *
+ * Страницы одного пейджера загружаются по очереди, не параллельно: две загрузки начались бы
+ * с одного ключа и вернули бы одну и ту же страницу. Пока страница загружается, следующая
+ * не запускается (isLoading).
+ */
+public class CatalogPager {
+
+    private final CatalogQuery query;
+    private final int pageSize;
+    private volatile Car last;
+    private volatile boolean exhausted;
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    public CatalogPager(CatalogQuery query, int pageSize) {
+        this.query = query;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Загрузить следующую страницу (блокирующий запрос к базе)
+     *
+     * @return автомобили страницы; пустой список, если страниц больше нет
+     * @throws SQLException если нет подключения к базе или запрос не выполнен
+     * @throws IllegalStateException если предыдущая страница ещё загружается
+     */
+    public List<Car> nextPage() throws SQLException {
+        claim();
+        try {
+            return fetch();
+        } finally {
+            loading.set(false);
+        }
+    }
+
+    /**
+     * Загрузить следующую страницу в фоне: запрос выполняет loader (например, AsyncLoader.Scope::load).
+     * Пейджер занят с момента вызова, а не с начала запроса в фоновом потоке, поэтому повторная
+     * прокрутка до завершения загрузки не запустит вторую страницу с тем же ключом.
+     *
+     * @throws IllegalStateException если предыдущая страница ещё загружается
+     */
+    public CompletableFuture<List<Car>> loadNextPage(Function<Callable<List<Car>>, CompletableFuture<List<Car>>> loader) {
+        claim();
+        try {
+            return loader.apply(this::fetch).whenComplete((page, error) -> loading.set(false));
+        } catch (RuntimeException e) {
+            loading.set(false);
+            throw e;
+        }
+    }
+
+    private void claim() {
+        if (!loading.compareAndSet(false, true)) {
+            throw new IllegalStateException("Предыдущая страница каталога ещё загружается");
+        }
+    }
+
+    private List<Car> fetch() throws SQLException {
+        if (exhausted) return List.of();
+
+        List<Car> page = CarsService.getCarsPage(query, last, pageSize);
+        if (!page.isEmpty()) {
+            last = page.get(page.size() - 1);
+        }
+        // Неполная страница — дальше ничего нет
+        if (page.size() < pageSize) {
+            exhausted = true;
+        }
+        return page;
+    }
+
+    public CatalogQuery getQuery() {
+        return query;
+    }
+
+    /**
+     * Страница загружается (следующую запрашивать рано)
+     */
+    public boolean isLoading() {
+        return loading.get();
+    }
+
+    /**
+     * Все страницы прочитаны
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
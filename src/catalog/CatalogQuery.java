@@ -0,0 +1,46 @@
+package catalog;
+
+/**
+ * Фильтры и сортировка каталога в виде, пригодном для запроса к базе.
+ * Используется, пока каталог загружен не полностью и отфильтровать его в памяти нельзя.
+ *
+ * @param text             текст поиска (слова ищутся как префиксы, как в SearchIndex)
+ * @param brand            бренд (null — любой)
+ * @param minPrice         цена от (null — без границы)
+ * @param maxPrice         цена до
+ * @param minYear          год от
+ * @param maxYear          год до
+ * @param includeNullYears показывать ли автомобили без года при фильтре по году
+ * @param sortField        поле сортировки (null — по id)
+ * @param ascending        направление сортировки
+ */
+public record CatalogQuery(String text, String brand,
+                           Double minPrice, Double maxPrice,
+                           Integer minYear, Integer maxYear, boolean includeNullYears,
+                           RangeIndex.Field sortField, boolean ascending) {
+
+    /**
+     * Весь каталог по id — так он загружается постранично
+     */
+    public static final CatalogQuery ALL = new CatalogQuery(null, null, null, null, null, null, true, null, true);
+
+    /**
+     * Слова поиска (пустой массив — без поиска)
+     */
+    public String[] terms() {
+        return SearchIndex.terms(text);
+    }
+
+    public boolean hasYearFilter() {
+        return minYear != null || maxYear != null;
+    }
+
+    /**
+     * Нет ни фильтров, ни сортировки — результат совпадает с каталогом по id
+     */
+    public boolean isEmpty() {
+        return terms().length == 0 && brand == null
+                && minPrice == null && maxPrice == null
+                && !hasYearFilter() && sortField == null;
+    }
+}
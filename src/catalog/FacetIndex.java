@@ -0,0 +1,192 @@
+package catalog;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import models.Car;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Фасеты каталога: количество автомобилей по брендам и годам
+ * для текущего результата фильтрации ("Toyota (412)").
+ *
+ * Каждому значению фасета присваивается порядковый номер, для каждого id
+ * хранится номер его значения (int[]). Подсчёт — один проход по битам результата.
+ * При изменении фильтров пересчитывается только разница между прошлым
+ * и новым результатом (XOR), если она меньше самого результата.
+ */
+public class FacetIndex {
+
+    private List<Car> source = List.of();
+    private boolean dirty = true;
+
+    private final Facet<String> brands = new Facet<>(Car::getBrand, Comparator.naturalOrder());
+    private final Facet<Integer> years = new Facet<>(Car::getYear, Comparator.naturalOrder());
+
+    /**
+     * Следить за списком автомобилей: любое изменение помечает индекс устаревшим
+     */
+    public synchronized void bindTo(ObservableList<Car> cars) {
+        source = cars;
+        dirty = true;
+        cars.addListener((ListChangeListener<Car>) change -> markDirty());
+    }
+
+    public synchronized void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * Все бренды каталога по алфавиту
+     */
+    public synchronized List<String> brands() {
+        ensureBuilt();
+        return new ArrayList<>(brands.values);
+    }
+
+    /**
+     * Все годы каталога по возрастанию
+     */
+    public synchronized List<Integer> years() {
+        ensureBuilt();
+        return new ArrayList<>(years.values);
+    }
+
+    /**
+     * id автомобилей указанного бренда
+     */
+    public synchronized BitSet brandIds(String brand, boolean ignoreCase) {
+        ensureBuilt();
+        return brands.ids(value -> ignoreCase ? value.equalsIgnoreCase(brand) : value.equals(brand));
+    }
+
+    /**
+     * Количество автомобилей по брендам среди result (бренды без совпадений — 0)
+     */
+    public synchronized Map<String, Integer> brandCounts(BitSet result) {
+        ensureBuilt();
+        return brands.counts(result);
+    }
+
+    /**
+     * Количество автомобилей по годам среди result (годы без совпадений — 0)
+     */
+    public synchronized Map<Integer, Integer> yearCounts(BitSet result) {
+        ensureBuilt();
+        return years.counts(result);
+    }
+
+    private void ensureBuilt() {
+        if (!dirty) return;
+        List<Car> cars = new ArrayList<>(source);
+        brands.rebuild(cars);
+        years.rebuild(cars);
+        dirty = false;
+    }
+
+    /**
+     * Один фасет: значения, номер значения по id и счётчики прошлого подсчёта
+     */
+    private static class Facet<T> {
+        private final Function<Car, T> getter;
+        private final Comparator<T> order;
+
+        private List<T> values = List.of();
+        private int[] ordinalById = new int[0];   // -1 — значения нет
+        private BitSet[] idsByOrdinal = new BitSet[0];
+
+        // Состояние прошлого подсчёта для инкрементального обновления
+        private BitSet counted = new BitSet();
+        private int[] counts = new int[0];
+
+        Facet(Function<Car, T> getter, Comparator<T> order) {
+            this.getter = getter;
+            this.order = order;
+        }
+
+        void rebuild(List<Car> cars) {
+            Map<T, Integer> ordinals = new HashMap<>();
+            List<T> distinct = new ArrayList<>();
+            int maxId = -1;
+            for (Car car : cars) {
+                T value = getter.apply(car);
+                if (value != null && !(value instanceof String s && s.isBlank()) && !ordinals.containsKey(value)) {
+                    ordinals.put(value, 0);
+                    distinct.add(value);
+                }
+                maxId = Math.max(maxId, car.getId());
+            }
+            distinct.sort(order);
+            for (int i = 0; i < distinct.size(); i++) {
+                ordinals.put(distinct.get(i), i);
+            }
+
+            int[] byId = new int[maxId + 1];
+            Arrays.fill(byId, -1);
+            BitSet[] byOrdinal = new BitSet[distinct.size()];
+            for (int i = 0; i < byOrdinal.length; i++) byOrdinal[i] = new BitSet();
+            for (Car car : cars) {
+                if (car.getId() < 0) continue;
+                Integer ordinal = ordinals.get(getter.apply(car));
+                if (ordinal != null) {
+                    byId[car.getId()] = ordinal;
+                    byOrdinal[ordinal].set(car.getId());
+                }
+            }
+
+            values = distinct;
+            ordinalById = byId;
+            idsByOrdinal = byOrdinal;
+            counted = new BitSet();
+            counts = new int[distinct.size()];
+        }
+
+        BitSet ids(Predicate<T> valueMatches) {
+            BitSet result = new BitSet();
+            for (int i = 0; i < values.size(); i++) {
+                if (valueMatches.test(values.get(i))) result.or(idsByOrdinal[i]);
+            }
+            return result;
+        }
+
+        Map<T, Integer> counts(BitSet result) {
+            BitSet diff = (BitSet) counted.clone();
+            diff.xor(result);
+
+            if (diff.cardinality() < result.cardinality()) {
+                // Обновляем счётчики только по изменившимся id
+                for (int id = diff.nextSetBit(0); id >= 0; id = diff.nextSetBit(id + 1)) {
+                    int ordinal = ordinalOf(id);
+                    if (ordinal < 0) continue;
+                    counts[ordinal] += result.get(id) ? 1 : -1;
+                }
+            } else {
+                Arrays.fill(counts, 0);
+                for (int id = result.nextSetBit(0); id >= 0; id = result.nextSetBit(id + 1)) {
+                    int ordinal = ordinalOf(id);
+                    if (ordinal >= 0) counts[ordinal]++;
+                }
+            }
+            counted = (BitSet) result.clone();
+
+            Map<T, Integer> map = new LinkedHashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                map.put(values.get(i), counts[i]);
+            }
+            return map;
+        }
+
+        private int ordinalOf(int id) {
+            return id < ordinalById.length ? ordinalById[id] : -1;
+        }
+    }
+}
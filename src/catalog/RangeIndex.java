@@ -0,0 +1,235 @@
+package catalog;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import models.Car;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Отсортированные индексы по цене, году и пробегу.
+ *
+ * Для каждого поля хранятся параллельные примитивные массивы (значение, id, Car),
+ * упорядоченные по значению. Диапазон находится двумя бинарными поисками и
+ * возвращается как BitSet id; отсортированный результат — проход по массиву
+ * без компаратора. Индекс перестраивается лениво при первом запросе после
+ * изменения каталога.
+ */
+public class RangeIndex {
+
+    public enum Field { PRICE, YEAR, MILEAGE }
+
+    private List<Car> source = List.of();
+    private boolean dirty = true;
+    private final Column[] columns = new Column[Field.values().length];
+
+    /**
+     * Один отсортированный столбец. Пустые значения (null) хранятся как 0 —
+     * так же их сортировал прежний компаратор — и дополнительно отмечены в nulls.
+     */
+    private static class Column {
+        final double[] keys;
+        final int[] ids;
+        final Car[] cars;
+        final BitSet nulls = new BitSet();
+
+        Column(int size) {
+            keys = new double[size];
+            ids = new int[size];
+            cars = new Car[size];
+        }
+    }
+
+    /**
+     * Следить за списком автомобилей: любое изменение помечает индекс устаревшим
+     */
+    public synchronized void bindTo(ObservableList<Car> cars) {
+        source = cars;
+        dirty = true;
+        cars.addListener((ListChangeListener<Car>) change -> markDirty());
+    }
+
+    public synchronized void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * id автомобилей, у которых значение поля в [min, max] (границы включительно, null — без границы)
+     *
+     * @param includeNulls включать ли автомобили без значения поля
+     */
+    public synchronized BitSet range(Field field, Double min, Double max, boolean includeNulls) {
+        Column column = column(field);
+        int from = min == null ? 0 : lowerBound(column.keys, min);
+        int to = max == null ? column.keys.length : upperBound(column.keys, max);
+
+        BitSet result = new BitSet();
+        for (int i = from; i < to; i++) {
+            result.set(column.ids[i]);
+        }
+
+        // Пустые значения лежат в индексе как 0 — учитываем их отдельно
+        BitSet nullIds = idsOf(column, column.nulls);
+        if (includeNulls) {
+            result.or(nullIds);
+        } else {
+            result.andNot(nullIds);
+        }
+        return result;
+    }
+
+    /**
+     * Автомобили из filter в порядке возрастания (ascending) или убывания поля.
+     * При равных значениях порядок — по id, как в исходном списке.
+     */
+    public synchronized List<Car> sorted(Field field, boolean ascending, BitSet filter) {
+        Column column = column(field);
+        int n = column.ids.length;
+        List<Car> result = new ArrayList<>(Math.min(n, filter.cardinality()));
+        if (ascending) {
+            for (int i = 0; i < n; i++) {
+                if (filter.get(column.ids[i])) result.add(column.cars[i]);
+            }
+        } else {
+            // В обратном проходе равные значения тоже должны идти по возрастанию id
+            int end = n;
+            while (end > 0) {
+                int start = end - 1;
+                while (start > 0 && column.keys[start - 1] == column.keys[end - 1]) start--;
+                for (int i = start; i < end; i++) {
+                    if (filter.get(column.ids[i])) result.add(column.cars[i]);
+                }
+                end = start;
+            }
+        }
+        return result;
+    }
+
+    private Column column(Field field) {
+        if (dirty) {
+            rebuild();
+        }
+        return columns[field.ordinal()];
+    }
+
+    private void rebuild() {
+        List<Car> cars = new ArrayList<>(source);
+        for (Field field : Field.values()) {
+            Column column = new Column(cars.size());
+            for (int i = 0; i < cars.size(); i++) {
+                Car car = cars.get(i);
+                column.keys[i] = key(car, field);
+                column.ids[i] = car.getId();
+                column.cars[i] = car;
+            }
+            sort(column.keys, column.ids, column.cars, 0, cars.size() - 1);
+            for (int i = 0; i < cars.size(); i++) {
+                if (isNull(column.cars[i], field)) column.nulls.set(i);
+            }
+            columns[field.ordinal()] = column;
+        }
+        dirty = false;
+    }
+
+    private static double key(Car car, Field field) {
+        switch (field) {
+            case PRICE:
+                return car.getPrice();
+            case YEAR:
+                return car.getYear() != null ? car.getYear() : 0;
+            default:
+                return car.getMileage() != null ? car.getMileage() : 0;
+        }
+    }
+
+    private static boolean isNull(Car car, Field field) {
+        switch (field) {
+            case YEAR:
+                return car.getYear() == null;
+            case MILEAGE:
+                return car.getMileage() == null;
+            default:
+                return false;
+        }
+    }
+
+    private static BitSet idsOf(Column column, BitSet positions) {
+        BitSet ids = new BitSet();
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            ids.set(column.ids[i]);
+        }
+        return ids;
+    }
+
+    // Первая позиция с keys[i] >= value
+    private static int lowerBound(double[] keys, double value) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < value) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // Первая позиция с keys[i] > value
+    private static int upperBound(double[] keys, double value) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] <= value) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Быстрая сортировка параллельных массивов по (значение, id) — без упаковки в объекты
+     */
+    private static void sort(double[] keys, int[] ids, Car[] cars, int lo, int hi) {
+        while (lo < hi) {
+            if (hi - lo < 16) {
+                insertionSort(keys, ids, cars, lo, hi);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            double pivotKey = keys[mid];
+            int pivotId = ids[mid];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (compare(keys[i], ids[i], pivotKey, pivotId) < 0) i++;
+                while (compare(keys[j], ids[j], pivotKey, pivotId) > 0) j--;
+                if (i <= j) {
+                    swap(keys, ids, cars, i++, j--);
+                }
+            }
+            // Рекурсия в меньшую часть, цикл — по большей
+            if (j - lo < hi - i) {
+                sort(keys, ids, cars, lo, j);
+                lo = i;
+            } else {
+                sort(keys, ids, cars, i, hi);
+                hi = j;
+            }
+        }
+    }
+
+    private static void insertionSort(double[] keys, int[] ids, Car[] cars, int lo, int hi) {
+        for (int i = lo + 1; i <= hi; i++) {
+            for (int j = i; j > lo && compare(keys[j], ids[j], keys[j - 1], ids[j - 1]) < 0; j--) {
+                swap(keys, ids, cars, j, j - 1);
+            }
+        }
+    }
+
+    private static int compare(double k1, int id1, double k2, int id2) {
+        int c = Double.compare(k1, k2);
+        return c != 0 ? c : Integer.compare(id1, id2);
+    }
+
+    private static void swap(double[] keys, int[] ids, Car[] cars, int a, int b) {
+        double k = keys[a]; keys[a] = keys[b]; keys[b] = k;
+        int id = ids[a]; ids[a] = ids[b]; ids[b] = id;
+        Car car = cars[a]; cars[a] = cars[b]; cars[b] = car;
+    }
+}
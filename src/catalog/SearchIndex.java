@@ -0,0 +1,278 @@
+package catalog;
+
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import models.Car;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Инвертированный индекс для текстового поиска по каталогу.
+ *
+ * Название, модель, бренд и цена разбиваются на слова; для каждого слова хранится
+ * список id автомобилей (int[]). Слово запроса ищется как префикс: списки всех слов
+ * с этим префиксом собираются в BitSet, а слова запроса пересекаются (AND) —
+ * "toy cam" найдёт "Toyota Camry".
+ * Индекс обновляется по изменениям списка автомобилей (bindTo) и безопасен
+ * для чтения из фоновых потоков.
+ */
+public class SearchIndex {
+
+    private static final int BULK_REMOVE_THRESHOLD = 256;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // слово → id автомобилей, в описании которых есть это слово
+    private final TreeMap<String, Posting> postings = new TreeMap<>();
+    // id → слова автомобиля (нужны, чтобы убрать его из индекса при изменении)
+    private final Map<Integer, String[]> tokensById = new HashMap<>();
+    private final BitSet allIds = new BitSet();
+
+    /**
+     * Держать индекс в актуальном состоянии по изменениям списка
+     */
+    public void bindTo(ObservableList<Car> cars) {
+        rebuild(cars);
+        cars.addListener((ListChangeListener<Car>) change -> {
+            // Массовое удаление (clear/setAll) дешевле перестроить целиком:
+            // удаление по одному проходит по спискам частых слов
+            int removed = 0;
+            while (change.next()) {
+                removed += change.getRemovedSize();
+            }
+            if (removed > BULK_REMOVE_THRESHOLD) {
+                rebuild(cars);
+                return;
+            }
+
+            change.reset();
+            while (change.next()) {
+                if (change.wasPermutated()) continue;
+                if (change.wasRemoved()) {
+                    for (Car car : change.getRemoved()) remove(car.getId());
+                }
+                if (change.wasAdded()) {
+                    for (Car car : change.getAddedSubList()) add(car);
+                }
+                if (change.wasUpdated()) {
+                    for (int i = change.getFrom(); i < change.getTo(); i++) add(change.getList().get(i));
+                }
+            }
+        });
+    }
+
+    /**
+     * Полностью перестроить индекс
+     */
+    public void rebuild(List<Car> cars) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            tokensById.clear();
+            allIds.clear();
+            for (Car car : cars) {
+                addLocked(car);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавить автомобиль (или обновить, если он уже в индексе)
+     */
+    public void add(Car car) {
+        if (car == null || car.getId() < 0) return;
+        lock.writeLock().lock();
+        try {
+            removeLocked(car.getId());
+            addLocked(car);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void update(Car car) {
+        add(car);
+    }
+
+    public void remove(int carId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(carId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Найти автомобили по запросу
+     *
+     * @return id подходящих автомобилей (копия, можно изменять); пустой запрос — все автомобили
+     */
+    public BitSet search(String query) {
+        String[] terms = tokenize(query);
+        lock.readLock().lock();
+        try {
+            if (terms.length == 0) {
+                return (BitSet) allIds.clone();
+            }
+
+            BitSet result = null;
+            for (String term : terms) {
+                BitSet matches = prefixMatches(term);
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.and(matches);
+                }
+                if (result.isEmpty()) break;
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Предикат для FilteredList: поиск выполняется один раз, проверка автомобиля — один бит
+     */
+    public Predicate<Car> matcher(String query) {
+        if (tokenize(query).length == 0) {
+            return car -> true;
+        }
+        BitSet result = search(query);
+        return car -> car.getId() >= 0 && result.get(car.getId());
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return tokensById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Объединение списков всех слов, начинающихся с prefix
+     */
+    private BitSet prefixMatches(String prefix) {
+        // Стоимость пропорциональна числу найденных id, а не размеру каталога
+        NavigableMap<String, Posting> range = postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        BitSet result = new BitSet();
+        for (Posting posting : range.values()) {
+            posting.setBits(result);
+        }
+        return result;
+    }
+
+    private void addLocked(Car car) {
+        String[] tokens = tokenize(car);
+        int id = car.getId();
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, t -> new Posting()).add(id);
+        }
+        tokensById.put(id, tokens);
+        allIds.set(id);
+    }
+
+    private void removeLocked(int carId) {
+        String[] tokens = tokensById.remove(carId);
+        if (tokens == null) return;
+        for (String token : tokens) {
+            Posting posting = postings.get(token);
+            if (posting == null) continue;
+            posting.remove(carId);
+            if (posting.size == 0) postings.remove(token);
+        }
+        allIds.clear(carId);
+    }
+
+    /**
+     * Слова автомобиля: название, модель, бренд и цена (как в прежнем поиске)
+     */
+    private static String[] tokenize(Car car) {
+        Set<String> tokens = new LinkedHashSet<>();
+        addTokens(tokens, car.getName());
+        addTokens(tokens, car.getModel());
+        addTokens(tokens, car.getBrand());
+        // Цена целиком ("25000.0"), чтобы поиск по "25000" продолжал работать
+        tokens.add(String.valueOf(car.getPrice()));
+        return tokens.toArray(new String[0]);
+    }
+
+    /**
+     * Слова запроса в том виде, в каком они ищутся в индексе (нижний регистр, без знаков)
+     */
+    public static String[] terms(String query) {
+        return tokenize(query);
+    }
+
+    private static String[] tokenize(String text) {
+        if (text == null || text.isBlank()) return new String[0];
+        Set<String> tokens = new LinkedHashSet<>();
+        addTokens(tokens, text);
+        return tokens.toArray(new String[0]);
+    }
+
+    private static void addTokens(Set<String> out, String text) {
+        if (text == null) return;
+        StringBuilder word = new StringBuilder();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            // Точка внутри числа — часть слова ("2.5", "25000.0")
+            boolean numberDot = c == '.' && !word.isEmpty() && i + 1 < lower.length()
+                    && Character.isDigit(lower.charAt(i - 1)) && Character.isDigit(lower.charAt(i + 1));
+            if (Character.isLetterOrDigit(c) || numberDot) {
+                word.append(c);
+            } else if (!word.isEmpty()) {
+                out.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) out.add(word.toString());
+    }
+
+    /**
+     * Список id для одного слова. Порядок не важен, удаление — заменой последним элементом.
+     */
+    private static class Posting {
+        int[] ids = new int[4];
+        int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    ids[i] = ids[--size];
+                    return;
+                }
+            }
+        }
+
+        void setBits(BitSet target) {
+            for (int i = 0; i < size; i++) {
+                target.set(ids[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package catalog;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.util.Duration;
+import utils.LoggerUtil;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Конвейер поиска для поля ввода: ждёт паузу в наборе (debounce), выполняет
+ * поиск в фоновом потоке и отдаёт в FX-поток только результат последнего запроса.
+ *
+ * Каждый запрос получает номер поколения; результат устаревшего поколения
+ * отбрасывается, а ещё не начатое вычисление отменяется.
+ */
+public class SearchPipeline<R> {
+
+    // Один поток на все поля поиска: вычисления короткие, а устаревшие всё равно пропускаются
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "carhub-search");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Function<String, R> evaluator;
+    private final Consumer<R> publisher;
+    private final PauseTransition debounce;
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> inFlight;
+    private String pendingQuery = "";
+
+    /**
+     * @param delay     пауза после последнего нажатия перед поиском
+     * @param evaluator поиск (выполняется в фоновом потоке, должен быть потокобезопасным)
+     * @param publisher применение результата (выполняется в FX-потоке)
+     */
+    public SearchPipeline(Duration delay, Function<String, R> evaluator, Consumer<R> publisher) {
+        this.evaluator = evaluator;
+        this.publisher = publisher;
+        this.debounce = new PauseTransition(delay);
+        this.debounce.setOnFinished(e -> start(pendingQuery));
+    }
+
+    /**
+     * Новый текст запроса (вызывать из FX-потока на каждое изменение поля)
+     */
+    public void submit(String query) {
+        pendingQuery = query == null ? "" : query;
+        // Всё, что было запущено раньше, больше не нужно
+        generation.incrementAndGet();
+        debounce.playFromStart();
+    }
+
+    /**
+     * Отменить ожидающий и выполняющийся поиск
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        debounce.stop();
+        if (inFlight != null) {
+            inFlight.cancel(false);
+        }
+    }
+
+    private void start(String query) {
+        long gen = generation.incrementAndGet();
+        if (inFlight != null) {
+            inFlight.cancel(false);
+        }
+        inFlight = executor.submit(() -> {
+            if (gen != generation.get()) return;
+            R result;
+            try {
+                result = evaluator.apply(query);
+            } catch (RuntimeException e) {
+                // Future никто не читает — без этого ошибка поиска пропала бы молча
+                LoggerUtil.error("Ошибка поиска по запросу \"" + query + "\"", e);
+                return;
+            }
+            if (gen != generation.get()) return;
+            Platform.runLater(() -> {
+                if (gen == generation.get()) {
+                    publisher.accept(result);
+                }
+            });
+        });
+    }
+}
@@ -15,11 +15,13 @@ import javafx.stage.Stage;
 import models.Purchase;
 import models.Reservation;
 import services.ReservationsService;
+import utils.AsyncLoader;
 import utils.LoggerUtil;
 
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Контроллер для управления заявками администратором
@@ -78,6 +80,7 @@ public class AdminOrdersController {
     private boolean showingReservations = true;
 
     private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm");
+    private AsyncLoader.Scope loadScope;
 
     // ========== ИНИЦИАЛИЗАЦИЯ ==========
 
@@ -228,26 +231,44 @@ public class AdminOrdersController {
 
     // ========== ЗАГРУЗКА ДАННЫХ ==========
 
-    private void loadData() {
-        allReservations.clear();
-        allPurchases.clear();
-
-        List<Reservation> reservations = ReservationsService.getAllReservations();
-        List<Purchase> purchases = ReservationsService.getAllPurchases();
+    /**
+     * Загрузка в фоне: бронирования и покупки запрашиваются параллельно
+     * и показываются по мере готовности
+     */
+    private CompletableFuture<Void> loadData() {
+        if (loadScope == null) {
+            loadScope = AsyncLoader.scopeFor(reservationsTable);
+        }
+        statusLabel.setText("⏳ Загрузка...");
 
-        allReservations.addAll(reservations);
-        allPurchases.addAll(purchases);
+        CompletableFuture<List<Reservation>> reservations = loadScope.load(ReservationsService::getAllReservations);
+        CompletableFuture<List<Purchase>> purchases = loadScope.load(ReservationsService::getAllPurchases);
 
-        applyFilter();
-        updateTotalLabel();
+        reservations.thenAccept(list -> {
+            allReservations.setAll(list);
+            applyFilter();
+            updateTotalLabel();
+        });
+        purchases.thenAccept(list -> {
+            allPurchases.setAll(list);
+            applyFilter();
+            updateTotalLabel();
+        });
 
-        LoggerUtil.info("Загружено бронирований: " + reservations.size() + ", покупок: " + purchases.size());
+        return CompletableFuture.allOf(reservations, purchases).whenComplete((ignored, error) -> {
+            if (error == null) {
+                statusLabel.setText("");
+                LoggerUtil.info("Загружено бронирований: " + reservations.join().size() + ", покупок: " + purchases.join().size());
+            } else if (!AsyncLoader.isCancelled(error)) {
+                statusLabel.setText("❌ Ошибка загрузки данных");
+                LoggerUtil.error("Ошибка загрузки заказов", AsyncLoader.cause(error));
+            }
+        });
     }
 
     @FXML
     private void refreshData() {
-        loadData();
-        statusLabel.setText("✅ Данные обновлены");
+        loadData().thenRun(() -> statusLabel.setText("✅ Данные обновлены"));
     }
 
     // ========== ПЕРЕКЛЮЧЕНИЕ ВИДОВ ==========
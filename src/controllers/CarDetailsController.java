@@ -15,6 +15,7 @@ import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import services.CommentsService;
 import services.CarImagesService;
+import utils.AsyncLoader;
 import utils.ImageCache;
 import utils.SessionManager;
 import utils.LoggerUtil;
@@ -27,6 +28,7 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 public class CarDetailsController {
 
@@ -62,12 +64,18 @@ public class CarDetailsController {
     private Car car;
     private Button[] starButtons;
     private List<CarImage> carImages = new ArrayList<>();
+    private AsyncLoader.Scope loadScope;
     private int currentPhotoIndex = 0;
 
     public void setCar(Car car) {
         this.car = car;
         if (car == null) return;
 
+        // Комментарии, рейтинг и фото грузятся в фоне; при закрытии окна загрузка отменяется
+        if (loadScope == null) {
+            loadScope = AsyncLoader.scopeFor(nameLabel);
+        }
+
         nameLabel.setText(nvl(car.getName()));
         modelLabel.setText(nvl(car.getModel()));
         priceLabel.setText(utils.PriceFormatter.formatWithPrefix(car.getPrice()));
@@ -99,9 +107,19 @@ public class CarDetailsController {
     }
 
     private void loadRating() {
-        double avgRating = CommentsService.getAverageRating(car.getId());
-        int ratingsCount = CommentsService.getRatingsCount(car.getId());
+        int carId = car.getId();
+        // Три независимых запроса выполняются параллельно
+        CompletableFuture<Double> avg = loadScope.load(() -> CommentsService.getAverageRating(carId));
+        CompletableFuture<Integer> count = loadScope.load(() -> CommentsService.getRatingsCount(carId));
+        CompletableFuture<Integer> userRating = SessionManager.isLoggedIn()
+                ? loadScope.load(() -> CommentsService.getUserRating(carId, SessionManager.getCurrentUserId()))
+                : CompletableFuture.completedFuture(0);
+
+        CompletableFuture.allOf(avg, count, userRating)
+                .thenRun(() -> showRating(avg.join(), count.join(), userRating.join()));
+    }
 
+    private void showRating(double avgRating, int ratingsCount, int userRating) {
         averageRatingLabel.setText(String.format("%.1f", avgRating));
         ratingsCountLabel.setText(String.format("(%d %s)", ratingsCount,
             ratingsCount == 1 ? "оценка" : ratingsCount < 5 ? "оценки" : "оценок"));
@@ -114,7 +132,6 @@ public class CarDetailsController {
         }
 
         if (SessionManager.isLoggedIn()) {
-            int userRating = CommentsService.getUserRating(car.getId(), SessionManager.getCurrentUserId());
             updateStarButtons(userRating);
         }
     }
@@ -158,7 +175,12 @@ public class CarDetailsController {
     }
 
     private void loadComments() {
-        List<Comment> comments = CommentsService.getCommentsByCar(car.getId());
+        int carId = car.getId();
+        loadScope.load(() -> CommentsService.getCommentsByCar(carId))
+                .thenAccept(this::showComments);
+    }
+
+    private void showComments(List<Comment> comments) {
         commentsCountLabel.setText(String.format("(%d)", comments.size()));
 
         commentsListBox.getChildren().clear();
@@ -621,8 +643,14 @@ public class CarDetailsController {
      * Загрузка галереи фото
      */
     private void loadPhotoGallery() {
-        // Загружаем фото из БД
-        carImages = CarImagesService.getCarImages(car.getId());
+        int carId = car.getId();
+        loadScope.load(() -> CarImagesService.getCarImages(carId))
+                .thenAccept(this::showPhotoGallery);
+    }
+
+    private void showPhotoGallery(List<CarImage> images) {
+        // Фото из БД
+        carImages = images;
 
         // Если нет фото в БД, используем старое поле imageUrl
         if (carImages.isEmpty() && car.getImageUrl() != null && !car.getImageUrl().isEmpty()) {
@@ -650,7 +678,7 @@ public class CarDetailsController {
         if (totalPhotos > 0 && currentPhotoIndex < totalPhotos) {
             CarImage currentImage = carImages.get(currentPhotoIndex);
             if (imageView != null) {
-                Image img = ImageCache.getImage(currentImage.getImageUrl());
+                Image img = ImageCache.getImage(currentImage.getImageUrl(), imageView.getFitWidth(), imageView.getFitHeight());
                 imageView.setImage(img);
                 imageView.setPreserveRatio(true);
                 imageView.setSmooth(true);
@@ -710,7 +738,7 @@ public class CarDetailsController {
                 (i == currentPhotoIndex ? "-fx-border-color: #667eea; -fx-border-width: 3;" : "")
             );
 
-            Image img = ImageCache.getImage(carImage.getImageUrl());
+            Image img = ImageCache.getImage(carImage.getImageUrl(), 80, 60);
             thumbnail.setImage(img);
 
             thumbnail.setOnMouseClicked(e -> {
@@ -13,6 +13,8 @@ import services.CarImagesService;
 import utils.ValidationUtil;
 import utils.NotificationUtil;
 import utils.LoggerUtil;
+import models.DashboardSnapshot.Section;
+import services.StatisticsCache;
 
 import java.io.File;
 import java.sql.Connection;
@@ -174,48 +176,10 @@ public class CarFormController {
         String mileageText = mileageField != null ? mileageField.getText() : null;
         String description = descriptionArea != null ? descriptionArea.getText() : null;
 
-        // ✅ ВАЛИДАЦИЯ ОБЯЗАТЕЛЬНЫХ ПОЛЕЙ
-        if (!ValidationUtil.isNotEmpty(name)) {
-            showError("Название", "не может быть пустым");
-            return;
-        }
-        if (!ValidationUtil.isValidLength(name, 2, 100)) {
-            showError("Название", "должно быть от 2 до 100 символов");
-            return;
-        }
-
-        if (!ValidationUtil.isNotEmpty(model)) {
-            showError("Модель", "не может быть пустой");
-            return;
-        }
-        if (!ValidationUtil.isValidLength(model, 1, 50)) {
-            showError("Модель", "должна быть от 1 до 50 символов");
-            return;
-        }
-
-        if (!ValidationUtil.isValidPrice(priceText)) {
-            showError("Цена", "должна быть положительным числом");
-            return;
-        }
-
-        // ✅ ВАЛИДАЦИЯ ОПЦИОНАЛЬНЫХ ПОЛЕЙ
-        if (brand != null && !brand.isBlank() && !ValidationUtil.isValidLength(brand, 2, 50)) {
-            showError("Бренд", "должен быть от 2 до 50 символов");
-            return;
-        }
-
-        if (yearText != null && !yearText.isBlank() && !ValidationUtil.isValidYear(yearText)) {
-            showError("Год", "должен быть в диапазоне 1900-2030");
-            return;
-        }
-
-        if (mileageText != null && !mileageText.isBlank() && !ValidationUtil.isValidMileage(mileageText)) {
-            showError("Пробег", "должен быть от 0 до 999999 км");
-            return;
-        }
-
-        if (description != null && !description.isBlank() && description.length() > 500) {
-            showError("Описание", "не должно превышать 500 символов");
+        // ✅ ВАЛИДАЦИЯ (те же правила, что и при импорте из CSV)
+        String validationError = ValidationUtil.validateCar(name, model, priceText, brand, yearText, mileageText, description);
+        if (validationError != null) {
+            showValidationError(validationError);
             return;
         }
 
@@ -255,6 +219,7 @@ public class CarFormController {
                     }
 
                     LoggerUtil.action("Добавлен автомобиль: " + name + " " + model);
+                    StatisticsCache.invalidate(Section.CARS);
                 } else {
                     // РЕДАКТИРОВАНИЕ СУЩЕСТВУЮЩЕГО АВТО
                     carId = editingCar.getId();
@@ -271,6 +236,7 @@ public class CarFormController {
 
                     stmt.executeUpdate();
                     LoggerUtil.action("Обновлён автомобиль: " + name + " " + model);
+                    StatisticsCache.invalidate(Section.CARS);
                 }
 
                 // СОХРАНЕНИЕ ФОТО В ТАБЛИЦУ CarImages
@@ -322,9 +288,13 @@ public class CarFormController {
     }
 
     private void showError(String fieldName, String issue) {
+        showValidationError(ValidationUtil.formatValidationError(fieldName, issue));
+    }
+
+    private void showValidationError(String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle("Ошибка валидации");
-        alert.setHeaderText(ValidationUtil.formatValidationError(fieldName, issue));
+        alert.setHeaderText(message);
         alert.showAndWait();
     }
 
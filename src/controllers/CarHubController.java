@@ -5,27 +5,50 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
 import javafx.collections.transformation.SortedList;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.VBox;
 import javafx.geometry.Pos;
 import javafx.stage.FileChooser;
+import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Callback;
+import javafx.util.Duration;
+import catalog.CatalogPager;
+import catalog.CatalogQuery;
+import catalog.FacetIndex;
+import catalog.RangeIndex;
+import catalog.SearchIndex;
+import catalog.SearchPipeline;
 import models.Car;
-import views.CarCardView;
+import monitoring.CardsRebuildEvent;
+import monitoring.CatalogLoadEvent;
+import monitoring.FilterEvent;
+import views.CarGridView;
+import utils.AsyncLoader;
 import utils.SessionManager;
 import utils.ExportUtil;
 import utils.LoggerUtil;
 import utils.NotificationUtil;
+import services.CarImportService;
+import services.CarsService;
 import services.FavoritesService;
+import models.DashboardSnapshot.Section;
+import services.RatingAggregates;
+import services.StatisticsCache;
 
 import java.sql.*;
 import java.io.File;
-import java.util.Objects;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CarHubController {
 
@@ -49,7 +72,7 @@ public class CarHubController {
     @FXML
     private TextField searchField;
     @FXML
-    private FlowPane cardsContainer; // Для карточного представления
+    private CarGridView cardsContainer; // Для карточного представления
 
     // Новые поля для сворачиваемых фильтров
     @FXML
@@ -90,6 +113,30 @@ public class CarHubController {
     private Car selectedCar; // Выбранная карточка
     private static boolean isAdminMode = true; // По умолчанию админ режим
 
+    // Страница каталога: первая отрисовка не зависит от размера базы
+    private static final int CATALOG_PAGE_SIZE = 100;
+    // За сколько строк таблицы до конца загружать следующую страницу
+    private static final int NEAR_END_ROWS = 10;
+    // Пауза в наборе, после которой запускается поиск
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(200);
+    private final SearchIndex searchIndex = new SearchIndex();
+    private final RangeIndex rangeIndex = new RangeIndex();
+    private final FacetIndex facetIndex = new FacetIndex();
+    // Количество автомобилей по брендам/годам для текущих фильтров (подписи в ComboBox)
+    private Map<String, Integer> brandCounts = Map.of();
+    private Map<Integer, Integer> yearCounts = Map.of();
+    private AsyncLoader.Scope loadScope;
+    private SearchPipeline<BitSet> searchPipeline;
+
+    // Каталог по id, догружается при прокрутке к концу списка
+    private CatalogPager catalogPager;
+    // Пока каталог загружен не полностью, фильтры и сортировка выполняются в базе
+    private CatalogPager queryPager;
+    private final ObservableList<Car> queryResults = FXCollections.observableArrayList();
+    // Значения фильтров по всей базе (в загруженных страницах есть не все бренды и годы)
+    private List<String> catalogBrands = List.of();
+    private List<Integer> catalogYears = List.of();
+
     // Состояние сортировки: 0 = нет, 1 = по возрастанию, -1 = по убыванию
     private int priceSortState = 0;
     private int yearSortState = 0;
@@ -101,9 +148,12 @@ public class CarHubController {
 
     // Инициализация таблицы и фильтрации
     public void initialize() {
-        loadCarsFromDatabase();
+        // Индекс поиска следит за carsList сам (добавление, удаление, перезагрузка)
+        searchIndex.bindTo(carsList);
+        rangeIndex.bindTo(carsList);
+        facetIndex.bindTo(carsList);
 
-        // Инициализация фильтров
+        // Инициализация фильтров (списки брендов и годов заполнятся после загрузки каталога)
         initializeFilters();
 
         // Если есть таблица - инициализируем табличное представление
@@ -116,23 +166,42 @@ public class CarHubController {
             initializeCardView();
         }
 
+        // Поиск общий для таблицы и карточек: ввод не фильтрует список на каждое нажатие,
+        // совпадения ищутся в фоне, применяется только результат последнего запроса
+        if (searchField != null) {
+            searchPipeline = new SearchPipeline<>(SEARCH_DEBOUNCE, searchIndex::search, this::applyFilters);
+            searchField.textProperty().addListener((obs, oldV, newV) -> searchPipeline.submit(newV));
+        }
+
         // Обновляем счётчик
         updateCount();
+
+        // Каталог грузится в фоне по страницам, следующая — при прокрутке к концу
+        loadCarsFromDatabase(() -> {
+            updateFilterOptions();
+            applyFilters();
+        });
     }
 
     private void initializeFilters() {
-        // Инициализация FilteredList
-        filteredCars = new FilteredList<>(carsList, c -> true);
+        // Инициализация FilteredList (один на всё время жизни экрана: на него опирается таблица)
+        if (filteredCars == null) {
+            filteredCars = new FilteredList<>(carsList, c -> true);
+        } else {
+            filteredCars.setPredicate(c -> true);
+        }
+        updateFilterOptions();
+    }
+
+    private void updateFilterOptions() {
+        // Значения фасетов берутся из индекса, без отдельного прохода по carsList на каждый список;
+        // пока каталог загружен не полностью — из отдельного запроса к базе
+        List<String> allBrands = isCatalogComplete() ? facetIndex.brands() : catalogBrands;
 
         // Фильтр по брендам (НОВЫЙ)
         if (filterBrand != null) {
             ObservableList<String> brands = FXCollections.observableArrayList("Все бренды");
-            carsList.stream()
-                .map(Car::getBrand)
-                .filter(b -> b != null && !b.isBlank())
-                .distinct()
-                .sorted()
-                .forEach(brands::add);
+            brands.addAll(allBrands);
             filterBrand.setItems(brands);
             filterBrand.setValue("Все бренды");
         }
@@ -140,12 +209,7 @@ public class CarHubController {
         // Фильтр по брендам (СТАРЫЙ)
         if (brandFilter != null) {
             ObservableList<String> brands = FXCollections.observableArrayList("Все бренды");
-            carsList.stream()
-                .map(Car::getBrand)
-                .filter(b -> b != null && !b.isBlank())
-                .distinct()
-                .sorted()
-                .forEach(brands::add);
+            brands.addAll(allBrands);
             brandFilter.setItems(brands);
             brandFilter.setValue("Все бренды");
         }
@@ -154,17 +218,42 @@ public class CarHubController {
         if (minYearFilter != null && maxYearFilter != null) {
             ObservableList<Integer> years = FXCollections.observableArrayList();
             years.add(null); // "Любой"
-            carsList.stream()
-                .map(Car::getYear)
-                .filter(Objects::nonNull)
-                .distinct()
-                .sorted()
-                .forEach(years::add);
+            years.addAll(isCatalogComplete() ? facetIndex.years() : catalogYears);
             minYearFilter.setItems(years);
             maxYearFilter.setItems(years);
         }
     }
 
+    /**
+     * Подписи вида "Toyota (412)" в списках брендов и годов.
+     * Ячейки пересоздаются, чтобы показать новые счётчики.
+     */
+    private void showFacetCounts() {
+        if (filterBrand != null) installCountCells(filterBrand, brandCounts, null);
+        if (brandFilter != null) installCountCells(brandFilter, brandCounts, null);
+        if (minYearFilter != null) installCountCells(minYearFilter, yearCounts, "Любой");
+        if (maxYearFilter != null) installCountCells(maxYearFilter, yearCounts, "Любой");
+    }
+
+    private <T> void installCountCells(ComboBox<T> combo, Map<T, Integer> counts, String nullText) {
+        Callback<ListView<T>, ListCell<T>> factory = lv -> new ListCell<>() {
+            @Override
+            protected void updateItem(T item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty) {
+                    setText(null);
+                } else if (item == null) {
+                    setText(nullText);
+                } else {
+                    Integer count = counts.get(item);
+                    setText(count == null ? String.valueOf(item) : item + " (" + count + ")");
+                }
+            }
+        };
+        combo.setCellFactory(factory);
+        combo.setButtonCell(factory.call(null));
+    }
+
     private void initializeTableView() {
         // Колонка избранного с кнопкой
         if (colFavorite != null) {
@@ -221,22 +310,20 @@ public class CarHubController {
         if (colYear != null) colYear.setCellValueFactory(new PropertyValueFactory<>("year"));
         if (colMileage != null) colMileage.setCellValueFactory(new PropertyValueFactory<>("mileage"));
 
-        // Фильтрация
-        FilteredList<Car> filtered = new FilteredList<>(carsList, c -> true);
-        if (searchField != null) {
-            searchField.textProperty().addListener((obs, oldV, newV) -> {
-                String q = newV == null ? "" : newV.trim().toLowerCase();
-                filtered.setPredicate(car -> filterCar(car, q));
-            });
-        }
-        SortedList<Car> sorted = new SortedList<>(filtered);
-        sorted.comparatorProperty().bind(carTable.comparatorProperty());
-        carTable.setItems(sorted);
+        // Фильтрация (поиск применяет applyFilters)
+        showInTable(filteredCars);
 
         // Открытие деталей по двойному клику + контекстное меню
         carTable.setRowFactory(tv -> {
             TableRow<Car> row = new TableRow<>();
 
+            // Последние строки на экране — подгружаем следующую страницу
+            row.indexProperty().addListener((obs, oldIndex, newIndex) -> {
+                if (newIndex.intValue() >= carTable.getItems().size() - NEAR_END_ROWS) {
+                    loadNextPage();
+                }
+            });
+
             // Двойной клик - детали
             row.setOnMouseClicked(event -> {
                 if (event.getClickCount() == 2 && !row.isEmpty()) {
@@ -257,63 +344,31 @@ public class CarHubController {
     }
 
     private void initializeCardView() {
-        if (searchField != null) {
-            searchField.textProperty().addListener((obs, oldV, newV) -> {
-                applyFilters();
-            });
-        }
+        // Клик выделяет карточку, двойной клик открывает детали
+        cardsContainer.setOnSelect(car -> selectedCar = car);
+        cardsContainer.setOnOpen(this::openDetails);
+        cardsContainer.setContextMenuFactory(this::createCarContextMenu);
+        cardsContainer.setOnNearEnd(this::loadNextPage);
 
         updateCardsView(filteredCars);
     }
 
-    private boolean filterCar(Car car, String query) {
-        if (query.isEmpty()) return true;
-        String brand = car.getBrand() == null ? "" : car.getBrand().toLowerCase();
-        return car.getName().toLowerCase().contains(query)
-                || car.getModel().toLowerCase().contains(query)
-                || brand.contains(query)
-                || String.valueOf(car.getPrice()).contains(query);
-    }
-
     private void updateCardsView(FilteredList<Car> filteredCars) {
-        cardsContainer.getChildren().clear();
-        for (Car car : filteredCars) {
-            CarCardView card = new CarCardView(car);
-
-            // Клик и выделение
-            card.setOnMouseClicked(e -> {
-                if (e.getClickCount() == 1) {
-                    selectedCar = car;
-                    // Подсветка выбранной карточки
-                    cardsContainer.getChildren().forEach(node -> {
-                        if (node instanceof CarCardView) {
-                            CarCardView c = (CarCardView) node;
-                            if (c.getCar().getId() == selectedCar.getId()) {
-                                c.setStyle("-fx-background-color: #E3F2FD; " +
-                                        "-fx-background-radius: 10; " +
-                                        "-fx-effect: dropshadow(gaussian, rgba(33,150,243,0.5), 15, 0, 0, 4); " +
-                                        "-fx-cursor: hand;");
-                            }
-                        }
-                    });
-                } else if (e.getClickCount() == 2) {
-                    openDetails(car);
-                }
-            });
-
-            // Контекстное меню по правой кнопке
-            card.setOnContextMenuRequested(event -> {
-                ContextMenu contextMenu = createCarContextMenu(car, card);
-                contextMenu.show(card, event.getScreenX(), event.getScreenY());
-            });
-
-            cardsContainer.getChildren().add(card);
-        }
+        updateCardsViewFromList(filteredCars);
     }
 
     // Применение всех фильтров (УНИВЕРСАЛЬНЫЙ МЕТОД)
     @FXML
     protected void applyFilters() {
+        applyFilters(null);
+    }
+
+    /**
+     * @param searchResult готовый результат поиска из SearchPipeline (null — искать по текущему тексту)
+     */
+    private void applyFilters(BitSet searchResult) {
+        FilterEvent event = new FilterEvent();
+        event.begin();
         try {
             // Парсим значения новых фильтров
             String selectedBrand = (filterBrand != null && filterBrand.getValue() != null)
@@ -371,88 +426,80 @@ public class CarHubController {
             final Double minPrice = priceFrom;
             final Double maxPrice = priceTo;
 
-            // Применяем фильтры
-            filteredCars.setPredicate(car -> {
-                // Поиск
-                String query = searchField != null ? searchField.getText() : "";
-                if (!query.isBlank()) {
-                    String q = query.trim().toLowerCase();
-                    String carBrand = car.getBrand() == null ? "" : car.getBrand().toLowerCase();
-                    boolean matchesSearch = car.getName().toLowerCase().contains(q)
-                            || car.getModel().toLowerCase().contains(q)
-                            || carBrand.contains(q)
-                            || String.valueOf(car.getPrice()).contains(q);
-                    if (!matchesSearch) return false;
+            // Каталог в памяти неполный — фильтруем и сортируем в базе
+            if (!isCatalogComplete()) {
+                CatalogQuery query = buildCatalogQuery(brand, minYear, maxYear, minPrice, maxPrice);
+                if (!query.isEmpty()) {
+                    event.database = true;
+                    runCatalogQuery(query);
+                    return;
                 }
-
-                // Фильтр по бренду (новый)
-                if (brand != null && !"Все бренды".equals(brand)) {
-                    if (car.getBrand() == null || !car.getBrand().equalsIgnoreCase(brand)) {
-                        return false;
-                    }
+                if (queryPager != null) {
+                    queryPager = null;
+                    showInTable(filteredCars);
                 }
+            }
 
-                // Фильтр по бренду (старый)
-                if (brandFilter != null && brandFilter.getValue() != null) {
-                    String selectedBrandOld = brandFilter.getValue();
-                    if (!"Все бренды".equals(selectedBrandOld)) {
-                        if (car.getBrand() == null || !car.getBrand().equals(selectedBrandOld)) {
-                            return false;
-                        }
-                    }
-                }
+            // Поиск и диапазоны считаются по индексам один раз на весь список:
+            // результат — BitSet id подходящих автомобилей
+            final BitSet base = searchResult != null
+                    ? (BitSet) searchResult.clone()
+                    : searchIndex.search(searchField != null ? searchField.getText() : "");
 
-                // Фильтр по году (новый)
-                if (minYear != null && car.getYear() != null) {
-                    if (car.getYear() < minYear) return false;
-                }
-                if (maxYear != null && car.getYear() != null) {
-                    if (car.getYear() > maxYear) return false;
-                }
+            // Фильтр по цене (новый)
+            if (minPrice != null || maxPrice != null) {
+                base.and(rangeIndex.range(RangeIndex.Field.PRICE, minPrice, maxPrice, false));
+            }
 
-                // Фильтр по году (старый)
-                if (minYearFilter != null && minYearFilter.getValue() != null) {
-                    Integer minYearOld = minYearFilter.getValue();
-                    if (car.getYear() == null || car.getYear() < minYearOld) return false;
-                }
-                if (maxYearFilter != null && maxYearFilter.getValue() != null) {
-                    Integer maxYearOld = maxYearFilter.getValue();
-                    if (car.getYear() == null || car.getYear() > maxYearOld) return false;
-                }
+            // Фильтр по цене (старый): неверный формат игнорируется
+            Double minPriceOld = parseOptionalPrice(minPriceField);
+            Double maxPriceOld = parseOptionalPrice(maxPriceField);
+            if (minPriceOld != null || maxPriceOld != null) {
+                base.and(rangeIndex.range(RangeIndex.Field.PRICE, minPriceOld, maxPriceOld, false));
+            }
 
-                // Фильтр по цене (новый)
-                if (minPrice != null) {
-                    if (car.getPrice() < minPrice) return false;
-                }
-                if (maxPrice != null) {
-                    if (car.getPrice() > maxPrice) return false;
-                }
+            // Фильтры по году и бренду держим отдельно: счётчики фасета не учитывают его собственный фильтр
+            BitSet yearMask = null;
 
-                // Фильтр по цене (старый)
-                if (minPriceField != null && !minPriceField.getText().isBlank()) {
-                    try {
-                        double minPriceOld = Double.parseDouble(minPriceField.getText());
-                        if (car.getPrice() < minPriceOld) return false;
-                    } catch (NumberFormatException ignored) {}
-                }
-                if (maxPriceField != null && !maxPriceField.getText().isBlank()) {
-                    try {
-                        double maxPriceOld = Double.parseDouble(maxPriceField.getText());
-                        if (car.getPrice() > maxPriceOld) return false;
-                    } catch (NumberFormatException ignored) {}
-                }
+            // Фильтр по году (новый): автомобили без года не отсекаются
+            if (minYear != null || maxYear != null) {
+                yearMask = rangeIndex.range(RangeIndex.Field.YEAR, toDouble(minYear), toDouble(maxYear), true);
+            }
 
-                return true;
-            });
+            // Фильтр по году (старый): автомобили без года отсекаются
+            Integer minYearOld = minYearFilter != null ? minYearFilter.getValue() : null;
+            Integer maxYearOld = maxYearFilter != null ? maxYearFilter.getValue() : null;
+            if (minYearOld != null || maxYearOld != null) {
+                yearMask = intersect(yearMask,
+                        rangeIndex.range(RangeIndex.Field.YEAR, toDouble(minYearOld), toDouble(maxYearOld), false));
+            }
+
+            BitSet brandMask = null;
 
-            // Применяем сортировку
-            applySorting();
+            // Фильтр по бренду (новый)
+            if (brand != null && !"Все бренды".equals(brand)) {
+                brandMask = facetIndex.brandIds(brand, true);
+            }
 
-            // Обновляем представление
-            if (cardsContainer != null) {
-                updateCardsView(filteredCars);
+            // Фильтр по бренду (старый)
+            if (brandFilter != null && brandFilter.getValue() != null && !"Все бренды".equals(brandFilter.getValue())) {
+                brandMask = intersect(brandMask, facetIndex.brandIds(brandFilter.getValue(), false));
             }
 
+            final BitSet matching = intersect(intersect((BitSet) base.clone(), yearMask), brandMask);
+
+            // Применяем фильтры
+            filteredCars.setPredicate(car -> matching.get(car.getId()));
+            event.matched = filteredCars.size();
+
+            // Счётчики: по брендам — с учётом всех фильтров, кроме бренда; по годам — кроме года
+            brandCounts = facetIndex.brandCounts(intersect((BitSet) base.clone(), yearMask));
+            yearCounts = facetIndex.yearCounts(intersect((BitSet) base.clone(), brandMask));
+            showFacetCounts();
+
+            // Применяем сортировку (она же обновляет карточки)
+            showSorted();
+
             // Обновляем счётчик
             updateFilterResults();
             updateCount();
@@ -465,6 +512,12 @@ public class CarHubController {
         } catch (Exception e) {
             LoggerUtil.error("Ошибка применения фильтров", e);
             NotificationUtil.showError("Ошибка применения фильтров");
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.search = searchField != null ? searchField.getText() : null;
+                event.commit();
+            }
         }
     }
 
@@ -519,22 +572,29 @@ public class CarHubController {
     }
 
     private void applySorting() {
-        ObservableList<Car> sortedList = FXCollections.observableArrayList(filteredCars);
+        // Неполный каталог сортируется в базе вместе с фильтрами
+        if (!isCatalogComplete()) {
+            applyFilters();
+        } else {
+            showSorted();
+        }
+    }
+
+    private void showSorted() {
+        ObservableList<Car> sortedList;
 
+        // Порядок берётся из отсортированного индекса — без копирования и сортировки компаратором
         if (priceSortState != 0) {
-            sortedList.sort((c1, c2) -> priceSortState * Double.compare(c1.getPrice(), c2.getPrice()));
+            sortedList = FXCollections.observableArrayList(
+                    rangeIndex.sorted(RangeIndex.Field.PRICE, priceSortState > 0, filteredIds()));
         } else if (yearSortState != 0) {
-            sortedList.sort((c1, c2) -> {
-                Integer y1 = c1.getYear() != null ? c1.getYear() : 0;
-                Integer y2 = c2.getYear() != null ? c2.getYear() : 0;
-                return yearSortState * y1.compareTo(y2);
-            });
+            sortedList = FXCollections.observableArrayList(
+                    rangeIndex.sorted(RangeIndex.Field.YEAR, yearSortState > 0, filteredIds()));
         } else if (mileageSortState != 0) {
-            sortedList.sort((c1, c2) -> {
-                Integer m1 = c1.getMileage() != null ? c1.getMileage() : 0;
-                Integer m2 = c2.getMileage() != null ? c2.getMileage() : 0;
-                return mileageSortState * m1.compareTo(m2);
-            });
+            sortedList = FXCollections.observableArrayList(
+                    rangeIndex.sorted(RangeIndex.Field.MILEAGE, mileageSortState > 0, filteredIds()));
+        } else {
+            sortedList = filteredCars;
         }
 
         if (cardsContainer != null) {
@@ -542,6 +602,33 @@ public class CarHubController {
         }
     }
 
+    private static BitSet intersect(BitSet target, BitSet mask) {
+        if (target == null) return mask == null ? null : (BitSet) mask.clone();
+        if (mask != null) target.and(mask);
+        return target;
+    }
+
+    private BitSet filteredIds() {
+        BitSet ids = new BitSet();
+        for (Car car : filteredCars) {
+            ids.set(car.getId());
+        }
+        return ids;
+    }
+
+    private static Double toDouble(Integer value) {
+        return value == null ? null : value.doubleValue();
+    }
+
+    private static Double parseOptionalPrice(TextField field) {
+        if (field == null || field.getText().isBlank()) return null;
+        try {
+            return Double.parseDouble(field.getText());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     @FXML
     protected void clearFilters() {
         if (filterBrand != null) filterBrand.setValue(null);
@@ -575,11 +662,8 @@ public class CarHubController {
                 filterPriceTo.clear();
             }
 
-            // Сбрасываем фильтр
-            filteredCars.setPredicate(car -> true);
-
-            // Обновляем счётчик
-            updateFilterResults();
+            // Пересчитываем результат, счётчики фасетов и карточки
+            applyFilters();
 
             NotificationUtil.showInfo("Фильтры сброшены");
             LoggerUtil.action("Фильтры сброшены");
@@ -590,51 +674,54 @@ public class CarHubController {
     }
 
     private void updateFilterResults() {
-        int count = filteredCars.size();
         if (filterResultsLabel != null) {
-            filterResultsLabel.setText("Найдено автомобилей: " + count);
+            filterResultsLabel.setText("Найдено автомобилей: " + displayedCount());
         }
         updateCount();
     }
 
     private void updateCount() {
         if (countLabel != null) {
-            countLabel.setText("Всего: " + filteredCars.size());
+            countLabel.setText("Всего: " + displayedCount());
         }
     }
 
-    private void updateCardsViewFromList(ObservableList<Car> cars) {
-        cardsContainer.getChildren().clear();
-        for (Car car : cars) {
-            CarCardView card = new CarCardView(car);
-
-            // Клик и выделение
-            card.setOnMouseClicked(e -> {
-                if (e.getClickCount() == 1) {
-                    selectedCar = car;
-                    cardsContainer.getChildren().forEach(node -> {
-                        if (node instanceof CarCardView) {
-                            CarCardView c = (CarCardView) node;
-                            if (c.getCar().getId() == selectedCar.getId()) {
-                                c.setStyle("-fx-background-color: #E3F2FD; " +
-                                        "-fx-background-radius: 10; " +
-                                        "-fx-effect: dropshadow(gaussian, rgba(33,150,243,0.5), 15, 0, 0, 4); " +
-                                        "-fx-cursor: hand;");
-                            }
-                        }
-                    });
-                } else if (e.getClickCount() == 2) {
-                    openDetails(car);
-                }
-            });
+    /**
+     * Количество показанных автомобилей; "+" — загружены ещё не все страницы
+     */
+    private String displayedCount() {
+        CatalogPager pager = queryPager != null ? queryPager : catalogPager;
+        boolean more = pager != null && !pager.isExhausted();
+        return displayedCars().size() + (more ? "+" : "");
+    }
 
-            // Контекстное меню по правой кнопке
-            card.setOnContextMenuRequested(event -> {
-                ContextMenu contextMenu = createCarContextMenu(car, card);
-                contextMenu.show(card, event.getScreenX(), event.getScreenY());
-            });
+    /**
+     * Все страницы каталога загружены — фильтры и сортировка работают по индексам в памяти
+     */
+    private boolean isCatalogComplete() {
+        return catalogPager != null && catalogPager.isExhausted();
+    }
+
+    private List<Car> displayedCars() {
+        return queryPager != null ? queryResults : filteredCars;
+    }
+
+    private void showInTable(ObservableList<Car> cars) {
+        if (carTable == null) return;
+        SortedList<Car> sorted = new SortedList<>(cars);
+        sorted.comparatorProperty().bind(carTable.comparatorProperty());
+        carTable.setItems(sorted);
+    }
 
-            cardsContainer.getChildren().add(card);
+    private void updateCardsViewFromList(ObservableList<Car> cars) {
+        CardsRebuildEvent event = new CardsRebuildEvent();
+        event.begin();
+        // Сетка виртуализирована: узлы карточек переиспользуются, агрегаты подгружаются для видимых строк
+        cardsContainer.setCars(cars);
+        event.end();
+        if (event.shouldCommit()) {
+            event.cars = cars.size();
+            event.commit();
         }
     }
 
@@ -810,81 +897,174 @@ public class CarHubController {
         }
     }
 
-    // Загрузка всех авто из базы
-    private void loadCarsFromDatabase() {
+    // Загрузка каталога из базы: первая страница сразу, остальные — по мере прокрутки
+    private void loadCarsFromDatabase(Runnable onLoaded) {
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+
+        // Предыдущая загрузка больше не нужна
+        if (loadScope != null) {
+            loadScope.close();
+        }
+        loadScope = AsyncLoader.scopeFor(carTable != null ? carTable : cardsContainer);
+
         carsList.clear();
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            if (conn == null) {
-                new Alert(Alert.AlertType.ERROR, "Нет подключения к базе данных").show();
-                return;
+        queryResults.clear();
+        if (queryPager != null) {
+            queryPager = null;
+            showInTable(filteredCars);
+        }
+        CatalogPager pager = new CatalogPager(CatalogQuery.ALL, CATALOG_PAGE_SIZE);
+        catalogPager = pager;
+
+        CompletableFuture<List<String>> brands = loadScope.load(CarsService::getBrands);
+        CompletableFuture<List<Integer>> years = loadScope.load(CarsService::getYears);
+        // Агрегаты отзывов читаются параллельно с первой страницей — карточки не ждут их загрузки
+        loadScope.load(() -> {
+            RatingAggregates.preload();
+            return null;
+        });
+        CompletableFuture<List<Car>> firstPage = loadPage(pager).thenApply(page -> {
+            showCatalogPage(pager, page);
+            return page;
+        });
+
+        CompletableFuture.allOf(brands, years, firstPage).whenComplete((ignored, error) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.success = error == null;
+                event.cars = error == null ? firstPage.join().size() : 0;
+                event.commit();
             }
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT * FROM Cars");
-            ResultSetMetaData meta = rs.getMetaData();
-            boolean hasBrand = false, hasYear = false, hasMileage = false, hasDesc = false, hasImage = false;
-            for (int i = 1; i <= meta.getColumnCount(); i++) {
-                String col = meta.getColumnLabel(i);
-                if (col.equalsIgnoreCase("brand")) hasBrand = true;
-                if (col.equalsIgnoreCase("year")) hasYear = true;
-                if (col.equalsIgnoreCase("mileage")) hasMileage = true;
-                if (col.equalsIgnoreCase("description")) hasDesc = true;
-                if (col.equalsIgnoreCase("imageUrl") || col.equalsIgnoreCase("image_url")) hasImage = true;
+            if (error == null) {
+                catalogBrands = brands.join();
+                catalogYears = years.join();
+                if (onLoaded != null) onLoaded.run();
+            } else if (!AsyncLoader.isCancelled(error)) {
+                new Alert(Alert.AlertType.ERROR, "Нет подключения к базе данных").show();
             }
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String name = rs.getString("name");
-                String model = rs.getString("model");
-                double price = rs.getDouble("price");
-                if (hasBrand || hasYear || hasMileage || hasDesc || hasImage) {
-                    String brand = hasBrand ? rs.getString("brand") : null;
-                    Integer year = hasYear ? (Integer) rs.getObject("year") : null;
-                    Integer mileage = hasMileage ? (Integer) rs.getObject("mileage") : null;
-                    String description = hasDesc ? rs.getString("description") : null;
-                    String imageUrl = null;
-                    if (hasImage) {
-                        if (hasColumn(meta, "imageUrl")) imageUrl = rs.getString("imageUrl");
-                        else if (hasColumn(meta, "image_url")) imageUrl = rs.getString("image_url");
-                    }
-
-                    // ✅ ЗАГРУЖАЕМ ГЛАВНОЕ ФОТО ИЗ ТАБЛИЦЫ CarImages
-                    String mainImageUrl = getMainImageUrl(conn, id);
-                    if (mainImageUrl != null && !mainImageUrl.isEmpty()) {
-                        imageUrl = mainImageUrl;
-                    }
+        });
+    }
 
-                    carsList.add(new Car(id, name, model, price, brand, year, mileage, description, imageUrl));
-                } else {
-                    carsList.add(new Car(id, name, model, price));
-                }
+    /**
+     * Следующая страница каталога или результата запроса (вызывается при прокрутке к концу)
+     */
+    private void loadNextPage() {
+        CatalogPager pager = queryPager != null ? queryPager : catalogPager;
+        if (pager == null || pager.isExhausted() || pager.isLoading()) return;
+
+        loadPage(pager).thenAccept(page -> {
+            if (pager == catalogPager) {
+                showCatalogPage(pager, page);
+            } else if (pager == queryPager) {
+                queryResults.addAll(page);
+                showQueryResults();
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        });
     }
 
     /**
-     * Получает URL главной фотографии автомобиля из таблицы CarImages
+     * Фильтры и сортировка в базе: результат показывается вместо каталога и тоже догружается по страницам
      */
-    private String getMainImageUrl(Connection conn, int carId) {
-        try {
-            String sql = "SELECT image_url FROM CarImages WHERE car_id = ? AND is_main = 1";
-            PreparedStatement ps = conn.prepareStatement(sql);
-            ps.setInt(1, carId);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return rs.getString("image_url");
+    private void runCatalogQuery(CatalogQuery query) {
+        if (queryPager == null) {
+            showInTable(queryResults);
+        }
+        CatalogPager pager = new CatalogPager(query, CATALOG_PAGE_SIZE);
+        queryPager = pager;
+
+        // Счётчики фасетов по неполному каталогу были бы неверными — показываем только значения
+        brandCounts = Map.of();
+        yearCounts = Map.of();
+        showFacetCounts();
+
+        loadPage(pager).thenAccept(page -> {
+            if (pager != queryPager) return;
+            queryResults.setAll(page);
+            showQueryResults();
+        });
+    }
+
+    private CompletableFuture<List<Car>> loadPage(CatalogPager pager) {
+        return pager.loadNextPage(loadScope::load).whenComplete((page, error) -> {
+            if (error != null && !AsyncLoader.isCancelled(error)) {
+                LoggerUtil.error("Ошибка загрузки страницы каталога", AsyncLoader.cause(error));
             }
-        } catch (SQLException e) {
-            // Если таблицы CarImages нет - пропускаем
+        });
+    }
+
+    private void showCatalogPage(CatalogPager pager, List<Car> page) {
+        if (pager != catalogPager) return;
+        carsList.addAll(page);
+        if (pager.isExhausted()) {
+            LoggerUtil.info("Каталог загружен полностью: " + carsList.size() + " авто");
+        }
+        // Пока открыт результат запроса, новая страница каталога его не меняет
+        if (queryPager == null) {
+            applyFilters();
+        }
+    }
+
+    private void showQueryResults() {
+        if (cardsContainer != null) {
+            cardsContainer.setCars(queryResults);
         }
-        return null;
+        updateFilterResults();
     }
 
-    private boolean hasColumn(ResultSetMetaData meta, String column) throws SQLException {
-        for (int i = 1; i <= meta.getColumnCount(); i++) {
-            if (meta.getColumnLabel(i).equalsIgnoreCase(column)) return true;
+    private CatalogQuery buildCatalogQuery(String brand, Integer minYear, Integer maxYear, Double minPrice, Double maxPrice) {
+        // Старые и новые поля фильтров объединяются так же, как в applyFilters (пересечение)
+        Double minPriceOld = parseOptionalPrice(minPriceField);
+        Double maxPriceOld = parseOptionalPrice(maxPriceField);
+        Integer minYearOld = minYearFilter != null ? minYearFilter.getValue() : null;
+        Integer maxYearOld = maxYearFilter != null ? maxYearFilter.getValue() : null;
+
+        String brandValue = brand != null && !"Все бренды".equals(brand) ? brand : null;
+        if (brandValue == null && brandFilter != null && brandFilter.getValue() != null
+                && !"Все бренды".equals(brandFilter.getValue())) {
+            brandValue = brandFilter.getValue();
+        }
+
+        RangeIndex.Field sortField = null;
+        boolean ascending = true;
+        if (priceSortState != 0) {
+            sortField = RangeIndex.Field.PRICE;
+            ascending = priceSortState > 0;
+        } else if (yearSortState != 0) {
+            sortField = RangeIndex.Field.YEAR;
+            ascending = yearSortState > 0;
+        } else if (mileageSortState != 0) {
+            sortField = RangeIndex.Field.MILEAGE;
+            ascending = mileageSortState > 0;
         }
-        return false;
+
+        return new CatalogQuery(
+                searchField != null ? searchField.getText() : null,
+                brandValue,
+                larger(minPrice, minPriceOld), smaller(maxPrice, maxPriceOld),
+                larger(minYear, minYearOld), smaller(maxYear, maxYearOld),
+                // Старый фильтр по году отсекает автомобили без года, новый — нет
+                minYearOld == null && maxYearOld == null,
+                sortField, ascending);
+    }
+
+    private static <T extends Comparable<T>> T larger(T a, T b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+
+    private static <T extends Comparable<T>> T smaller(T a, T b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private void reloadCatalog() {
+        loadCarsFromDatabase(() -> {
+            initializeFilters();
+            applyFilters();
+        });
     }
 
     // Добавить авто (отдельное окно)
@@ -895,9 +1075,7 @@ public class CarHubController {
             Parent root = loader.load();
             CarFormController controller = loader.getController();
             controller.setOnSaveCallback(() -> {
-                loadCarsFromDatabase();
-                initializeFilters();
-                applyFilters();
+                reloadCatalog();
             });
 
             Stage stage = new Stage();
@@ -942,7 +1120,7 @@ public class CarHubController {
             Parent root = loader.load();
             CarFormController controller = loader.getController();
             controller.setCar(selected);
-            controller.setOnSaveCallback(this::loadCarsFromDatabase);
+            controller.setOnSaveCallback(() -> loadCarsFromDatabase(null));
 
             Stage stage = new Stage();
             stage.setTitle("Редактировать автомобиль");
@@ -1024,6 +1202,8 @@ public class CarHubController {
             int rows = stmt.executeUpdate();
 
             if (rows > 0) {
+                // Вместе с авто ушли его избранное, отзывы и заявки
+                StatisticsCache.invalidateAll();
                 Alert success = new Alert(Alert.AlertType.INFORMATION);
                 success.setTitle("Успешно");
                 success.setHeaderText(null);
@@ -1031,9 +1211,7 @@ public class CarHubController {
                 success.showAndWait();
             }
 
-            loadCarsFromDatabase();
-            initializeFilters();
-            applyFilters();
+            reloadCatalog();
         } catch (Exception e) {
             Alert error = new Alert(Alert.AlertType.ERROR);
             error.setTitle("Ошибка");
@@ -1047,7 +1225,8 @@ public class CarHubController {
     // ✅ ЭКСПОРТ ДАННЫХ В CSV
     @FXML
     protected void exportToCSV() {
-        if (filteredCars.isEmpty()) {
+        List<Car> cars = displayedCars();
+        if (cars.isEmpty()) {
             new Alert(Alert.AlertType.WARNING, "Нет данных для экспорта!").show();
             return;
         }
@@ -1067,7 +1246,7 @@ public class CarHubController {
 
         if (file != null) {
             try {
-                ExportUtil.exportCarsToCSV(filteredCars, file);
+                ExportUtil.exportCarsToCSV(cars, file);
 
                 Alert success = new Alert(Alert.AlertType.INFORMATION);
                 success.setTitle("Экспорт завершён");
@@ -1075,7 +1254,7 @@ public class CarHubController {
                 success.setContentText(String.format(
                     "Файл: %s\nЭкспортировано записей: %d",
                     file.getName(),
-                    filteredCars.size()
+                    cars.size()
                 ));
                 success.showAndWait();
             } catch (Exception e) {
@@ -1089,6 +1268,89 @@ public class CarHubController {
         }
     }
 
+    // ✅ ИМПОРТ АВТОМОБИЛЕЙ ИЗ CSV (файл в формате экспорта)
+    @FXML
+    protected void importFromCSV() {
+        javafx.scene.Node anchor = carTable != null ? carTable : cardsContainer != null ? cardsContainer : searchField;
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Импорт автомобилей из CSV");
+        fileChooser.getExtensionFilters().add(
+            new FileChooser.ExtensionFilter("CSV файл", "*.csv", "*.txt")
+        );
+        File file = fileChooser.showOpenDialog(anchor.getScene().getWindow());
+        if (file == null) return;
+
+        // Окно хода импорта: прогресс по прочитанным байтам и счётчики строк
+        AtomicBoolean cancelled = new AtomicBoolean();
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setPrefWidth(360);
+        Label statusLabel = new Label("Чтение файла " + file.getName() + "...");
+        Button cancelButton = new Button("Отмена");
+        cancelButton.setOnAction(e -> {
+            cancelled.set(true);
+            cancelButton.setDisable(true);
+            statusLabel.setText("⏳ Остановка после текущей порции...");
+        });
+        VBox box = new VBox(12, statusLabel, progressBar, cancelButton);
+        box.setAlignment(Pos.CENTER);
+        box.setStyle("-fx-padding: 20;");
+
+        Stage progressStage = new Stage();
+        progressStage.initOwner(anchor.getScene().getWindow());
+        progressStage.initModality(Modality.WINDOW_MODAL);
+        progressStage.setTitle("📥 Импорт CSV");
+        progressStage.setScene(new Scene(box));
+        progressStage.setOnCloseRequest(e -> {
+            // Окно закроется само, когда текущая порция будет записана
+            e.consume();
+            cancelButton.fire();
+        });
+        progressStage.show();
+
+        // Закрытие экрана каталога тоже останавливает импорт
+        AsyncLoader.Scope importScope = AsyncLoader.scopeFor(anchor);
+        importScope.load(() -> CarImportService.importCars(file,
+            progress -> Platform.runLater(() -> {
+                progressBar.setProgress(progress.fraction());
+                if (!cancelled.get()) {
+                    statusLabel.setText(String.format("Строк: %d  •  добавлено: %d  •  отклонено: %d",
+                        progress.rows(), progress.imported(), progress.rejected()));
+                }
+            }),
+            () -> cancelled.get() || importScope.isClosed()
+        )).whenComplete((result, error) -> {
+            progressStage.hide();
+            if (error != null) {
+                if (AsyncLoader.isCancelled(error)) return;
+                LoggerUtil.error("Ошибка импорта CSV", AsyncLoader.cause(error));
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Ошибка импорта");
+                alert.setHeaderText("Не удалось импортировать данные");
+                alert.setContentText("Причина: " + AsyncLoader.cause(error).getMessage());
+                alert.showAndWait();
+                reloadCatalog();
+                return;
+            }
+
+            Alert summary = new Alert(result.rejected() > 0 ? Alert.AlertType.WARNING : Alert.AlertType.INFORMATION);
+            summary.setTitle("Импорт завершён");
+            summary.setHeaderText(result.cancelled() ? "⏹ Импорт остановлен" : "✅ Импорт завершён");
+            summary.setContentText(String.format(
+                "Файл: %s\nСтрок: %d\nДобавлено: %d\nОтклонено: %d%s",
+                file.getName(),
+                result.rows(),
+                result.imported(),
+                result.rejected(),
+                result.rejectedFile() != null ? "\n\nОтклонённые строки: " + result.rejectedFile().getName() : ""
+            ));
+            summary.showAndWait();
+            if (result.imported() > 0) {
+                reloadCatalog();
+            }
+        });
+    }
+
     // Выход в экран логина
     @FXML
     protected void logout() {
@@ -1140,7 +1402,7 @@ public class CarHubController {
                 toggleFavoriteFromContext(car);
                 // Обновляем представление
                 if (cardsContainer != null) {
-                    updateCardsView(filteredCars);
+                    cardsContainer.invalidateStats(car.getId());
                 }
                 if (carTable != null) {
                     carTable.refresh();
@@ -1247,9 +1509,7 @@ public class CarHubController {
             CarFormController controller = loader.getController();
             controller.setCar(car);
             controller.setOnSaveCallback(() -> {
-                loadCarsFromDatabase();
-                initializeFilters();
-                applyFilters();
+                reloadCatalog();
             });
 
             Stage stage = new Stage();
@@ -1284,10 +1544,9 @@ public class CarHubController {
 
                     NotificationUtil.showSuccess("Автомобиль удалён");
                     LoggerUtil.action("Удалён автомобиль: " + car.getName());
+                    StatisticsCache.invalidateAll();
 
-                    loadCarsFromDatabase();
-                    initializeFilters();
-                    applyFilters();
+                    reloadCatalog();
                 } catch (SQLException e) {
                     LoggerUtil.error("Ошибка удаления автомобиля", e);
                     NotificationUtil.showError("Не удалось удалить автомобиль: " + e.getMessage());
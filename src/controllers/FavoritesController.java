@@ -9,11 +9,15 @@ import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import models.Car;
+import models.CardStats;
+import services.CardStatsService;
 import services.FavoritesService;
 import utils.SessionManager;
 import views.CarCardView;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class FavoritesController {
 
@@ -45,8 +49,11 @@ public class FavoritesController {
             emptyLabel.setVisible(false);
             emptyLabel.setManaged(false);
 
+            Map<Integer, CardStats> stats = CardStatsService.loadFor(
+                favorites.stream().map(Car::getId).collect(Collectors.toList()), userId);
+
             for (Car car : favorites) {
-                CarCardView card = new CarCardView(car);
+                CarCardView card = new CarCardView(car, stats.get(car.getId()));
 
                 // Callback для обновления при удалении из избранного
                 card.setOnFavoriteChanged(this::loadFavorites);
@@ -8,6 +8,7 @@ import javafx.stage.Stage;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import services.FavoritesService;
 import utils.PasswordUtil;
 import utils.SessionManager;
 import utils.LoggerUtil;
@@ -84,6 +85,7 @@ public class LoginController {
             String role = rs.getString("role");
 
             SessionManager.login(userId, username, role);
+            FavoritesService.loadSession(userId);
             LoggerUtil.logLogin(username, role);
 
             // Показываем успешное уведомление
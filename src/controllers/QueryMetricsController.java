@@ -0,0 +1,118 @@
+package controllers;
+
+import database.DatabaseConnection;
+import database.QueryMetrics;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.value.ObservableValue;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.Tooltip;
+import javafx.stage.Stage;
+import javafx.util.Callback;
+import utils.LatencyHistogram;
+import utils.LoggerUtil;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Окно администратора с метриками запросов: время по шаблонам SQL, строки, ошибки
+ * и время получения соединения из пула
+ */
+public class QueryMetricsController {
+
+    @FXML private Label acquireLabel;
+    @FXML private Label poolLabel;
+    @FXML private Label totalLabel;
+    @FXML private TableView<QueryMetrics.Stats> queriesTable;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colSql;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colCount;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colTotal;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colMean;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colP50;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colP95;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colP99;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colMax;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colRows;
+    @FXML private TableColumn<QueryMetrics.Stats, String> colErrors;
+
+    public void initialize() {
+        colSql.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getTemplate()));
+        colCount.setCellValueFactory(data -> new SimpleStringProperty(String.valueOf(data.getValue().getLatency().getCount())));
+        colTotal.setCellValueFactory(latency(h -> String.format("%,.0f", h.getTotalMillis())));
+        colMean.setCellValueFactory(latency(h -> millis(h.getMeanMillis())));
+        colP50.setCellValueFactory(latency(h -> millis(h.getPercentileMillis(50))));
+        colP95.setCellValueFactory(latency(h -> millis(h.getPercentileMillis(95))));
+        colP99.setCellValueFactory(latency(h -> millis(h.getPercentileMillis(99))));
+        colMax.setCellValueFactory(latency(h -> millis(h.getMaxMillis())));
+        colRows.setCellValueFactory(data -> new SimpleStringProperty(String.format("%,d", data.getValue().getRows())));
+        colErrors.setCellValueFactory(data -> new SimpleStringProperty(String.valueOf(data.getValue().getErrors())));
+
+        // Полный текст запроса и последняя ошибка — во всплывающей подсказке
+        queriesTable.setRowFactory(table -> new TableRow<>() {
+            @Override
+            protected void updateItem(QueryMetrics.Stats item, boolean empty) {
+                super.updateItem(item, empty);
+                if (empty || item == null) {
+                    setTooltip(null);
+                    setStyle("");
+                    return;
+                }
+                String text = item.getTemplate();
+                if (item.getLastError() != null) {
+                    text += "\n\n❌ " + item.getLastError();
+                }
+                setTooltip(new Tooltip(text));
+                setStyle(item.getErrors() > 0 ? "-fx-background-color: #FFEBEE;" : "");
+            }
+        });
+
+        refresh();
+    }
+
+    @FXML
+    protected void refresh() {
+        List<QueryMetrics.Stats> stats = QueryMetrics.snapshot();
+        queriesTable.setItems(FXCollections.observableArrayList(stats));
+        queriesTable.refresh();
+        totalLabel.setText("Шаблонов запросов: " + stats.size());
+
+        LatencyHistogram acquire = QueryMetrics.getAcquireTime();
+        acquireLabel.setText(String.format("🔌 Получение соединения: %d раз, p50 %s / p95 %s / p99 %s / макс %s мс, ошибок %d",
+                acquire.getCount(), millis(acquire.getPercentileMillis(50)), millis(acquire.getPercentileMillis(95)),
+                millis(acquire.getPercentileMillis(99)), millis(acquire.getMaxMillis()), QueryMetrics.getAcquireErrors()));
+        poolLabel.setText("Пул: " + DatabaseConnection.getPoolStats());
+    }
+
+    @FXML
+    protected void resetMetrics() {
+        LoggerUtil.action("Сброс метрик запросов");
+        QueryMetrics.reset();
+        refresh();
+    }
+
+    @FXML
+    protected void dumpToLog() {
+        QueryMetrics.dump(Integer.MAX_VALUE);
+        LoggerUtil.action("Метрики запросов записаны в лог");
+    }
+
+    @FXML
+    protected void closeWindow() {
+        Stage stage = (Stage) queriesTable.getScene().getWindow();
+        stage.close();
+    }
+
+    private static Callback<TableColumn.CellDataFeatures<QueryMetrics.Stats, String>, ObservableValue<String>> latency(
+            Function<LatencyHistogram, String> format) {
+        return data -> new SimpleStringProperty(format.apply(data.getValue().getLatency()));
+    }
+
+    private static String millis(double value) {
+        return String.format("%.2f", value);
+    }
+}
@@ -17,6 +17,8 @@ import java.sql.SQLException;
 import utils.PasswordUtil;
 import utils.LoggerUtil;
 import utils.NotificationUtil;
+import models.DashboardSnapshot.Section;
+import services.StatisticsCache;
 
 public class RegisterController {
     @FXML
@@ -62,6 +64,7 @@ public class RegisterController {
             messageLabel.setText("✅ Регистрация прошла успешно!");
             NotificationUtil.showSuccess("Регистрация завершена! Теперь можете войти в систему.");
             LoggerUtil.action("Зарегистрирован новый пользователь: " + username);
+            StatisticsCache.invalidate(Section.USERS);
 
         } catch (Exception e) {
             messageLabel.setText("❌ Ошибка регистрации: " + e.getMessage());
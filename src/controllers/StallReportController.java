@@ -0,0 +1,98 @@
+package controllers;
+
+import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
+import javafx.fxml.FXML;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.control.TextArea;
+import javafx.stage.Stage;
+import monitoring.FxStallDetector;
+import utils.LatencyHistogram;
+import utils.LoggerUtil;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Отчёт администратора о подвисаниях FX-потока (см. FxStallDetector)
+ */
+public class StallReportController {
+
+    @FXML private Label heartbeatLabel;
+    @FXML private Label placeholderLabel;
+    @FXML private TableView<FxStallDetector.Stall> stallsTable;
+    @FXML private TableColumn<FxStallDetector.Stall, String> colLocation;
+    @FXML private TableColumn<FxStallDetector.Stall, String> colCount;
+    @FXML private TableColumn<FxStallDetector.Stall, String> colTotal;
+    @FXML private TableColumn<FxStallDetector.Stall, String> colP50;
+    @FXML private TableColumn<FxStallDetector.Stall, String> colP95;
+    @FXML private TableColumn<FxStallDetector.Stall, String> colMax;
+    @FXML private TableColumn<FxStallDetector.Stall, String> colLastSeen;
+    @FXML private TextArea stackArea;
+
+    private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm:ss");
+
+    public void initialize() {
+        colLocation.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getLocation()));
+        colCount.setCellValueFactory(data -> new SimpleStringProperty(String.valueOf(data.getValue().getDuration().getCount())));
+        colTotal.setCellValueFactory(data -> new SimpleStringProperty(String.format("%,.0f", data.getValue().getDuration().getTotalMillis())));
+        colP50.setCellValueFactory(data -> new SimpleStringProperty(String.format("%.0f", data.getValue().getDuration().getPercentileMillis(50))));
+        colP95.setCellValueFactory(data -> new SimpleStringProperty(String.format("%.0f", data.getValue().getDuration().getPercentileMillis(95))));
+        colMax.setCellValueFactory(data -> new SimpleStringProperty(String.format("%.0f", data.getValue().getDuration().getMaxMillis())));
+        colLastSeen.setCellValueFactory(data -> new SimpleStringProperty(
+                data.getValue().getLastSeen() != null ? data.getValue().getLastSeen().format(timeFormatter) : "—"));
+
+        stallsTable.getSelectionModel().selectedItemProperty().addListener((obs, oldV, stall) -> showStack(stall));
+
+        if (!FxStallDetector.isRunning()) {
+            placeholderLabel.setText("Сторож FX-потока отключён (-Dcarhub.fx.stallMs=0)");
+        }
+        refresh();
+    }
+
+    @FXML
+    protected void refresh() {
+        List<FxStallDetector.Stall> stalls = FxStallDetector.getStalls();
+        stallsTable.setItems(FXCollections.observableArrayList(stalls));
+        stallsTable.refresh();
+
+        LatencyHistogram heartbeat = FxStallDetector.getHeartbeat();
+        heartbeatLabel.setText(String.format("⏱️ Отклик FX-потока: %d проверок, p50 %.1f / p95 %.1f / p99 %.1f / макс %.1f мс",
+                heartbeat.getCount(), heartbeat.getPercentileMillis(50), heartbeat.getPercentileMillis(95),
+                heartbeat.getPercentileMillis(99), heartbeat.getMaxMillis()));
+    }
+
+    @FXML
+    protected void resetReport() {
+        LoggerUtil.action("Сброс отчёта о подвисаниях");
+        FxStallDetector.reset();
+        stackArea.clear();
+        refresh();
+    }
+
+    @FXML
+    protected void dumpToLog() {
+        LoggerUtil.info(FxStallDetector.getSummary());
+        LoggerUtil.action("Отчёт о подвисаниях записан в лог");
+    }
+
+    @FXML
+    protected void closeWindow() {
+        Stage stage = (Stage) stallsTable.getScene().getWindow();
+        stage.close();
+    }
+
+    private void showStack(FxStallDetector.Stall stall) {
+        if (stall == null || stall.getStack() == null) {
+            stackArea.clear();
+            return;
+        }
+        StringBuilder sb = new StringBuilder(stall.getLocation()).append('\n');
+        for (StackTraceElement frame : stall.getStack()) {
+            sb.append("    at ").append(frame).append('\n');
+        }
+        stackArea.setText(sb.toString());
+    }
+}
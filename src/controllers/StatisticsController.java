@@ -11,7 +11,10 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import models.Car;
-import services.StatisticsService;
+import models.DashboardSnapshot;
+import services.StatisticsCache;
+import utils.AsyncLoader;
+import utils.LoggerUtil;
 import utils.SessionManager;
 
 import java.util.Map;
@@ -36,6 +39,8 @@ public class StatisticsController {
     @FXML private Label totalCommentsLabel;
     @FXML private Label totalRatingsLabel;
 
+    private AsyncLoader.Scope loadScope;
+
     public void initialize() {
         loadStatistics();
     }
@@ -43,25 +48,39 @@ public class StatisticsController {
     private void loadStatistics() {
         System.out.println("📊 ========== ЗАГРУЗКА СТАТИСТИКИ ==========");
 
+        // Снимок из кэша (или один пакет запросов, если он устарел), в фоне
+        if (loadScope == null) {
+            loadScope = AsyncLoader.scopeFor(totalCarsLabel);
+        }
+        loadScope.load(StatisticsCache::getSnapshot)
+                .thenAccept(this::showStatistics)
+                .whenComplete((ignored, error) -> {
+                    if (error != null && !AsyncLoader.isCancelled(error)) {
+                        LoggerUtil.error("Ошибка загрузки статистики", AsyncLoader.cause(error));
+                    }
+                });
+    }
+
+    private void showStatistics(DashboardSnapshot snapshot) {
         // Основные показатели
-        int totalCars = StatisticsService.getTotalCars();
+        int totalCars = snapshot.totalCars();
         System.out.println("🚗 Всего автомобилей: " + totalCars);
         totalCarsLabel.setText(String.valueOf(totalCars));
 
-        double avgPrice = StatisticsService.getAveragePrice();
+        double avgPrice = snapshot.averagePrice();
         System.out.println("💰 Средняя цена: " + avgPrice);
         avgPriceLabel.setText(String.format("₸ %,.0f", avgPrice));
 
-        int totalUsers = StatisticsService.getTotalUsers();
+        int totalUsers = snapshot.totalUsers();
         System.out.println("👥 Всего пользователей: " + totalUsers);
         totalUsersLabel.setText(String.valueOf(totalUsers));
 
-        double avgMileage = StatisticsService.getAverageMileage();
+        double avgMileage = snapshot.averageMileage();
         System.out.println("🛣️ Средний пробег: " + avgMileage);
         avgMileageLabel.setText(String.format("%,.0f км", avgMileage));
 
         // Самое дорогое/дешёвое
-        Car mostExpensive = StatisticsService.getMostExpensiveCar();
+        Car mostExpensive = snapshot.mostExpensive();
         if (mostExpensive != null) {
             System.out.println("💎 Самое дорогое: " + mostExpensive.getName());
             mostExpensiveLabel.setText(mostExpensive.getName() + " " + mostExpensive.getModel());
@@ -72,7 +91,7 @@ public class StatisticsController {
             mostExpensivePriceLabel.setText("₸ 0");
         }
 
-        Car cheapest = StatisticsService.getCheapestCar();
+        Car cheapest = snapshot.cheapest();
         if (cheapest != null) {
             System.out.println("💵 Самое дешёвое: " + cheapest.getName());
             cheapestLabel.setText(cheapest.getName() + " " + cheapest.getModel());
@@ -84,45 +103,45 @@ public class StatisticsController {
         }
 
         // Топ-5 брендов
-        loadTopBrands();
+        showTopBrands(snapshot.topBrands());
 
         // Дополнительная статистика
-        int totalAdmins = StatisticsService.getTotalAdmins();
+        int totalAdmins = snapshot.totalAdmins();
         System.out.println("👑 Всего админов: " + totalAdmins);
         totalAdminsLabel.setText(String.valueOf(totalAdmins));
         setupCardClickHandler(totalAdminsLabel, "admins");
 
-        int totalFavorites = StatisticsService.getTotalFavorites();
+        int totalFavorites = snapshot.totalFavorites();
         System.out.println("❤️ Всего избранных: " + totalFavorites);
         totalFavoritesLabel.setText(String.valueOf(totalFavorites));
         setupCardClickHandler(totalFavoritesLabel, "favorites");
 
-        int totalActiveUsers = StatisticsService.getTotalActiveUsers();
+        int totalActiveUsers = snapshot.activeUsers();
         System.out.println("✅ Активные пользователи: " + totalActiveUsers);
         totalActiveUsersLabel.setText(String.valueOf(totalActiveUsers));
         setupCardClickHandler(totalActiveUsersLabel, "active_users");
 
-        int totalInactiveUsers = StatisticsService.getTotalInactiveUsers();
+        int totalInactiveUsers = snapshot.inactiveUsers();
         System.out.println("❌ Неактивные пользователи: " + totalInactiveUsers);
         totalInactiveUsersLabel.setText(String.valueOf(totalInactiveUsers));
         setupCardClickHandler(totalInactiveUsersLabel, "inactive_users");
 
-        int totalReservations = StatisticsService.getTotalReservations();
+        int totalReservations = snapshot.totalReservations();
         System.out.println("📅 Всего бронирований: " + totalReservations);
         totalReservationsLabel.setText(String.valueOf(totalReservations));
         setupCardClickHandler(totalReservationsLabel, "reservations");
 
-        int totalPurchases = StatisticsService.getTotalPurchases();
+        int totalPurchases = snapshot.totalPurchases();
         System.out.println("🛒 Всего покупок: " + totalPurchases);
         totalPurchasesLabel.setText(String.valueOf(totalPurchases));
         setupCardClickHandler(totalPurchasesLabel, "purchases");
 
-        int totalComments = StatisticsService.getTotalComments();
+        int totalComments = snapshot.totalComments();
         System.out.println("💬 Всего комментариев: " + totalComments);
         totalCommentsLabel.setText(String.valueOf(totalComments));
         setupCardClickHandler(totalCommentsLabel, "comments");
 
-        int totalRatings = StatisticsService.getTotalRatings();
+        int totalRatings = snapshot.totalRatings();
         System.out.println("⭐ Всего оценок: " + totalRatings);
         totalRatingsLabel.setText(String.valueOf(totalRatings));
         setupCardClickHandler(totalRatingsLabel, "ratings");
@@ -156,9 +175,8 @@ public class StatisticsController {
         }
     }
 
-    private void loadTopBrands() {
+    private void showTopBrands(Map<String, Integer> topBrands) {
         topBrandsContainer.getChildren().clear();
-        Map<String, Integer> topBrands = StatisticsService.getTopBrands(5);
 
         if (topBrands.isEmpty()) {
             Label emptyLabel = new Label("Нет данных о брендах");
@@ -382,9 +400,49 @@ public class StatisticsController {
     @FXML
     protected void refreshStatistics() {
         utils.LoggerUtil.action("Обновление статистики");
+        // Явное обновление — пересчитать всё, не дожидаясь планировщика
+        StatisticsCache.invalidateAll();
         loadStatistics();
     }
 
+    /**
+     * Открыть окно с метриками запросов к базе
+     */
+    @FXML
+    protected void openQueryMetrics() {
+        try {
+            utils.LoggerUtil.action("Открытие метрик запросов");
+
+            Parent root = FXMLLoader.load(getClass().getResource("/resources/query-metrics-view.fxml"));
+            Stage stage = new Stage();
+            stage.setTitle("Метрики запросов");
+            stage.setScene(new Scene(root));
+            stage.centerOnScreen();
+            stage.show();
+        } catch (Exception e) {
+            utils.LoggerUtil.error("Ошибка открытия метрик запросов", e);
+        }
+    }
+
+    /**
+     * Открыть отчёт о подвисаниях интерфейса
+     */
+    @FXML
+    protected void openStallReport() {
+        try {
+            utils.LoggerUtil.action("Открытие отчёта о подвисаниях");
+
+            Parent root = FXMLLoader.load(getClass().getResource("/resources/stall-report-view.fxml"));
+            Stage stage = new Stage();
+            stage.setTitle("Подвисания интерфейса");
+            stage.setScene(new Scene(root));
+            stage.centerOnScreen();
+            stage.show();
+        } catch (Exception e) {
+            utils.LoggerUtil.error("Ошибка открытия отчёта о подвисаниях", e);
+        }
+    }
+
     /**
      * Открыть окно с детальной информацией
      */
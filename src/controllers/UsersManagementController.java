@@ -18,6 +18,9 @@ import database.DatabaseConnection;
 import utils.SessionManager;
 import utils.LoggerUtil;
 import utils.PasswordUtil;
+import models.DashboardSnapshot.Section;
+import services.RatingAggregates;
+import services.StatisticsCache;
 
 import java.sql.*;
 
@@ -269,6 +272,7 @@ public class UsersManagementController {
                 if (rs.next()) {
                     int id = rs.getInt(1);
                     LoggerUtil.action("Создан пользователь: " + username);
+                    StatisticsCache.invalidate(Section.USERS);
                     showInfo("Успешно", "Пользователь " + username + " создан!");
 
                     User user = new User(id, username, "", fullname, role);
@@ -373,6 +377,7 @@ public class UsersManagementController {
 
             if (affected > 0) {
                 LoggerUtil.action("Обновлён пользователь ID: " + userId + " (новый логин: " + username + ")");
+                StatisticsCache.invalidate(Section.USERS);
                 showInfo("Успешно", "Данные пользователя обновлены!");
                 return true;
             }
@@ -404,6 +409,7 @@ public class UsersManagementController {
             if (affected > 0) {
                 user.setActive(newStatus);
                 LoggerUtil.action((newStatus ? "Активирован" : "Деактивирован") + " пользователь: " + user.getUsername());
+                StatisticsCache.invalidate(Section.USERS);
                 showInfo("Успешно", "Статус пользователя изменён!");
                 usersTable.refresh();
                 updateStatistics();
@@ -437,6 +443,10 @@ public class UsersManagementController {
 
                     if (affected > 0) {
                         LoggerUtil.action("Удалён пользователь: " + user.getUsername());
+                        // Вместе с пользователем могут уйти его избранное, отзывы и заявки
+                        StatisticsCache.invalidateAll();
+                        // Отзывы удаляются каскадом, мимо CommentsService
+                        RatingAggregates.invalidate();
                         showInfo("Успешно", "Пользователь удалён!");
                         loadUsers();
                         updateStatistics();
@@ -0,0 +1,451 @@
+package database;
+
+import utils.LoggerUtil;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченный пул JDBC-соединений.
+ *
+ * Физические соединения переиспользуются между вызовами DatabaseConnection.getConnection():
+ * вызывающий код получает обёртку, у которой close() возвращает соединение в пул.
+ * Пул проверяет долго простаивавшие соединения, закрывает соединения старше maxLifetime,
+ * сообщает о «утечках» (соединение не возвращено дольше порога) и ведёт метрики ожидания.
+ * Выданные Statement оборачиваются InstrumentedStatement для метрик запросов (QueryMetrics).
+ * У каждого физического соединения свой кэш PreparedStatement (StatementCache).
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    private final int maxSize;
+    private final long connectionTimeoutMs;
+    private final long idleValidationMs;
+    private final long idleTimeoutMs;
+    private final long maxLifetimeMs;
+    private final long leakDetectionMs;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledEntry> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledEntry> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean shutdown = false;
+
+    // Метрики
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong acquireWaitNanos = new AtomicLong();
+    private final AtomicLong maxAcquireWaitNanos = new AtomicLong();
+    private final AtomicLong acquireTimeouts = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong closed = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String password,
+                          int maxSize, long connectionTimeoutMs, long idleValidationMs,
+                          long idleTimeoutMs, long maxLifetimeMs, long leakDetectionMs,
+                          int statementCacheSize) {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.connectionTimeoutMs = connectionTimeoutMs;
+        this.idleValidationMs = idleValidationMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.maxLifetimeMs = maxLifetimeMs;
+        this.leakDetectionMs = leakDetectionMs;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "carhub-db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 5, 5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Взять соединение из пула (или открыть новое, если свободных нет и лимит не исчерпан)
+     */
+    public Connection getConnection() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Пул соединений закрыт");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(connectionTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        }
+        long waited = System.nanoTime() - start;
+        recordAcquire(waited);
+
+        if (!acquired) {
+            acquireTimeouts.incrementAndGet();
+            QueryMetrics.recordAcquire(waited, true);
+            throw new SQLTimeoutException("Нет свободных соединений за " + connectionTimeoutMs +
+                    " мс (максимум " + maxSize + ", занято " + borrowed.size() + ")");
+        }
+
+        try {
+            PooledEntry entry = takeIdle();
+            if (entry == null) {
+                entry = new PooledEntry(DriverManager.getConnection(url, user, password));
+                created.incrementAndGet();
+            }
+            entry.borrowedAt = System.currentTimeMillis();
+            entry.leakReported = false;
+            entry.borrowStack = leakDetectionMs > 0 ? new Exception("Соединение получено здесь") : null;
+            borrowed.add(entry);
+            // Полное время получения: ожидание в очереди + проверка или открытие соединения
+            QueryMetrics.recordAcquire(System.nanoTime() - start, false);
+            return entry.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            QueryMetrics.recordAcquire(System.nanoTime() - start, true);
+            throw e;
+        }
+    }
+
+    private PooledEntry takeIdle() {
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            long now = System.currentTimeMillis();
+            if (now - entry.createdAt > maxLifetimeMs) {
+                closePhysical(entry);
+                continue;
+            }
+            if (now - entry.lastReturnedAt > idleValidationMs && !isValid(entry)) {
+                validationFailures.incrementAndGet();
+                closePhysical(entry);
+                continue;
+            }
+            return entry;
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledEntry entry) {
+        try {
+            return entry.physical.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Вернуть соединение в пул (вызывается из close() обёртки)
+     */
+    private void release(PooledEntry entry) {
+        borrowed.remove(entry);
+        try {
+            entry.closeOpenStatements();
+            boolean reusable = !shutdown
+                    && System.currentTimeMillis() - entry.createdAt <= maxLifetimeMs
+                    && !entry.physical.isClosed();
+            if (reusable) {
+                if (!entry.physical.getAutoCommit()) {
+                    entry.physical.rollback();
+                    entry.physical.setAutoCommit(true);
+                }
+                entry.lastReturnedAt = System.currentTimeMillis();
+                idle.offerFirst(entry);
+            } else {
+                closePhysical(entry);
+            }
+        } catch (SQLException e) {
+            closePhysical(entry);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void closePhysical(PooledEntry entry) {
+        if (entry.statements != null) {
+            entry.statements.closeAll();
+        }
+        try {
+            entry.physical.close();
+        } catch (SQLException ignored) {
+            // Соединение уже разорвано
+        }
+        closed.incrementAndGet();
+    }
+
+    private void recordAcquire(long waitedNanos) {
+        acquisitions.incrementAndGet();
+        acquireWaitNanos.addAndGet(waitedNanos);
+        maxAcquireWaitNanos.accumulateAndGet(waitedNanos, Math::max);
+    }
+
+    /**
+     * Периодическое обслуживание: закрытие простаивающих/старых соединений и поиск утечек
+     */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        List<PooledEntry> expired = new ArrayList<>();
+        for (PooledEntry entry : idle) {
+            if (now - entry.lastReturnedAt > idleTimeoutMs || now - entry.createdAt > maxLifetimeMs) {
+                expired.add(entry);
+            }
+        }
+        for (PooledEntry entry : expired) {
+            if (idle.remove(entry)) {
+                closePhysical(entry);
+            }
+        }
+
+        if (leakDetectionMs > 0) {
+            for (PooledEntry entry : borrowed) {
+                if (!entry.leakReported && now - entry.borrowedAt > leakDetectionMs) {
+                    entry.leakReported = true;
+                    leaks.incrementAndGet();
+                    LoggerUtil.warning("Возможная утечка соединения: не возвращено в пул " +
+                            (now - entry.borrowedAt) + " мс" + describeBorrower(entry));
+                }
+            }
+        }
+    }
+
+    private String describeBorrower(PooledEntry entry) {
+        if (entry.borrowStack == null) return "";
+        StringBuilder sb = new StringBuilder(" | Получено в: ");
+        StackTraceElement[] frames = entry.borrowStack.getStackTrace();
+        int shown = 0;
+        for (StackTraceElement frame : frames) {
+            String cls = frame.getClassName();
+            if (cls.startsWith("database.") || cls.startsWith("jdk.") || cls.startsWith("java.")) continue;
+            if (shown > 0) sb.append(" <- ");
+            sb.append(cls).append('.').append(frame.getMethodName()).append(':').append(frame.getLineNumber());
+            if (++shown == 4) break;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Закрыть пул и все свободные соединения
+     */
+    public void shutdown() {
+        shutdown = true;
+        housekeeper.shutdownNow();
+        PooledEntry entry;
+        while ((entry = idle.pollFirst()) != null) {
+            closePhysical(entry);
+        }
+    }
+
+    /**
+     * Снимок метрик пула
+     */
+    public Stats getStats() {
+        return new Stats(maxSize, borrowed.size(), idle.size(), acquisitions.get(),
+                acquireWaitNanos.get(), maxAcquireWaitNanos.get(), acquireTimeouts.get(),
+                created.get(), closed.get(), validationFailures.get(), leaks.get(),
+                StatementCache.hits.get(), StatementCache.misses.get());
+    }
+
+    /**
+     * Метрики пула соединений
+     */
+    public static class Stats {
+        private final int maxSize;
+        private final int active;
+        private final int idle;
+        private final long acquisitions;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long timeouts;
+        private final long created;
+        private final long closed;
+        private final long validationFailures;
+        private final long leaks;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+
+        Stats(int maxSize, int active, int idle, long acquisitions, long totalWaitNanos, long maxWaitNanos,
+              long timeouts, long created, long closed, long validationFailures, long leaks,
+              long statementCacheHits, long statementCacheMisses) {
+            this.maxSize = maxSize;
+            this.active = active;
+            this.idle = idle;
+            this.acquisitions = acquisitions;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.closed = closed;
+            this.validationFailures = validationFailures;
+            this.leaks = leaks;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        public int getMaxSize() { return maxSize; }
+        public int getActive() { return active; }
+        public int getIdle() { return idle; }
+        public long getAcquisitions() { return acquisitions; }
+        public long getTimeouts() { return timeouts; }
+        public long getCreated() { return created; }
+        public long getClosed() { return closed; }
+        public long getValidationFailures() { return validationFailures; }
+        public long getLeaks() { return leaks; }
+        public long getStatementCacheHits() { return statementCacheHits; }
+        public long getStatementCacheMisses() { return statementCacheMisses; }
+
+        public double getAverageWaitMs() {
+            return acquisitions == 0 ? 0 : totalWaitNanos / 1_000_000.0 / acquisitions;
+        }
+
+        public double getMaxWaitMs() {
+            return maxWaitNanos / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("активных=%d, свободных=%d, максимум=%d, выдано=%d, " +
+                            "ожидание ср.=%.2f мс / макс.=%.2f мс, таймаутов=%d, открыто=%d, закрыто=%d, " +
+                            "невалидных=%d, утечек=%d, кэш выражений: попаданий=%d, промахов=%d",
+                    active, idle, maxSize, acquisitions, getAverageWaitMs(), getMaxWaitMs(),
+                    timeouts, created, closed, validationFailures, leaks,
+                    statementCacheHits, statementCacheMisses);
+        }
+    }
+
+    // ========== ФИЗИЧЕСКОЕ СОЕДИНЕНИЕ И ОБЁРТКА ==========
+
+    private class PooledEntry {
+        final Connection physical;
+        final long createdAt = System.currentTimeMillis();
+        volatile long lastReturnedAt = createdAt;
+        volatile long borrowedAt;
+        volatile boolean leakReported;
+        volatile Exception borrowStack;
+        final StatementCache statements;
+        private final List<Statement> openStatements = new ArrayList<>();
+
+        PooledEntry(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0 ? new StatementCache(physical, statementCacheSize) : null;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+
+        synchronized void track(Statement statement) {
+            openStatements.add(statement);
+        }
+
+        /**
+         * Многие вызывающие методы не закрывают Statement — закрываем их при возврате соединения,
+         * чтобы незакрытые курсоры не копились на переиспользуемом соединении
+         * (кэшированные PreparedStatement при этом возвращаются в кэш)
+         */
+        synchronized void closeOpenStatements() {
+            for (Statement statement : openStatements) {
+                try {
+                    statement.close();
+                } catch (SQLException ignored) {
+                    // Statement уже закрыт
+                }
+            }
+            openStatements.clear();
+        }
+    }
+
+    /**
+     * Обработчик вызовов для логического соединения, выданного вызывающему коду
+     */
+    private class Handle implements InvocationHandler {
+        private final PooledEntry entry;
+        private boolean logicallyClosed = false;
+
+        Handle(PooledEntry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!logicallyClosed) {
+                        logicallyClosed = true;
+                        release(entry);
+                    }
+                    return null;
+                case "isClosed":
+                    return logicallyClosed || entry.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + entry.physical + "]";
+                default:
+                    break;
+            }
+
+            if (logicallyClosed) {
+                throw new SQLException("Соединение уже возвращено в пул");
+            }
+
+            Object result;
+            if (entry.statements != null && isCacheablePrepare(method, args)) {
+                int keys = args.length == 2 ? (Integer) args[1] : -1;
+                result = entry.statements.prepare((String) args[0], keys);
+            } else {
+                try {
+                    result = method.invoke(entry.physical, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+
+            if (result instanceof Statement statement) {
+                entry.track(statement);
+                if (QueryMetrics.ENABLED) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+                    return InstrumentedStatement.wrap(statement, method.getReturnType(), sql);
+                }
+            }
+            return result;
+        }
+
+        // prepareStatement(sql) и prepareStatement(sql, autoGeneratedKeys)
+        private boolean isCacheablePrepare(Method method, Object[] args) {
+            if (!"prepareStatement".equals(method.getName()) || args == null) return false;
+            Class<?>[] types = method.getParameterTypes();
+            return (types.length == 1 && args[0] != null)
+                    || (types.length == 2 && types[1] == int.class && args[0] != null);
+        }
+    }
+}
@@ -1,20 +1,93 @@
 package database;
 
+import utils.LoggerUtil;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 
 public class DatabaseConnection {
-    private static final String URL = "jdbc:sqlserver://DESKTOP-O6BFRU7:1433;databaseName=TestDB;encrypt=false;trustServerCertificate=true;";
-    private static final String USER = "sa";
-    private static final String PASSWORD = "sa";
+    private static final String URL = withDriverStatementPooling(System.getProperty("carhub.db.url",
+            "jdbc:sqlserver://DESKTOP-O6BFRU7:1433;databaseName=TestDB;encrypt=false;trustServerCertificate=true;"));
+    private static final String USER = System.getProperty("carhub.db.user", "sa");
+    private static final String PASSWORD = System.getProperty("carhub.db.password", "sa");
+
+    // Параметры пула (можно переопределить через -Dcarhub.db.pool.*)
+    private static final int POOL_MAX_SIZE = Integer.getInteger("carhub.db.pool.maxSize", 10);
+    private static final long CONNECTION_TIMEOUT_MS = Long.getLong("carhub.db.pool.connectionTimeoutMs", 5_000);
+    private static final long IDLE_VALIDATION_MS = Long.getLong("carhub.db.pool.idleValidationMs", 30_000);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("carhub.db.pool.idleTimeoutMs", 10 * 60_000);
+    private static final long MAX_LIFETIME_MS = Long.getLong("carhub.db.pool.maxLifetimeMs", 30 * 60_000);
+    private static final long LEAK_DETECTION_MS = Long.getLong("carhub.db.pool.leakDetectionMs", 10_000);
+    // Кэш PreparedStatement на каждое соединение пула (0 — отключить)
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("carhub.db.pool.statementCacheSize", 64);
 
+    private static volatile ConnectionPool pool;
+
+    /**
+     * Получить соединение из пула. close() возвращает его в пул, а не разрывает.
+     */
     public static Connection getConnection() {
         try {
-            Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
-            return DriverManager.getConnection(URL, USER, PASSWORD);
+            return getPool().getConnection();
         } catch (Exception e) {
             System.out.println("❌ Ошибка подключения к базе: " + e.getMessage());
             return null;
         }
     }
+
+    /**
+     * Метрики пула соединений
+     */
+    public static ConnectionPool.Stats getPoolStats() {
+        return getPool().getStats();
+    }
+
+    private static ConnectionPool getPool() {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    try {
+                        Class.forName("com.microsoft.sqlserver.jdbc.SQLServerDriver");
+                    } catch (ClassNotFoundException e) {
+                        // Драйвер может быть зарегистрирован через ServiceLoader (или это другой драйвер)
+                    }
+                    p = new ConnectionPool(URL, USER, PASSWORD, POOL_MAX_SIZE, CONNECTION_TIMEOUT_MS,
+                            IDLE_VALIDATION_MS, IDLE_TIMEOUT_MS, MAX_LIFETIME_MS, LEAK_DETECTION_MS,
+                            STATEMENT_CACHE_SIZE);
+                    LoggerUtil.info("Создан пул соединений (максимум " + POOL_MAX_SIZE + ")");
+                    final ConnectionPool created = p;
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        LoggerUtil.info("Пул соединений: " + created.getStats());
+                        QueryMetrics.dump(20);
+                        created.shutdown();
+                    }));
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Для SQL Server включаем кэш подготовленных выражений драйвера: дескрипторы sp_prepare
+     * и метаданные параметров переиспользуются между PreparedStatement одного соединения.
+     * Значения, явно заданные в carhub.db.url, не переопределяются; размер —
+     * -Dcarhub.db.driverStatementCacheSize (0 — не добавлять).
+     */
+    private static String withDriverStatementPooling(String url) {
+        int size = Integer.getInteger("carhub.db.driverStatementCacheSize", 256);
+        if (size <= 0 || !url.startsWith("jdbc:sqlserver:")) return url;
+
+        StringBuilder sb = new StringBuilder(url);
+        if (!url.endsWith(";")) sb.append(';');
+        String lower = url.toLowerCase();
+        if (!lower.contains("statementpoolingcachesize=")) {
+            sb.append("statementPoolingCacheSize=").append(size).append(';');
+        }
+        if (!lower.contains("disablestatementpooling=")) {
+            sb.append("disableStatementPooling=false;");
+        }
+        return sb.toString();
+    }
 }
@@ -0,0 +1,171 @@
+package database;
+
+import monitoring.QueryEvent;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Обёртка Statement/PreparedStatement/CallableStatement, которая пишет в QueryMetrics
+ * время выполнения, ошибки и количество строк по шаблону SQL.
+ *
+ * Время — только сам вызов execute*; чтение строк из ResultSet считается отдельно (число строк).
+ * Каждый вызов также даёт JFR-событие carhub.Query (если запись JFR включена).
+ */
+class InstrumentedStatement implements InvocationHandler {
+
+    private final Statement target;
+    private final String sql;
+    private String batchSql;
+    private QueryMetrics.Stats lastStats;
+
+    private InstrumentedStatement(Statement target, String sql) {
+        this.target = target;
+        this.sql = sql;
+    }
+
+    /**
+     * @param type интерфейс, который вернул метод соединения (Statement, PreparedStatement, CallableStatement)
+     * @param sql  текст для prepareStatement/prepareCall, null для createStatement
+     */
+    static Statement wrap(Statement target, Class<?> type, String sql) {
+        return (Statement) Proxy.newProxyInstance(
+                InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{type},
+                new InstrumentedStatement(target, sql));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        switch (name) {
+            case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate",
+                 "executeBatch", "executeLargeBatch":
+                return execute(method, args);
+            case "addBatch":
+                if (args != null && args.length == 1 && batchSql == null) {
+                    batchSql = (String) args[0];
+                }
+                break;
+            case "clearBatch":
+                batchSql = null;
+                break;
+            case "getResultSet":
+                return wrapResult(call(method, args), lastStats);
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                break;
+        }
+        return call(method, args);
+    }
+
+    private Object execute(Method method, Object[] args) throws Throwable {
+        String text;
+        if (args != null && args.length > 0 && args[0] instanceof String s) {
+            text = s;
+        } else if (method.getName().endsWith("Batch") && sql == null) {
+            text = batchSql;
+            batchSql = null;
+        } else {
+            text = sql;
+        }
+        QueryMetrics.Stats stats = QueryMetrics.forSql(text);
+        lastStats = stats;
+
+        QueryEvent event = new QueryEvent();
+        event.begin();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            stats.recordError(System.nanoTime() - start, e.getCause());
+            event.end();
+            if (event.shouldCommit()) {
+                event.sql = stats.getTemplate();
+                event.error = String.valueOf(e.getCause().getMessage());
+                event.commit();
+            }
+            throw e.getCause();
+        }
+        stats.recordExecution(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.sql = stats.getTemplate();
+            if (result instanceof Integer count) event.updated = count;
+            else if (result instanceof Long count) event.updated = count;
+            event.commit();
+        }
+
+        if (result instanceof ResultSet) {
+            return wrapResult(result, stats);
+        } else if (result instanceof Integer count) {
+            stats.addRows(Math.max(0, count));
+        } else if (result instanceof Long count) {
+            stats.addRows(Math.max(0, count));
+        } else if (result instanceof int[] counts) {
+            for (int count : counts) stats.addRows(Math.max(0, count));
+        } else if (result instanceof long[] counts) {
+            for (long count : counts) stats.addRows(Math.max(0, count));
+        }
+        return result;
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object wrapResult(Object result, QueryMetrics.Stats stats) {
+        if (!(result instanceof ResultSet resultSet) || stats == null) return result;
+        return Proxy.newProxyInstance(
+                InstrumentedStatement.class.getClassLoader(),
+                new Class<?>[]{ResultSet.class},
+                new RowCounter(resultSet, stats));
+    }
+
+    /**
+     * Считает строки, прочитанные из ResultSet
+     */
+    private static class RowCounter implements InvocationHandler {
+        private final ResultSet target;
+        private final QueryMetrics.Stats stats;
+
+        RowCounter(ResultSet target, QueryMetrics.Stats stats) {
+            this.target = target;
+            this.stats = stats;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result == Boolean.TRUE && "next".equals(method.getName())) {
+                stats.addRows(1);
+            }
+            return result;
+        }
+    }
+}
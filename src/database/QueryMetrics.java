@@ -0,0 +1,183 @@
+package database;
+
+import utils.LatencyHistogram;
+import utils.LoggerUtil;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Метрики запросов по шаблонам SQL: гистограмма времени выполнения, число вызовов,
+ * строк (прочитанных из ResultSet или изменённых) и ошибок, плюс время получения соединения из пула.
+ *
+ * Заполняется обёртками ConnectionPool, поэтому покрывает все сервисы и контроллеры,
+ * которые работают через DatabaseConnection. Отключается -Dcarhub.db.metrics=false.
+ */
+public class QueryMetrics {
+
+    static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("carhub.db.metrics"));
+
+    // Защита от неограниченного роста, если где-то SQL склеивается из значений
+    private static final int MAX_TEMPLATES = 500;
+    private static final String OTHER_TEMPLATE = "(прочие запросы)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("N?'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w\\]])-?\\d+(?:\\.\\d+)?");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Map<String, Stats> byTemplate = new ConcurrentHashMap<>();
+    // Кэш нормализации: один и тот же текст SQL приходит тысячи раз
+    private static final Map<String, String> templates = new ConcurrentHashMap<>();
+    private static final LatencyHistogram acquireTime = new LatencyHistogram();
+    private static final LongAdder acquireErrors = new LongAdder();
+
+    static {
+        long dumpSeconds = Long.getLong("carhub.db.metrics.dumpSeconds", 300);
+        if (ENABLED && dumpSeconds > 0) {
+            ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "carhub-db-metrics");
+                t.setDaemon(true);
+                return t;
+            });
+            dumper.scheduleWithFixedDelay(() -> dump(10), dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Статистика одного шаблона запроса
+     */
+    public static class Stats {
+        private final String template;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private volatile String lastError;
+
+        Stats(String template) {
+            this.template = template;
+        }
+
+        void recordExecution(long nanos) {
+            latency.recordNanos(nanos);
+        }
+
+        void recordError(long nanos, Throwable error) {
+            latency.recordNanos(nanos);
+            errors.increment();
+            lastError = error.getMessage();
+        }
+
+        void addRows(long count) {
+            rows.add(count);
+        }
+
+        public String getTemplate() { return template; }
+        public LatencyHistogram getLatency() { return latency; }
+        public long getRows() { return rows.sum(); }
+        public long getErrors() { return errors.sum(); }
+        public String getLastError() { return lastError; }
+    }
+
+    /**
+     * Статистика для текста SQL (создаётся при первом обращении)
+     */
+    static Stats forSql(String sql) {
+        String template = templates.get(sql);
+        if (template == null) {
+            template = normalize(sql);
+            String name = SqlTemplate.nameOf(sql);
+            if (name != null) {
+                template = "[" + name + "] " + template;
+            }
+            if (templates.size() < MAX_TEMPLATES * 4) {
+                templates.put(sql, template);
+            }
+        }
+        Stats stats = byTemplate.get(template);
+        if (stats == null) {
+            if (byTemplate.size() >= MAX_TEMPLATES) {
+                template = OTHER_TEMPLATE;
+            }
+            stats = byTemplate.computeIfAbsent(template, Stats::new);
+        }
+        return stats;
+    }
+
+    static void recordAcquire(long nanos, boolean failed) {
+        acquireTime.recordNanos(nanos);
+        if (failed) {
+            acquireErrors.increment();
+        }
+    }
+
+    /**
+     * Шаблон запроса: литералы заменены на ?, пробелы схлопнуты
+     */
+    static String normalize(String sql) {
+        if (sql == null) return "(null)";
+        String template = STRING_LITERAL.matcher(sql).replaceAll("?");
+        template = NUMBER_LITERAL.matcher(template).replaceAll("?");
+        return WHITESPACE.matcher(template).replaceAll(" ").trim();
+    }
+
+    /**
+     * Все шаблоны, от самых затратных (суммарное время) к дешёвым
+     */
+    public static List<Stats> snapshot() {
+        List<Stats> list = new ArrayList<>(byTemplate.values());
+        list.sort(Comparator.comparingDouble((Stats s) -> s.getLatency().getTotalMillis()).reversed());
+        return list;
+    }
+
+    public static LatencyHistogram getAcquireTime() {
+        return acquireTime;
+    }
+
+    public static long getAcquireErrors() {
+        return acquireErrors.sum();
+    }
+
+    public static void reset() {
+        byTemplate.clear();
+        acquireTime.reset();
+        acquireErrors.reset();
+    }
+
+    /**
+     * Записать в лог самые затратные запросы и время получения соединения
+     */
+    public static void dump(int limit) {
+        List<Stats> stats = snapshot();
+        if (stats.isEmpty()) return;
+
+        StringBuilder sb = new StringBuilder("⏱️ Метрики запросов (по суммарному времени):");
+        sb.append(System.lineSeparator()).append("   соединение: ").append(describe(acquireTime))
+          .append(", ошибок ").append(acquireErrors.sum());
+        for (int i = 0; i < Math.min(limit, stats.size()); i++) {
+            Stats s = stats.get(i);
+            sb.append(System.lineSeparator()).append("   ").append(describe(s.getLatency()))
+              .append(", строк ").append(s.getRows())
+              .append(", ошибок ").append(s.getErrors())
+              .append(" | ").append(shorten(s.getTemplate(), 160));
+        }
+        LoggerUtil.info(sb.toString());
+    }
+
+    private static String describe(LatencyHistogram h) {
+        return String.format("вызовов %d, всего %.0f мс, p50 %.2f / p95 %.2f / p99 %.2f / макс %.2f мс",
+                h.getCount(), h.getTotalMillis(), h.getPercentileMillis(50), h.getPercentileMillis(95),
+                h.getPercentileMillis(99), h.getMaxMillis());
+    }
+
+    private static String shorten(String text, int max) {
+        return text.length() <= max ? text : text.substring(0, max - 1) + "…";
+    }
+}
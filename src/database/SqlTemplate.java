@@ -0,0 +1,109 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр именованных SQL-шаблонов.
+ *
+ * Сервисы объявляют запросы константами (SqlTemplate.define("cars.byId", "SELECT ... WHERE id = ?"))
+ * и выполняют их только через prepare(): текст запроса постоянный, значения — параметры.
+ * Поэтому SQL Server видит небольшой стабильный набор текстов и переиспользует их планы,
+ * а пул возвращает уже подготовленный PreparedStatement того же соединения (см. StatementCache).
+ *
+ * Имя шаблона показывается в метриках запросов (QueryMetrics).
+ */
+public final class SqlTemplate {
+
+    private static final Map<String, SqlTemplate> byName = new ConcurrentHashMap<>();
+    private static final Map<String, SqlTemplate> bySql = new ConcurrentHashMap<>();
+    private static final Map<String, Integer> variants = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final String sql;
+
+    private SqlTemplate(String name, String sql) {
+        this.name = name;
+        this.sql = sql;
+    }
+
+    /**
+     * Зарегистрировать шаблон. Повторная регистрация того же имени с тем же текстом
+     * возвращает существующий шаблон, с другим текстом — ошибка.
+     */
+    public static SqlTemplate define(String name, String sql) {
+        SqlTemplate template = byName.computeIfAbsent(name, n -> new SqlTemplate(n, sql));
+        if (!template.sql.equals(sql)) {
+            throw new IllegalStateException("Шаблон SQL '" + name + "' уже зарегистрирован с другим текстом");
+        }
+        bySql.putIfAbsent(sql, template);
+        return template;
+    }
+
+    /**
+     * Шаблон из семейства запросов, текст которых собирается из ограниченного набора частей
+     * (фильтры страницы каталога, разделы статистики). Каждый новый вариант текста регистрируется
+     * как family#N; значения по-прежнему передаются только параметрами.
+     */
+    public static SqlTemplate variant(String family, String sql) {
+        SqlTemplate template = bySql.get(sql);
+        if (template != null) return template;
+        synchronized (SqlTemplate.class) {
+            template = bySql.get(sql);
+            if (template != null) return template;
+            int n = variants.merge(family, 1, Integer::sum);
+            return define(family + "#" + n, sql);
+        }
+    }
+
+    /**
+     * Подготовить запрос на соединении (из кэша выражений соединения, если он там есть)
+     */
+    public PreparedStatement prepare(Connection conn) throws SQLException {
+        return conn.prepareStatement(sql);
+    }
+
+    /**
+     * Подготовить INSERT, возвращающий сгенерированные ключи
+     */
+    public PreparedStatement prepareReturningKeys(Connection conn) throws SQLException {
+        return conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Имя шаблона с таким текстом или null, если текст не из реестра
+     */
+    public static String nameOf(String sql) {
+        SqlTemplate template = sql == null ? null : bySql.get(sql);
+        return template == null ? null : template.name;
+    }
+
+    /**
+     * Все зарегистрированные шаблоны по имени
+     */
+    public static List<SqlTemplate> all() {
+        List<SqlTemplate> list = new ArrayList<>(byName.values());
+        list.sort(Comparator.comparing(SqlTemplate::getName));
+        return list;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
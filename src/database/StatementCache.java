@@ -0,0 +1,183 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш PreparedStatement одного физического соединения (LRU по тексту запроса).
+ *
+ * prepareStatement() с тем же текстом возвращает уже подготовленное выражение: драйвер не
+ * готовит запрос на сервере заново. close() у выданного выражения не закрывает его, а сбрасывает
+ * параметры и возвращает в кэш. Если выражение с этим текстом сейчас занято (вложенный запрос
+ * на том же соединении), выдаётся обычное некэшируемое.
+ */
+class StatementCache {
+
+    // Общие для всех соединений счётчики (для метрик пула)
+    static final AtomicLong hits = new AtomicLong();
+    static final AtomicLong misses = new AtomicLong();
+
+    private record Key(String sql, int autoGeneratedKeys) {}
+
+    private static class Cached {
+        final PreparedStatement physical;
+        boolean inUse;
+        boolean evicted;
+
+        Cached(PreparedStatement physical) {
+            this.physical = physical;
+        }
+    }
+
+    private final Connection connection;
+    private final Map<Key, Cached> statements;
+
+    StatementCache(Connection connection, int capacity) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+                if (size() <= capacity) return false;
+                Cached cached = eldest.getValue();
+                if (cached.inUse) {
+                    // Закроется при возврате
+                    cached.evicted = true;
+                } else {
+                    closeQuietly(cached.physical);
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS / NO_GENERATED_KEYS или -1 для prepareStatement(sql)
+     */
+    synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        Cached cached = statements.get(key);
+        if (cached != null && cached.inUse) {
+            misses.incrementAndGet();
+            return prepareDirect(sql, autoGeneratedKeys);
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            cached = new Cached(prepareDirect(sql, autoGeneratedKeys));
+            statements.put(key, cached);
+        }
+        cached.inUse = true;
+        return (PreparedStatement) Proxy.newProxyInstance(
+                StatementCache.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new Lease(key, cached));
+    }
+
+    private PreparedStatement prepareDirect(String sql, int autoGeneratedKeys) throws SQLException {
+        return autoGeneratedKeys < 0
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    /**
+     * Вернуть выражение в кэш: закрыть открытый ResultSet, сбросить параметры и пакет.
+     * Если сброс не удался — выражение выбрасывается из кэша.
+     */
+    private synchronized void giveBack(Key key, Cached cached) {
+        cached.inUse = false;
+        if (cached.evicted) {
+            closeQuietly(cached.physical);
+            return;
+        }
+        try {
+            ResultSet rs = cached.physical.getResultSet();
+            if (rs != null) {
+                rs.close();
+            }
+            cached.physical.clearParameters();
+            cached.physical.clearBatch();
+            cached.physical.clearWarnings();
+        } catch (SQLException e) {
+            statements.remove(key, cached);
+            closeQuietly(cached.physical);
+        }
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * Закрыть все выражения (перед закрытием физического соединения)
+     */
+    synchronized void closeAll() {
+        Iterator<Cached> it = statements.values().iterator();
+        while (it.hasNext()) {
+            closeQuietly(it.next().physical);
+            it.remove();
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // Соединение уже разорвано
+        }
+    }
+
+    /**
+     * Выданное вызывающему коду кэшированное выражение: close() возвращает его в кэш
+     */
+    private class Lease implements InvocationHandler {
+        private final Key key;
+        private final Cached cached;
+        private boolean closed;
+
+        Lease(Key key, Cached cached) {
+            this.key = key;
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        giveBack(key, cached);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || cached.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + key.sql() + "]";
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement уже закрыт");
+            }
+            try {
+                return method.invoke(cached.physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package models;
+
+/**
+ * Агрегаты для карточки автомобиля: рейтинг, комментарии и признак избранного
+ */
+public class CardStats {
+    public static final CardStats EMPTY = new CardStats(0.0, 0, 0, false);
+
+    private final double averageRating;
+    private final int ratingsCount;
+    private final int commentsCount;
+    private final boolean favorite;
+
+    public CardStats(double averageRating, int ratingsCount, int commentsCount, boolean favorite) {
+        this.averageRating = averageRating;
+        this.ratingsCount = ratingsCount;
+        this.commentsCount = commentsCount;
+        this.favorite = favorite;
+    }
+
+    public double getAverageRating() { return averageRating; }
+    public int getRatingsCount() { return ratingsCount; }
+    public int getCommentsCount() { return commentsCount; }
+    public boolean isFavorite() { return favorite; }
+
+    public CardStats withFavorite(boolean favorite) {
+        return new CardStats(averageRating, ratingsCount, commentsCount, favorite);
+    }
+}
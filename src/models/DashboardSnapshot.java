@@ -0,0 +1,84 @@
+package models;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Все показатели экрана статистики на один момент времени.
+ * Считается одним пакетом запросов (StatisticsService.getDashboardSnapshot).
+ *
+ * @param mostExpensive самый дорогой автомобиль (null — каталог пуст)
+ * @param cheapest      самый дешёвый автомобиль (null — каталог пуст)
+ * @param topBrands     бренды по убыванию количества автомобилей
+ * @param loadedAt      когда снимок был получен из базы
+ */
+public record DashboardSnapshot(
+        int totalCars,
+        double averagePrice,
+        double averageMileage,
+        Car mostExpensive,
+        Car cheapest,
+        Map<String, Integer> topBrands,
+        int totalUsers,
+        int totalAdmins,
+        int activeUsers,
+        int inactiveUsers,
+        int totalFavorites,
+        int totalReservations,
+        int totalPurchases,
+        int totalComments,
+        int totalRatings,
+        Instant loadedAt) {
+
+    /**
+     * Разделы снимка: каждый пересчитывается отдельно, когда меняются его данные
+     */
+    public enum Section { CARS, USERS, FAVORITES, ORDERS, FEEDBACK }
+
+    public static final DashboardSnapshot EMPTY = new DashboardSnapshot(
+            0, 0, 0, null, null, Map.of(), 0, 0, 0, 0, 0, 0, 0, 0, 0, Instant.EPOCH);
+
+    public DashboardSnapshot {
+        // Порядок брендов сохраняется, изменить карту снаружи нельзя
+        topBrands = topBrands == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(topBrands));
+    }
+
+    public DashboardSnapshot withCars(int totalCars, double averagePrice, double averageMileage,
+                                      Car mostExpensive, Car cheapest, Map<String, Integer> topBrands) {
+        return new DashboardSnapshot(totalCars, averagePrice, averageMileage, mostExpensive, cheapest, topBrands,
+                totalUsers, totalAdmins, activeUsers, inactiveUsers,
+                totalFavorites, totalReservations, totalPurchases, totalComments, totalRatings, loadedAt);
+    }
+
+    public DashboardSnapshot withUsers(int totalUsers, int totalAdmins, int activeUsers, int inactiveUsers) {
+        return new DashboardSnapshot(totalCars, averagePrice, averageMileage, mostExpensive, cheapest, topBrands,
+                totalUsers, totalAdmins, activeUsers, inactiveUsers,
+                totalFavorites, totalReservations, totalPurchases, totalComments, totalRatings, loadedAt);
+    }
+
+    public DashboardSnapshot withFavorites(int totalFavorites) {
+        return new DashboardSnapshot(totalCars, averagePrice, averageMileage, mostExpensive, cheapest, topBrands,
+                totalUsers, totalAdmins, activeUsers, inactiveUsers,
+                totalFavorites, totalReservations, totalPurchases, totalComments, totalRatings, loadedAt);
+    }
+
+    public DashboardSnapshot withOrders(int totalReservations, int totalPurchases) {
+        return new DashboardSnapshot(totalCars, averagePrice, averageMileage, mostExpensive, cheapest, topBrands,
+                totalUsers, totalAdmins, activeUsers, inactiveUsers,
+                totalFavorites, totalReservations, totalPurchases, totalComments, totalRatings, loadedAt);
+    }
+
+    public DashboardSnapshot withFeedback(int totalComments, int totalRatings) {
+        return new DashboardSnapshot(totalCars, averagePrice, averageMileage, mostExpensive, cheapest, topBrands,
+                totalUsers, totalAdmins, activeUsers, inactiveUsers,
+                totalFavorites, totalReservations, totalPurchases, totalComments, totalRatings, loadedAt);
+    }
+
+    public DashboardSnapshot withLoadedAt(Instant loadedAt) {
+        return new DashboardSnapshot(totalCars, averagePrice, averageMileage, mostExpensive, cheapest, topBrands,
+                totalUsers, totalAdmins, activeUsers, inactiveUsers,
+                totalFavorites, totalReservations, totalPurchases, totalComments, totalRatings, loadedAt);
+    }
+}
@@ -0,0 +1,17 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Перестроение сетки карточек (CarHubController.updateCardsView)
+ */
+@Name("carhub.CardsRebuild")
+@Label("Перестроение карточек")
+@Category({"CarHub", "UI"})
+public class CardsRebuildEvent extends jdk.jfr.Event {
+
+    @Label("Автомобилей в списке")
+    public int cars;
+}
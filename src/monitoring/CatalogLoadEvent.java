@@ -0,0 +1,22 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Загрузка каталога (CarHubController.loadCarsFromDatabase): от вызова до показа первой страницы
+ */
+@Name("carhub.CatalogLoad")
+@Label("Загрузка каталога")
+@Category({"CarHub", "UI"})
+@Description("Первая страница каталога, бренды и годы для фильтров")
+public class CatalogLoadEvent extends jdk.jfr.Event {
+
+    @Label("Автомобилей на первой странице")
+    public int cars;
+
+    @Label("Успешно")
+    public boolean success;
+}
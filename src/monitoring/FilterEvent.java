@@ -0,0 +1,25 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Применение фильтров каталога (CarHubController.applyFilters)
+ */
+@Name("carhub.ApplyFilters")
+@Label("Применение фильтров")
+@Category({"CarHub", "UI"})
+public class FilterEvent extends jdk.jfr.Event {
+
+    @Label("Текст поиска")
+    public String search;
+
+    @Label("В базе")
+    @Description("Каталог загружен не полностью — фильтрация выполняется запросом к базе")
+    public boolean database;
+
+    @Label("Найдено")
+    public int matched;
+}
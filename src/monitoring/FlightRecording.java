@@ -0,0 +1,49 @@
+package monitoring;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import utils.LoggerUtil;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Запись JFR из приложения с профилем /resources/jfr/carhub.jfc.
+ *
+ * -Dcarhub.jfr=carhub.jfr включает кольцевую запись последних carhub.jfr.maxAgeMinutes
+ * (по умолчанию 30) минут, которая сохраняется в файл при выходе. Тот же профиль можно
+ * передать JVM напрямую: -XX:StartFlightRecording:settings=src/resources/jfr/carhub.jfc
+ */
+public class FlightRecording {
+
+    private static final String PROFILE = "/resources/jfr/carhub.jfc";
+
+    private static Recording recording;
+
+    public static synchronized void startIfRequested() {
+        String file = System.getProperty("carhub.jfr");
+        if (file == null || file.isBlank() || recording != null) return;
+
+        try (InputStream in = FlightRecording.class.getResourceAsStream(PROFILE)) {
+            if (in == null) {
+                LoggerUtil.warning("Профиль JFR не найден: " + PROFILE);
+                return;
+            }
+            Configuration configuration = Configuration.create(new InputStreamReader(in, StandardCharsets.UTF_8));
+            Recording r = new Recording(configuration);
+            r.setName("CarHub");
+            r.setToDisk(true);
+            r.setMaxAge(Duration.ofMinutes(Long.getLong("carhub.jfr.maxAgeMinutes", 30)));
+            r.setDestination(Path.of(file));
+            r.setDumpOnExit(true);
+            r.start();
+            recording = r;
+            LoggerUtil.info("🎥 Запись JFR запущена: " + Path.of(file).toAbsolutePath());
+        } catch (Exception e) {
+            LoggerUtil.error("Не удалось запустить запись JFR", e);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package monitoring;
+
+import javafx.application.Platform;
+import utils.LatencyHistogram;
+import utils.LoggerUtil;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Сторож FX-потока: фоновый поток раз в 50 мс ставит в очередь FX пустую задачу (Platform.runLater)
+ * и ждёт её выполнения. Задержка выполнения — это время, на которое FX-поток был занят
+ * обработчиком, pulse (layout, CSS, отрисовка) или блокировкой.
+ *
+ * Если задача не выполнена дольше carhub.fx.stallMs (по умолчанию 250 мс), снимается стек
+ * FX-потока; место подвисания — код приложения и контроллер, из которого он вызван. Подвисания
+ * группируются по месту и пишутся в лог, отчёт открывается из статистики (админ).
+ */
+public class FxStallDetector {
+
+    private static final long POLL_MS = 50;
+    private static final long STALL_NANOS = TimeUnit.MILLISECONDS.toNanos(Long.getLong("carhub.fx.stallMs", 250));
+    private static final int STACK_DEPTH = 25;
+    private static final Pattern APP_PACKAGES = Pattern.compile("(services|catalog|database|utils|models)\\.");
+
+    // Задержка каждой проверки: распределение «отзывчивости» FX-потока
+    private static final LatencyHistogram heartbeat = new LatencyHistogram();
+    private static final Map<String, Stall> stalls = new ConcurrentHashMap<>();
+
+    private static ScheduledExecutorService watchdog;
+    private static volatile Thread fxThread;
+    private static volatile long pendingSince;
+    private static volatile Sample current;
+
+    /**
+     * Снимок стека, снятый во время подвисания; postedAt — проверка (pendingSince), к которой он относится
+     */
+    private record Sample(long postedAt, String location, List<StackTraceElement> stack) {}
+
+    /**
+     * Подвисания в одном месте
+     */
+    public static class Stall {
+        private final String location;
+        private final LatencyHistogram duration = new LatencyHistogram();
+        private volatile List<StackTraceElement> stack;
+        private volatile LocalDateTime lastSeen;
+
+        Stall(String location) {
+            this.location = location;
+        }
+
+        public String getLocation() { return location; }
+        public LatencyHistogram getDuration() { return duration; }
+        public List<StackTraceElement> getStack() { return stack; }
+        public LocalDateTime getLastSeen() { return lastSeen; }
+    }
+
+    /**
+     * Запустить сторож (из FX-потока, после старта приложения). Повторный вызов ничего не делает.
+     * -Dcarhub.fx.stallMs=0 отключает его.
+     */
+    public static synchronized void start() {
+        if (watchdog != null || STALL_NANOS <= 0) return;
+        fxThread = Thread.currentThread();
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "carhub-fx-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        watchdog.scheduleWithFixedDelay(FxStallDetector::check, POLL_MS, POLL_MS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (!stalls.isEmpty()) {
+                LoggerUtil.info(getSummary());
+            }
+        }));
+        LoggerUtil.info("Сторож FX-потока запущен (порог " + TimeUnit.NANOSECONDS.toMillis(STALL_NANOS) + " мс)");
+    }
+
+    private static void check() {
+        long now = System.nanoTime();
+        long posted = pendingSince;
+        if (posted == 0) {
+            pendingSince = now;
+            Platform.runLater(() -> acknowledge(now));
+        } else if (now - posted > STALL_NANOS) {
+            Sample taken = current;
+            if (taken == null || taken.postedAt() != posted) {
+                // FX-поток всё ещё занят — смотрим, чем
+                current = sample(posted);
+            }
+        }
+    }
+
+    /**
+     * Выполняется в FX-потоке: проверка дошла, подвисание (если было) закончилось
+     */
+    private static void acknowledge(long postedAt) {
+        long latency = System.nanoTime() - postedAt;
+        heartbeat.recordNanos(latency);
+        Sample sample = current;
+        current = null;
+        pendingSince = 0;
+        // Снимок мог быть дописан сторожем уже после подтверждения предыдущей проверки —
+        // он относится к другой проверке и к этой задержке отношения не имеет
+        if (sample != null && sample.postedAt() == postedAt) {
+            record(sample, latency);
+        }
+    }
+
+    private static Sample sample(long postedAt) {
+        Thread thread = fxThread;
+        StackTraceElement[] frames = thread.getStackTrace();
+        List<StackTraceElement> stack = new ArrayList<>();
+        for (int i = 0; i < Math.min(STACK_DEPTH, frames.length); i++) {
+            stack.add(frames[i]);
+        }
+        return new Sample(postedAt, locate(frames), stack);
+    }
+
+    /**
+     * Место подвисания: верхний кадр кода приложения и контроллер (или view), из которого
+     * он вызван — например "ImageCache.getImage ← CarDetailsController.loadPhotoGallery"
+     */
+    private static String locate(StackTraceElement[] frames) {
+        String top = null;
+        for (StackTraceElement frame : frames) {
+            String cls = frame.getClassName();
+            boolean ui = cls.startsWith("controllers.") || cls.startsWith("views.");
+            if (!ui && !APP_PACKAGES.matcher(cls).lookingAt()) continue;
+
+            String name = shortName(frame);
+            if (ui) {
+                return top == null || top.equals(name) ? name : top + " ← " + name;
+            }
+            if (top == null) {
+                top = name;
+            }
+        }
+        if (top != null) return top;
+        // Кода приложения в стеке нет: layout, CSS, отрисовка
+        return frames.length > 0 ? "JavaFX: " + shortName(frames[0]) : "неизвестно";
+    }
+
+    private static String shortName(StackTraceElement frame) {
+        String cls = frame.getClassName();
+        String simple = cls.substring(cls.lastIndexOf('.') + 1);
+        int nested = simple.indexOf('$');
+        return (nested > 0 ? simple.substring(0, nested) : simple) + "." + frame.getMethodName();
+    }
+
+    private static void record(Sample sample, long nanos) {
+        Stall stall = stalls.computeIfAbsent(sample.location(), Stall::new);
+        stall.duration.recordNanos(nanos);
+        stall.stack = sample.stack();
+        stall.lastSeen = LocalDateTime.now();
+
+        StringBuilder sb = new StringBuilder("🧊 FX-поток занят ")
+                .append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" мс: ").append(sample.location());
+        for (int i = 0; i < Math.min(8, sample.stack().size()); i++) {
+            sb.append(System.lineSeparator()).append("      at ").append(sample.stack().get(i));
+        }
+        LoggerUtil.warning(sb.toString());
+
+        FxStallEvent event = new FxStallEvent();
+        if (event.shouldCommit()) {
+            event.location = sample.location();
+            event.stallDuration = TimeUnit.NANOSECONDS.toMillis(nanos);
+            event.commit();
+        }
+    }
+
+    /**
+     * Места подвисаний, от самых затратных (суммарное время)
+     */
+    public static List<Stall> getStalls() {
+        List<Stall> list = new ArrayList<>(stalls.values());
+        list.sort(Comparator.comparingDouble((Stall s) -> s.getDuration().getTotalMillis()).reversed());
+        return list;
+    }
+
+    public static LatencyHistogram getHeartbeat() {
+        return heartbeat;
+    }
+
+    public static boolean isRunning() {
+        return watchdog != null;
+    }
+
+    public static void reset() {
+        stalls.clear();
+        heartbeat.reset();
+    }
+
+    /**
+     * Сводка для лога
+     */
+    public static String getSummary() {
+        StringBuilder sb = new StringBuilder(String.format(
+                "🧊 Подвисания FX-потока: отклик p50 %.1f / p99 %.1f / макс %.1f мс",
+                heartbeat.getPercentileMillis(50), heartbeat.getPercentileMillis(99), heartbeat.getMaxMillis()));
+        for (Stall stall : getStalls()) {
+            LatencyHistogram d = stall.getDuration();
+            sb.append(System.lineSeparator()).append(String.format("   %d раз, всего %.0f мс, макс %.0f мс | %s",
+                    d.getCount(), d.getTotalMillis(), d.getMaxMillis(), stall.getLocation()));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,22 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Подвисание FX-потока, найденное FxStallDetector (записывается в момент, когда поток освободился)
+ */
+@Name("carhub.FxStall")
+@Label("Подвисание FX-потока")
+@Category({"CarHub", "UI"})
+public class FxStallEvent extends jdk.jfr.Event {
+
+    @Label("Место")
+    public String location;
+
+    @Label("Длительность")
+    @Timespan(Timespan.MILLISECONDS)
+    public long stallDuration;
+}
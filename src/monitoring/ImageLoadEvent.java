@@ -0,0 +1,36 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Загрузка и декодирование изображения (ImageCache.loadImage): от запроса до готовых пикселей.
+ * Загрузка фоновая, поэтому событие завершается в потоке, где JavaFX сообщил о готовности.
+ */
+@Name("carhub.ImageLoad")
+@Label("Загрузка изображения")
+@Category({"CarHub", "Images"})
+public class ImageLoadEvent extends jdk.jfr.Event {
+
+    @Label("URL")
+    public String url;
+
+    @Label("Запрошенная ширина")
+    public int requestedWidth;
+
+    @Label("Запрошенная высота")
+    public int requestedHeight;
+
+    @Label("Ширина")
+    public int width;
+
+    @Label("Высота")
+    public int height;
+
+    @Label("Из дискового кэша миниатюр")
+    public boolean thumbnail;
+
+    @Label("Ошибка")
+    public boolean error;
+}
@@ -0,0 +1,24 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Выполнение SQL через пул соединений (все *Service и контроллеры с запросами).
+ * Сервис и метод видны по стеку события.
+ */
+@Name("carhub.Query")
+@Label("SQL-запрос")
+@Category({"CarHub", "Data"})
+public class QueryEvent extends jdk.jfr.Event {
+
+    @Label("Шаблон SQL")
+    public String sql;
+
+    @Label("Изменено строк")
+    public long updated;
+
+    @Label("Ошибка")
+    public String error;
+}
@@ -0,0 +1,20 @@
+package monitoring;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Пересчёт снимка статистики (StatisticsCache.refresh)
+ */
+@Name("carhub.StatisticsRefresh")
+@Label("Пересчёт статистики")
+@Category({"CarHub", "Data"})
+public class StatisticsRefreshEvent extends jdk.jfr.Event {
+
+    @Label("Разделы")
+    public String sections;
+
+    @Label("Полный пересчёт")
+    public boolean full;
+}
@@ -1,7 +1,9 @@
 package services;
 
 import database.DatabaseConnection;
+import database.SqlTemplate;
 import models.CarImage;
+import utils.ImageCache;
 import utils.LoggerUtil;
 
 import java.sql.*;
@@ -13,15 +15,36 @@ import java.util.List;
  */
 public class CarImagesService {
 
+    private static final SqlTemplate IMAGES_BY_CAR = SqlTemplate.define("carImages.byCar",
+            "SELECT * FROM CarImages WHERE car_id = ? ORDER BY is_main DESC, display_order ASC");
+    private static final SqlTemplate MAIN_IMAGE = SqlTemplate.define("carImages.mainUrl",
+            "SELECT image_url FROM CarImages WHERE car_id = ? AND is_main = 1");
+    private static final SqlTemplate FIRST_IMAGE = SqlTemplate.define("carImages.firstUrl",
+            "SELECT TOP 1 image_url FROM CarImages WHERE car_id = ? ORDER BY display_order");
+    private static final SqlTemplate INSERT_IMAGE = SqlTemplate.define("carImages.insert",
+            "INSERT INTO CarImages (car_id, image_url, is_main, display_order) VALUES (?, ?, ?, ?)");
+    private static final SqlTemplate SET_MAIN = SqlTemplate.define("carImages.setMain",
+            "UPDATE CarImages SET is_main = 1 WHERE id = ?");
+    private static final SqlTemplate DELETE_IMAGE = SqlTemplate.define("carImages.delete",
+            "DELETE FROM CarImages WHERE id = ?");
+    private static final SqlTemplate RESET_MAIN = SqlTemplate.define("carImages.resetMain",
+            "UPDATE CarImages SET is_main = 0 WHERE car_id = ?");
+    private static final SqlTemplate NEXT_ORDER = SqlTemplate.define("carImages.nextOrder",
+            "SELECT ISNULL(MAX(display_order), 0) + 1 AS next_order FROM CarImages WHERE car_id = ?");
+    private static final SqlTemplate CAR_ID_BY_IMAGE = SqlTemplate.define("carImages.carIdById",
+            "SELECT car_id FROM CarImages WHERE id = ?");
+    private static final SqlTemplate URL_BY_ID = SqlTemplate.define("carImages.urlById",
+            "SELECT image_url FROM CarImages WHERE id = ?");
+    private static final SqlTemplate COUNT_BY_CAR = SqlTemplate.define("carImages.countByCar",
+            "SELECT COUNT(*) AS cnt FROM CarImages WHERE car_id = ?");
+
     /**
      * Получить все фото автомобиля
      */
     public static List<CarImage> getCarImages(int carId) {
         List<CarImage> images = new ArrayList<>();
-        String sql = "SELECT * FROM CarImages WHERE car_id = ? ORDER BY is_main DESC, display_order ASC";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = IMAGES_BY_CAR.prepare(conn)) {
 
             stmt.setInt(1, carId);
             ResultSet rs = stmt.executeQuery();
@@ -51,36 +74,30 @@ public class CarImagesService {
      * Получить главное фото автомобиля
      */
     public static String getMainImage(int carId) {
-        String sql = "SELECT image_url FROM CarImages WHERE car_id = ? AND is_main = 1";
-
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, carId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getString("image_url");
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) return null;
+
+            try (PreparedStatement stmt = MAIN_IMAGE.prepare(conn)) {
+                stmt.setInt(1, carId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getString("image_url");
+                    }
+                }
             }
 
-        } catch (Exception e) {
-            LoggerUtil.error("Ошибка получения главного фото для автомобиля ID=" + carId, e);
-        }
-
-        // Если нет главного фото, вернуть первое доступное
-        sql = "SELECT TOP 1 image_url FROM CarImages WHERE car_id = ? ORDER BY display_order";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setInt(1, carId);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getString("image_url");
+            // Если нет главного фото, вернуть первое доступное (на том же соединении)
+            try (PreparedStatement stmt = FIRST_IMAGE.prepare(conn)) {
+                stmt.setInt(1, carId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getString("image_url");
+                    }
+                }
             }
 
         } catch (Exception e) {
-            LoggerUtil.error("Ошибка получения первого фото для автомобиля ID=" + carId, e);
+            LoggerUtil.error("Ошибка получения главного фото для автомобиля ID=" + carId, e);
         }
 
         return null;
@@ -95,10 +112,8 @@ public class CarImagesService {
             resetMainFlag(carId);
         }
 
-        String sql = "INSERT INTO CarImages (car_id, image_url, is_main, display_order) VALUES (?, ?, ?, ?)";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = INSERT_IMAGE.prepare(conn)) {
 
             // Получить следующий display_order
             int nextOrder = getNextDisplayOrder(carId);
@@ -111,6 +126,8 @@ public class CarImagesService {
             int rows = stmt.executeUpdate();
 
             if (rows > 0) {
+                // По этому URL могли остаться уменьшенные копии старого файла
+                ImageCache.invalidate(imageUrl);
                 LoggerUtil.action("Добавлено фото для автомобиля ID=" + carId + " (main=" + isMain + ")");
                 return true;
             }
@@ -134,15 +151,14 @@ public class CarImagesService {
         resetMainFlag(carId);
 
         // Установить флаг для выбранного фото
-        String sql = "UPDATE CarImages SET is_main = 1 WHERE id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = SET_MAIN.prepare(conn)) {
 
             stmt.setInt(1, imageId);
             int rows = stmt.executeUpdate();
 
             if (rows > 0) {
+                ImageCache.invalidate(getImageUrlById(imageId));
                 LoggerUtil.action("Установлено главное фото ID=" + imageId);
                 return true;
             }
@@ -158,15 +174,15 @@ public class CarImagesService {
      * Удалить фото
      */
     public static boolean deleteImage(int imageId) {
-        String sql = "DELETE FROM CarImages WHERE id = ?";
-
+        String imageUrl = getImageUrlById(imageId);
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = DELETE_IMAGE.prepare(conn)) {
 
             stmt.setInt(1, imageId);
             int rows = stmt.executeUpdate();
 
             if (rows > 0) {
+                ImageCache.invalidate(imageUrl);
                 LoggerUtil.action("Удалено фото ID=" + imageId);
                 return true;
             }
@@ -182,10 +198,8 @@ public class CarImagesService {
      * Сбросить флаг главного фото у всех фото автомобиля
      */
     private static void resetMainFlag(int carId) {
-        String sql = "UPDATE CarImages SET is_main = 0 WHERE car_id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = RESET_MAIN.prepare(conn)) {
 
             stmt.setInt(1, carId);
             stmt.executeUpdate();
@@ -199,10 +213,8 @@ public class CarImagesService {
      * Получить следующий порядок отображения
      */
     private static int getNextDisplayOrder(int carId) {
-        String sql = "SELECT ISNULL(MAX(display_order), 0) + 1 AS next_order FROM CarImages WHERE car_id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = NEXT_ORDER.prepare(conn)) {
 
             stmt.setInt(1, carId);
             ResultSet rs = stmt.executeQuery();
@@ -222,10 +234,8 @@ public class CarImagesService {
      * Получить car_id по image_id
      */
     private static int getCarIdByImageId(int imageId) {
-        String sql = "SELECT car_id FROM CarImages WHERE id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = CAR_ID_BY_IMAGE.prepare(conn)) {
 
             stmt.setInt(1, imageId);
             ResultSet rs = stmt.executeQuery();
@@ -241,14 +251,33 @@ public class CarImagesService {
         return -1;
     }
 
+    /**
+     * Получить URL фото по image_id
+     */
+    private static String getImageUrlById(int imageId) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement stmt = URL_BY_ID.prepare(conn)) {
+
+            stmt.setInt(1, imageId);
+            ResultSet rs = stmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getString("image_url");
+            }
+
+        } catch (Exception e) {
+            LoggerUtil.error("Ошибка получения URL для фото ID=" + imageId, e);
+        }
+
+        return null;
+    }
+
     /**
      * Получить количество фото автомобиля
      */
     public static int getImagesCount(int carId) {
-        String sql = "SELECT COUNT(*) AS cnt FROM CarImages WHERE car_id = ?";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = COUNT_BY_CAR.prepare(conn)) {
 
             stmt.setInt(1, carId);
             ResultSet rs = stmt.executeQuery();
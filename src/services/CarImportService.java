@@ -0,0 +1,378 @@
+package services;
+
+import database.DatabaseConnection;
+import database.SqlTemplate;
+import models.DashboardSnapshot.Section;
+import utils.CsvReader;
+import utils.LoggerUtil;
+import utils.ValidationUtil;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Пакетный импорт автомобилей из CSV — обратная операция к ExportUtil.exportCarsToCSV.
+ *
+ * Файл читается потоково (CsvReader) порциями по carhub.import.chunkSize строк (по умолчанию 500):
+ * порция проверяется параллельно по правилам формы (ValidationUtil.validateCar) и пишется одним
+ * JDBC-пакетом в отдельной транзакции. Если пакет отклонён базой, порция откатывается и строки
+ * вставляются по одной, чтобы отделить ошибочные. В памяти — только текущая порция.
+ *
+ * Отклонённые строки сохраняются рядом с исходным файлом в <имя>.rejected.csv: исходные поля,
+ * номер строки и причина.
+ */
+public class CarImportService {
+
+    private static final int CHUNK_SIZE = Math.max(1, Integer.getInteger("carhub.import.chunkSize", 500));
+
+    private static final String INSERT_COLUMNS = "name, model, price, brand, year, mileage, description";
+    private static final SqlTemplate INSERT_CAR = SqlTemplate.define("cars.import",
+            "INSERT INTO Cars (" + INSERT_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)");
+    private static final SqlTemplate CARS_COLUMNS = SqlTemplate.define("cars.columns",
+            "SELECT TOP 0 * FROM Cars");
+
+    // Цена из старых выгрузок в русской локали: "%.2f" давал запятую без кавычек
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern CENTS = Pattern.compile("\\d{2}");
+
+    /**
+     * Колонки файла (заголовки выгрузки и английские варианты)
+     */
+    private enum Column {
+        ID("id"),
+        NAME("название", "name"),
+        MODEL("модель", "model"),
+        PRICE("цена", "price"),
+        BRAND("бренд", "марка", "brand"),
+        YEAR("год", "year"),
+        MILEAGE("пробег", "mileage"),
+        DESCRIPTION("описание", "description"),
+        PHOTO("фото", "photo", "image", "imageurl", "image_url");
+
+        private final String[] aliases;
+
+        Column(String... aliases) {
+            this.aliases = aliases;
+        }
+
+        static Column of(String header) {
+            String h = header.trim().toLowerCase(Locale.ROOT);
+            for (Column column : values()) {
+                for (String alias : column.aliases) {
+                    if (alias.equals(h)) return column;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Ход импорта (после каждой порции)
+     */
+    public record Progress(long bytesRead, long totalBytes, int rows, int imported, int rejected) {
+        public double fraction() {
+            return totalBytes <= 0 ? 0 : Math.min(1.0, (double) bytesRead / totalBytes);
+        }
+    }
+
+    /**
+     * Итог импорта. rejectedFile — null, если отклонённых строк нет.
+     */
+    public record Result(int rows, int imported, int rejected, File rejectedFile, boolean cancelled) {}
+
+    /**
+     * Строка файла: исходные поля, нормализованные значения и причина отказа
+     */
+    private static class Row {
+        final long line;
+        final List<String> fields;
+        String name, model, priceText, brand, yearText, mileageText, description, photo;
+        String error;
+
+        Row(long line, List<String> fields) {
+            this.line = line;
+            this.fields = fields;
+        }
+
+        void validate() {
+            if (error == null) {
+                error = ValidationUtil.validateCar(name, model, priceText, brand, yearText, mileageText, description);
+            }
+        }
+    }
+
+    /**
+     * Импортировать файл. Вызывать в фоновом потоке.
+     *
+     * @param onProgress получает ход импорта после каждой порции (в потоке импорта)
+     * @param cancelled  проверяется между порциями; уже записанные порции остаются в базе
+     */
+    public static Result importCars(File file, Consumer<Progress> onProgress, BooleanSupplier cancelled)
+            throws IOException, SQLException {
+        File rejectedFile = rejectedFileFor(file);
+        Files.deleteIfExists(rejectedFile.toPath());
+
+        int rows = 0, imported = 0, rejected = 0;
+        boolean stopped = false;
+        long started = System.currentTimeMillis();
+
+        try (CsvReader reader = CsvReader.open(file);
+             RejectedWriter rejects = new RejectedWriter(rejectedFile)) {
+
+            List<String> header = reader.next();
+            if (header == null) {
+                throw new IOException("Файл пуст");
+            }
+            Map<Column, Integer> columns = mapHeader(header);
+            rejects.header = header;
+            String imageColumn = columns.containsKey(Column.PHOTO) ? findImageColumn() : null;
+            SqlTemplate insert = imageColumn == null ? INSERT_CAR : SqlTemplate.variant("cars.import",
+                    "INSERT INTO Cars (" + INSERT_COLUMNS + ", " + imageColumn + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+
+            List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (true) {
+                if (cancelled.getAsBoolean()) {
+                    stopped = true;
+                    break;
+                }
+                chunk.clear();
+                List<String> fields;
+                while (chunk.size() < CHUNK_SIZE && (fields = reader.next()) != null) {
+                    chunk.add(toRow(reader.getRecordLine(), fields, header.size(), columns));
+                }
+                if (chunk.isEmpty()) break;
+
+                chunk.parallelStream().forEach(Row::validate);
+                imported += writeChunk(chunk, insert, imageColumn != null);
+
+                for (Row row : chunk) {
+                    if (row.error != null) {
+                        rejects.write(row);
+                        rejected++;
+                    }
+                }
+                rows += chunk.size();
+                onProgress.accept(new Progress(reader.getBytesRead(), reader.getTotalBytes(), rows, imported, rejected));
+            }
+        } finally {
+            if (imported > 0) {
+                StatisticsCache.invalidate(Section.CARS);
+            }
+        }
+
+        LoggerUtil.action("Импорт CSV " + file.getName() + ": строк " + rows + ", добавлено " + imported
+                + ", отклонено " + rejected + (stopped ? " (прерван)" : "")
+                + " за " + (System.currentTimeMillis() - started) + " мс");
+        return new Result(rows, imported, rejected, rejected > 0 ? rejectedFile : null, stopped);
+    }
+
+    /**
+     * Номера колонок по заголовку; без названия, модели и цены импорт невозможен
+     */
+    private static Map<Column, Integer> mapHeader(List<String> header) throws IOException {
+        Map<Column, Integer> columns = new EnumMap<>(Column.class);
+        for (int i = 0; i < header.size(); i++) {
+            Column column = Column.of(header.get(i));
+            if (column != null) columns.putIfAbsent(column, i);
+        }
+        List<String> missing = new ArrayList<>();
+        if (!columns.containsKey(Column.NAME)) missing.add("Название");
+        if (!columns.containsKey(Column.MODEL)) missing.add("Модель");
+        if (!columns.containsKey(Column.PRICE)) missing.add("Цена");
+        if (!missing.isEmpty()) {
+            throw new IOException("В заголовке нет колонок: " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private static Row toRow(long line, List<String> fields, int headerSize, Map<Column, Integer> columns) {
+        Row row = new Row(line, fields);
+        List<String> values = fields;
+
+        int price = columns.get(Column.PRICE);
+        if (values.size() == headerSize + 1 && price + 1 < values.size()
+                && DIGITS.matcher(values.get(price).trim()).matches()
+                && CENTS.matcher(values.get(price + 1).trim()).matches()) {
+            // "1500000,00" без кавычек разбит на два поля — склеиваем обратно
+            values = new ArrayList<>(fields);
+            values.set(price, values.get(price).trim() + "." + values.remove(price + 1).trim());
+        }
+        if (values.size() != headerSize) {
+            row.error = "❌ Ожидалось полей: " + headerSize + ", получено: " + values.size();
+            return row;
+        }
+
+        row.name = text(values, columns, Column.NAME);
+        row.model = text(values, columns, Column.MODEL);
+        row.priceText = number(text(values, columns, Column.PRICE), true);
+        row.brand = text(values, columns, Column.BRAND);
+        row.yearText = number(text(values, columns, Column.YEAR), false);
+        row.mileageText = number(text(values, columns, Column.MILEAGE), false);
+        row.description = text(values, columns, Column.DESCRIPTION);
+        row.photo = text(values, columns, Column.PHOTO);
+        return row;
+    }
+
+    private static String text(List<String> values, Map<Column, Integer> columns, Column column) {
+        Integer index = columns.get(column);
+        if (index == null) return null;
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Число в записи Excel: пробелы и неразрывные пробелы между разрядами, знак ₸, запятая в дробной части
+     */
+    private static String number(String value, boolean decimal) {
+        if (value == null) return null;
+        String cleaned = value.replace(" ", "").replace("\u00A0", "").replace("\u202F", "").replace("₸", "");
+        return decimal ? cleaned.replace(',', '.') : cleaned;
+    }
+
+    /**
+     * Колонка старой схемы для фото в Cars (imageUrl/image_url) или null, если её нет
+     */
+    private static String findImageColumn() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("Нет подключения к базе данных");
+            try (PreparedStatement stmt = CARS_COLUMNS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                for (int i = 1; i <= meta.getColumnCount(); i++) {
+                    String col = meta.getColumnLabel(i);
+                    if (col.equalsIgnoreCase("imageUrl")) return "imageUrl";
+                    if (col.equalsIgnoreCase("image_url")) return "image_url";
+                }
+            }
+        }
+        LoggerUtil.warning("Импорт CSV: в Cars нет колонки для фото, колонка «Фото» пропускается");
+        return null;
+    }
+
+    /**
+     * Записать проверенные строки порции одним пакетом в своей транзакции.
+     * Соединение берётся на порцию, а не на весь файл: импорт не держит его дольше порога утечки пула.
+     *
+     * @return сколько строк добавлено
+     */
+    private static int writeChunk(List<Row> chunk, SqlTemplate insert, boolean withImage) throws SQLException {
+        List<Row> valid = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (row.error == null) valid.add(row);
+        }
+        if (valid.isEmpty()) return 0;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) throw new SQLException("Нет подключения к базе данных");
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = insert.prepare(conn)) {
+                for (Row row : valid) {
+                    bind(stmt, row, withImage);
+                    stmt.addBatch();
+                }
+                stmt.executeBatch();
+                conn.commit();
+                return valid.size();
+            } catch (SQLException e) {
+                conn.rollback();
+                LoggerUtil.warning("Импорт CSV: пакет строк " + valid.get(0).line + "–" + valid.get(valid.size() - 1).line
+                        + " отклонён (" + e.getMessage() + "), вставка по одной");
+            }
+
+            // По одной строке: ошибочные отклоняются, остальные записываются
+            conn.setAutoCommit(true);
+            int inserted = 0;
+            try (PreparedStatement stmt = insert.prepare(conn)) {
+                for (Row row : valid) {
+                    try {
+                        bind(stmt, row, withImage);
+                        stmt.executeUpdate();
+                        inserted++;
+                    } catch (SQLException e) {
+                        // Сообщение драйвера может быть многострочным (с текстом запроса)
+                        row.error = "❌ Ошибка базы: " + String.valueOf(e.getMessage()).replaceAll("\\s*\\R\\s*", " ");
+                    }
+                }
+            }
+            return inserted;
+        }
+    }
+
+    private static void bind(PreparedStatement stmt, Row row, boolean withImage) throws SQLException {
+        stmt.setString(1, row.name.trim());
+        stmt.setString(2, row.model.trim());
+        stmt.setDouble(3, Double.parseDouble(row.priceText));
+        stmt.setString(4, row.brand);
+        if (row.yearText == null) stmt.setNull(5, Types.INTEGER); else stmt.setInt(5, Integer.parseInt(row.yearText));
+        if (row.mileageText == null) stmt.setNull(6, Types.INTEGER); else stmt.setInt(6, Integer.parseInt(row.mileageText));
+        stmt.setString(7, row.description);
+        if (withImage) stmt.setString(8, row.photo);
+    }
+
+    /**
+     * Файл отклонённых строк: <имя>.rejected.csv рядом с исходным
+     */
+    public static File rejectedFileFor(File file) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        return new File(file.getAbsoluteFile().getParentFile(), base + ".rejected.csv");
+    }
+
+    /**
+     * Запись отклонённых строк; файл создаётся при первой отклонённой строке
+     */
+    private static class RejectedWriter implements AutoCloseable {
+        private final File file;
+        private List<String> header;
+        private BufferedWriter writer;
+
+        RejectedWriter(File file) {
+            this.file = file;
+        }
+
+        void write(Row row) throws IOException {
+            if (writer == null) {
+                writer = new BufferedWriter(new OutputStreamWriter(
+                        Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8));
+                writer.write('\ufeff');
+                List<String> columns = new ArrayList<>(header);
+                columns.add("Строка");
+                columns.add("Ошибка");
+                writeLine(columns);
+            }
+            List<String> values = new ArrayList<>(row.fields);
+            values.add(String.valueOf(row.line));
+            values.add(row.error);
+            writeLine(values);
+        }
+
+        private void writeLine(List<String> values) throws IOException {
+            for (int i = 0; i < values.size(); i++) {
+                if (i > 0) writer.write(',');
+                writer.write('"');
+                writer.write(values.get(i).replace("\"", "\"\""));
+                writer.write('"');
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) writer.close();
+        }
+    }
+}
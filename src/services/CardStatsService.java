@@ -0,0 +1,36 @@
+package services;
+
+import models.CardStats;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Пакетная загрузка агрегатов для карточек каталога.
+ * Рейтинг и счётчики берутся из RatingAggregates, избранное — из набора сессии FavoritesService,
+ * запросов к базе на карточку нет.
+ */
+public class CardStatsService {
+
+    /**
+     * Получить рейтинг, количество оценок/комментариев и признак избранного для набора авто
+     *
+     * @param carIds id автомобилей
+     * @param userId текущий пользователь (<= 0 — гость, избранное не загружается)
+     * @return агрегаты по id автомобиля; для каждого запрошенного id есть запись
+     */
+    public static Map<Integer, CardStats> loadFor(Collection<Integer> carIds, int userId) {
+        Map<Integer, CardStats> result = new HashMap<>();
+        if (carIds == null || carIds.isEmpty()) return result;
+
+        for (Integer id : carIds) {
+            result.put(id, new CardStats(
+                    RatingAggregates.getAverageRating(id),
+                    RatingAggregates.getRatingsCount(id),
+                    RatingAggregates.getCommentsCount(id),
+                    userId > 0 && FavoritesService.isFavorite(userId, id)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,327 @@
+package services;
+
+import catalog.CatalogQuery;
+import catalog.RangeIndex;
+import database.DatabaseConnection;
+import database.SqlTemplate;
+import models.Car;
+import utils.LoggerUtil;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сервис для загрузки каталога автомобилей
+ */
+public class CarsService {
+
+    /**
+     * Главное фото подтягивается тем же запросом: сначала is_main = 1,
+     * иначе фото с наименьшим display_order. Коррелированный подзапрос вместо OUTER APPLY —
+     * его разбирает и SQL Server, и H2 в режиме MSSQLServer (бенчмарки)
+     */
+    static final String MAIN_IMAGE_URL =
+            "(SELECT TOP 1 ci.image_url FROM CarImages ci " +
+            "WHERE ci.car_id = c.id " +
+            "ORDER BY ci.is_main DESC, ci.display_order ASC, ci.id ASC) AS main_image_url";
+
+    // Разделители слов в названиях, которые поиск в базе приравнивает к пробелу
+    private static final String WORD_SEPARATORS = "-/()[],;:+&_\"";
+
+    private static final SqlTemplate CATALOG = SqlTemplate.define("cars.catalog",
+            "SELECT c.*, " + MAIN_IMAGE_URL + " FROM Cars c ORDER BY c.id");
+    private static final SqlTemplate CATALOG_WITHOUT_IMAGES = SqlTemplate.define("cars.catalogWithoutImages",
+            "SELECT * FROM Cars ORDER BY id");
+    private static final SqlTemplate BRANDS = SqlTemplate.define("cars.brands",
+            "SELECT DISTINCT brand FROM Cars WHERE brand IS NOT NULL AND brand <> '' ORDER BY brand");
+    private static final SqlTemplate YEARS = SqlTemplate.define("cars.years",
+            "SELECT DISTINCT year FROM Cars WHERE year IS NOT NULL ORDER BY year");
+
+    /**
+     * Получить все автомобили вместе с главным фото (один запрос вместо N+1)
+     *
+     * @throws SQLException если нет подключения к базе или запрос не выполнен
+     */
+    public static List<Car> getAllCars() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                throw new SQLException("Нет подключения к базе данных");
+            }
+
+            try {
+                return queryPage(conn, CATALOG, List.of());
+            } catch (SQLException e) {
+                if (!isMissingTable(e)) throw e;
+                // Таблицы CarImages нет — загружаем без фото из галереи
+                LoggerUtil.warning("Каталог загружен без CarImages: " + e.getMessage());
+                return queryPage(conn, CATALOG_WITHOUT_IMAGES, List.of());
+            }
+        }
+    }
+
+    /**
+     * Одна страница каталога по запросу: фильтры и сортировка выполняются в базе,
+     * страница начинается сразу после автомобиля after (keyset, без OFFSET)
+     *
+     * @param after последний автомобиль предыдущей страницы (null — первая страница)
+     * @throws SQLException если нет подключения к базе или запрос не выполнен
+     */
+    public static List<Car> getCarsPage(CatalogQuery query, Car after, int limit) throws SQLException {
+        List<Object> params = new ArrayList<>();
+        String where = pageWhere(query, after, params);
+        String tail = where + "ORDER BY " + orderBy(query) + " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+        params.add(limit);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                throw new SQLException("Нет подключения к базе данных");
+            }
+
+            try {
+                return queryPage(conn, SqlTemplate.variant("cars.page",
+                        "SELECT c.*, " + MAIN_IMAGE_URL + " FROM Cars c " + tail), params);
+            } catch (SQLException e) {
+                // Таблицы CarImages может не быть — загружаем без фото из галереи.
+                // Таймаут, взаимоблокировка или обрыв соединения — ошибка, а не повод повторить запрос
+                if (!isMissingTable(e)) throw e;
+                LoggerUtil.warning("Страница каталога загружена без CarImages: " + e.getMessage());
+                return queryPage(conn, SqlTemplate.variant("cars.pageWithoutImages", "SELECT c.* FROM Cars c " + tail), params);
+            }
+        }
+    }
+
+    /**
+     * Все бренды каталога по алфавиту (для списка фильтра, пока каталог загружен не полностью)
+     */
+    public static List<String> getBrands() {
+        List<String> brands = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) return brands;
+
+            try (PreparedStatement stmt = BRANDS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    brands.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            LoggerUtil.warning("Не удалось получить список брендов: " + e.getMessage());
+        }
+        return brands;
+    }
+
+    /**
+     * Все годы выпуска каталога по возрастанию
+     */
+    public static List<Integer> getYears() {
+        List<Integer> years = new ArrayList<>();
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) return years;
+
+            try (PreparedStatement stmt = YEARS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    years.add(rs.getInt(1));
+                }
+            }
+        } catch (SQLException e) {
+            LoggerUtil.warning("Не удалось получить список годов: " + e.getMessage());
+        }
+        return years;
+    }
+
+    /**
+     * Ошибка «объект не найден» (208 в SQL Server, 42S02 в H2) — в старой базе нет таблицы CarImages
+     */
+    private static boolean isMissingTable(SQLException e) {
+        return e.getErrorCode() == 208 || "S0002".equals(e.getSQLState()) || "42S02".equals(e.getSQLState());
+    }
+
+    private static List<Car> queryPage(Connection conn, SqlTemplate template, List<Object> params) throws SQLException {
+        try (PreparedStatement stmt = template.prepare(conn)) {
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                return readCars(rs);
+            }
+        }
+    }
+
+    /**
+     * Условия WHERE: фильтры запроса и продолжение после предыдущей страницы
+     */
+    private static String pageWhere(CatalogQuery query, Car after, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+
+        // Слово запроса — префикс любого слова названия, модели или бренда
+        for (String term : query.terms()) {
+            StringBuilder any = new StringBuilder("(");
+            for (String column : new String[]{"c.name", "c.model", "c.brand"}) {
+                any.append(words(column)).append(" LIKE ? OR ");
+                params.add("% " + term + "%");
+            }
+            any.append("CAST(c.price AS VARCHAR(32)) LIKE ?)");
+            params.add(term + "%");
+            conditions.add(any.toString());
+        }
+
+        if (query.brand() != null) {
+            conditions.add("LOWER(c.brand) = ?");
+            params.add(query.brand().toLowerCase());
+        }
+        if (query.minPrice() != null) {
+            conditions.add("c.price >= ?");
+            params.add(query.minPrice());
+        }
+        if (query.maxPrice() != null) {
+            conditions.add("c.price <= ?");
+            params.add(query.maxPrice());
+        }
+        if (query.hasYearFilter()) {
+            StringBuilder year = new StringBuilder("(");
+            year.append(query.minYear() != null ? "c.year >= ?" : "1 = 1");
+            if (query.minYear() != null) params.add(query.minYear());
+            if (query.maxYear() != null) {
+                year.append(" AND c.year <= ?");
+                params.add(query.maxYear());
+            }
+            if (query.includeNullYears()) year.append(" OR c.year IS NULL");
+            conditions.add(year.append(")").toString());
+        }
+
+        // Keyset: строго после (значение, id) последнего автомобиля; при убывании id по-прежнему растёт
+        if (after != null) {
+            if (query.sortField() == null) {
+                conditions.add("c.id > ?");
+                params.add(after.getId());
+            } else {
+                String key = sortKey(query.sortField());
+                double value = sortValue(after, query.sortField());
+                conditions.add("(" + key + (query.ascending() ? " > ?" : " < ?") + " OR (" + key + " = ? AND c.id > ?))");
+                params.add(value);
+                params.add(value);
+                params.add(after.getId());
+            }
+        }
+
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+    }
+
+    /**
+     * Текст колонки для поиска по началу слова: нижний регистр, разделители слов заменены пробелом
+     * и пробел добавлен в начало. Тогда "% term%" находит слово и в начале строки, и после "-", "(", "/":
+     * "cruiser" находит "Land-Cruiser" и "(Cruiser)", как SearchIndex, который делит текст на слова
+     * по любому символу, кроме букв и цифр. Точка не заменяется — в индексе она часть числа ("2.5")
+     */
+    private static String words(String column) {
+        String text = "LOWER(" + column + ")";
+        for (char separator : WORD_SEPARATORS.toCharArray()) {
+            text = "REPLACE(" + text + ", '" + separator + "', ' ')";
+        }
+        return "CONCAT(' ', " + text + ")";
+    }
+
+    private static String orderBy(CatalogQuery query) {
+        if (query.sortField() == null) return "c.id";
+        return sortKey(query.sortField()) + (query.ascending() ? " ASC" : " DESC") + ", c.id ASC";
+    }
+
+    // Пустые год и пробег сортируются как 0 — так же, как в RangeIndex
+    private static String sortKey(RangeIndex.Field field) {
+        switch (field) {
+            case PRICE:
+                return "c.price";
+            case YEAR:
+                return "COALESCE(c.year, 0)";
+            default:
+                return "COALESCE(c.mileage, 0)";
+        }
+    }
+
+    private static double sortValue(Car car, RangeIndex.Field field) {
+        switch (field) {
+            case PRICE:
+                return car.getPrice();
+            case YEAR:
+                return car.getYear() != null ? car.getYear() : 0;
+            default:
+                return car.getMileage() != null ? car.getMileage() : 0;
+        }
+    }
+
+    /**
+     * Прочитать все строки результата в список автомобилей
+     */
+    static List<Car> readCars(ResultSet rs) throws SQLException {
+        List<Car> cars = new ArrayList<>();
+        CarColumns columns = new CarColumns(rs.getMetaData());
+        while (rs.next()) {
+            cars.add(columns.read(rs));
+        }
+        return cars;
+    }
+
+    /**
+     * Набор колонок таблицы Cars, определяемый один раз на ResultSet
+     * (старые базы могут не содержать brand/year/mileage/description)
+     */
+    static class CarColumns {
+        private final boolean hasBrand;
+        private final boolean hasYear;
+        private final boolean hasMileage;
+        private final boolean hasDesc;
+        private final String imageColumn;
+        private final boolean hasMainImage;
+
+        CarColumns(ResultSetMetaData meta) throws SQLException {
+            boolean brand = false, year = false, mileage = false, desc = false, mainImage = false;
+            String image = null;
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                String col = meta.getColumnLabel(i);
+                if (col.equalsIgnoreCase("brand")) brand = true;
+                if (col.equalsIgnoreCase("year")) year = true;
+                if (col.equalsIgnoreCase("mileage")) mileage = true;
+                if (col.equalsIgnoreCase("description")) desc = true;
+                if (col.equalsIgnoreCase("main_image_url")) mainImage = true;
+                if (image == null && (col.equalsIgnoreCase("imageUrl") || col.equalsIgnoreCase("image_url"))) image = col;
+            }
+            this.hasBrand = brand;
+            this.hasYear = year;
+            this.hasMileage = mileage;
+            this.hasDesc = desc;
+            this.imageColumn = image;
+            this.hasMainImage = mainImage;
+        }
+
+        Car read(ResultSet rs) throws SQLException {
+            int id = rs.getInt("id");
+            String name = rs.getString("name");
+            String model = rs.getString("model");
+            double price = rs.getDouble("price");
+
+            if (!hasBrand && !hasYear && !hasMileage && !hasDesc && imageColumn == null && !hasMainImage) {
+                return new Car(id, name, model, price);
+            }
+
+            String brand = hasBrand ? rs.getString("brand") : null;
+            Integer year = hasYear ? (Integer) rs.getObject("year") : null;
+            Integer mileage = hasMileage ? (Integer) rs.getObject("mileage") : null;
+            String description = hasDesc ? rs.getString("description") : null;
+            String imageUrl = imageColumn != null ? rs.getString(imageColumn) : null;
+
+            // ✅ ГЛАВНОЕ ФОТО ИЗ ТАБЛИЦЫ CarImages имеет приоритет
+            if (hasMainImage) {
+                String mainImageUrl = rs.getString("main_image_url");
+                if (mainImageUrl != null && !mainImageUrl.isEmpty()) {
+                    imageUrl = mainImageUrl;
+                }
+            }
+
+            return new Car(id, name, model, price, brand, year, mileage, description, imageUrl);
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package services;
 
 import database.DatabaseConnection;
+import database.SqlTemplate;
 import models.Comment;
+import models.DashboardSnapshot.Section;
 import utils.LoggerUtil;
 
 import java.sql.*;
@@ -14,22 +16,55 @@ import java.util.List;
  */
 public class CommentsService {
 
+    private static final SqlTemplate INSERT_COMMENT = SqlTemplate.define("comments.insert",
+            "INSERT INTO comments_ratings (car_id, user_id, comment) VALUES (?, ?, ?)");
+    private static final SqlTemplate COMMENTS_BY_CAR = SqlTemplate.define("comments.byCar",
+            "SELECT c.id, c.car_id, c.user_id, u.username, c.comment, c.created_at " +
+            "FROM comments_ratings c " +
+            "JOIN users_secure u ON c.user_id = u.id " +
+            "WHERE c.car_id = ? AND c.comment IS NOT NULL " +
+            "ORDER BY c.created_at DESC");
+    // Админ удаляет любой комментарий, пользователь — только свой
+    private static final SqlTemplate SELECT_ANY = SqlTemplate.define("comments.selectForDelete",
+            "SELECT car_id, rating, comment FROM comments_ratings WHERE id = ?");
+    private static final SqlTemplate SELECT_OWN = SqlTemplate.define("comments.selectOwnForDelete",
+            "SELECT car_id, rating, comment FROM comments_ratings WHERE id = ? AND user_id = ?");
+    private static final SqlTemplate DELETE_ANY = SqlTemplate.define("comments.delete",
+            "DELETE FROM comments_ratings WHERE id = ?");
+    private static final SqlTemplate DELETE_OWN = SqlTemplate.define("comments.deleteOwn",
+            "DELETE FROM comments_ratings WHERE id = ? AND user_id = ?");
+    private static final SqlTemplate USER_RATING_TOTALS = SqlTemplate.define("ratings.userTotals",
+            "SELECT COUNT(*), COUNT(rating), COALESCE(SUM(rating), 0) " +
+            "FROM comments_ratings WHERE car_id = ? AND user_id = ?");
+    private static final SqlTemplate UPDATE_RATING = SqlTemplate.define("ratings.update",
+            "UPDATE comments_ratings SET rating = ? WHERE car_id = ? AND user_id = ?");
+    private static final SqlTemplate INSERT_RATING = SqlTemplate.define("ratings.insert",
+            "INSERT INTO comments_ratings (car_id, user_id, rating) VALUES (?, ?, ?)");
+    private static final SqlTemplate USER_RATING = SqlTemplate.define("ratings.byUser",
+            "SELECT rating FROM comments_ratings WHERE car_id = ? AND user_id = ? AND rating IS NOT NULL");
+
     // ========== КОММЕНТАРИИ ==========
 
     /**
      * Добавить комментарий к автомобилю
      */
     public static boolean addComment(int carId, int userId, String commentText) {
-        String sql = "INSERT INTO comments_ratings (car_id, user_id, comment) VALUES (?, ?, ?)";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, carId);
-            stmt.setInt(2, userId);
-            stmt.setString(3, commentText);
-            int rows = stmt.executeUpdate();
+        try {
+            int rows = RatingAggregates.write(() -> {
+                try (Connection conn = DatabaseConnection.getConnection();
+                     PreparedStatement stmt = INSERT_COMMENT.prepare(conn)) {
+                    stmt.setInt(1, carId);
+                    stmt.setInt(2, userId);
+                    stmt.setString(3, commentText);
+                    int inserted = stmt.executeUpdate();
+                    RatingAggregates.apply(carId, 0, 0, inserted);
+                    return inserted;
+                }
+            });
 
             if (rows > 0) {
                 LoggerUtil.action("Добавлен комментарий к авто ID=" + carId);
+                StatisticsCache.invalidate(Section.FEEDBACK);
                 return true;
             }
         } catch (Exception e) {
@@ -43,14 +78,9 @@ public class CommentsService {
      */
     public static List<Comment> getCommentsByCar(int carId) {
         List<Comment> comments = new ArrayList<>();
-        String sql = "SELECT c.id, c.car_id, c.user_id, u.username, c.comment, c.created_at " +
-                    "FROM comments_ratings c " +
-                    "JOIN users_secure u ON c.user_id = u.id " +
-                    "WHERE c.car_id = ? AND c.comment IS NOT NULL " +
-                    "ORDER BY c.created_at DESC";
 
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = COMMENTS_BY_CAR.prepare(conn)) {
             stmt.setInt(1, carId);
             ResultSet rs = stmt.executeQuery();
 
@@ -75,20 +105,51 @@ public class CommentsService {
      */
     public static boolean deleteComment(int commentId, int userId, boolean isAdmin) {
         // Проверяем права: админ может удалить любой, пользователь - только свой
-        String sql = isAdmin ?
-            "DELETE FROM comments_ratings WHERE id = ?" :
-            "DELETE FROM comments_ratings WHERE id = ? AND user_id = ?";
+        SqlTemplate select = isAdmin ? SELECT_ANY : SELECT_OWN;
+        SqlTemplate delete = isAdmin ? DELETE_ANY : DELETE_OWN;
 
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, commentId);
-            if (!isAdmin) {
-                stmt.setInt(2, userId);
-            }
+        try {
+            boolean deleted = RatingAggregates.write(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    conn.setAutoCommit(false);
 
-            int rows = stmt.executeUpdate();
-            if (rows > 0) {
+                    // Что удаляем — чтобы вычесть из агрегатов
+                    int carId;
+                    Integer rating;
+                    boolean hasComment;
+                    try (PreparedStatement selectStmt = select.prepare(conn)) {
+                        bindComment(selectStmt, commentId, userId, isAdmin);
+                        try (ResultSet rs = selectStmt.executeQuery()) {
+                            if (!rs.next()) {
+                                conn.rollback();
+                                return false;
+                            }
+                            carId = rs.getInt("car_id");
+                            rating = (Integer) rs.getObject("rating");
+                            hasComment = rs.getString("comment") != null;
+                        }
+                    }
+
+                    try (PreparedStatement stmt = delete.prepare(conn)) {
+                        bindComment(stmt, commentId, userId, isAdmin);
+                        if (stmt.executeUpdate() == 0) {
+                            conn.rollback();
+                            return false;
+                        }
+                    }
+                    conn.commit();
+
+                    RatingAggregates.apply(carId,
+                            rating != null ? -rating : 0,
+                            rating != null ? -1 : 0,
+                            hasComment ? -1 : 0);
+                    return true;
+                }
+            });
+
+            if (deleted) {
                 LoggerUtil.action("Удалён комментарий ID=" + commentId);
+                StatisticsCache.invalidate(Section.FEEDBACK);
                 return true;
             }
         } catch (Exception e) {
@@ -97,22 +158,18 @@ public class CommentsService {
         return false;
     }
 
+    private static void bindComment(PreparedStatement stmt, int commentId, int userId, boolean isAdmin) throws SQLException {
+        stmt.setInt(1, commentId);
+        if (!isAdmin) {
+            stmt.setInt(2, userId);
+        }
+    }
+
     /**
      * Получить количество комментариев к авто
      */
     public static int getCommentsCount(int carId) {
-        String sql = "SELECT COUNT(*) FROM comments_ratings WHERE car_id = ? AND comment IS NOT NULL";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, carId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (Exception e) {
-            LoggerUtil.error("Ошибка подсчёта комментариев", e);
-        }
-        return 0;
+        return RatingAggregates.getCommentsCount(carId);
     }
 
     // ========== ОЦЕНКИ ==========
@@ -125,35 +182,51 @@ public class CommentsService {
             return false;
         }
 
-        // Проверяем, есть ли уже запись
-        String checkSql = "SELECT id FROM comments_ratings WHERE car_id = ? AND user_id = ?";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
-            checkStmt.setInt(1, carId);
-            checkStmt.setInt(2, userId);
-            ResultSet rs = checkStmt.executeQuery();
+        // Текущие записи пользователя: UPDATE ниже меняет оценку во всех его строках к этому авто
+        try {
+            RatingAggregates.write(() -> {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    conn.setAutoCommit(false);
 
-            if (rs.next()) {
-                // Обновляем существующую запись
-                String updateSql = "UPDATE comments_ratings SET rating = ? WHERE car_id = ? AND user_id = ?";
-                try (PreparedStatement updateStmt = conn.prepareStatement(updateSql)) {
-                    updateStmt.setInt(1, rating);
-                    updateStmt.setInt(2, carId);
-                    updateStmt.setInt(3, userId);
-                    updateStmt.executeUpdate();
-                }
-            } else {
-                // Вставляем новую запись
-                String insertSql = "INSERT INTO comments_ratings (car_id, user_id, rating) VALUES (?, ?, ?)";
-                try (PreparedStatement insertStmt = conn.prepareStatement(insertSql)) {
-                    insertStmt.setInt(1, carId);
-                    insertStmt.setInt(2, userId);
-                    insertStmt.setInt(3, rating);
-                    insertStmt.executeUpdate();
+                    int rows, oldCount, oldSum;
+                    try (PreparedStatement checkStmt = USER_RATING_TOTALS.prepare(conn)) {
+                        checkStmt.setInt(1, carId);
+                        checkStmt.setInt(2, userId);
+                        try (ResultSet rs = checkStmt.executeQuery()) {
+                            rs.next();
+                            rows = rs.getInt(1);
+                            oldCount = rs.getInt(2);
+                            oldSum = rs.getInt(3);
+                        }
+                    }
+
+                    if (rows > 0) {
+                        // Обновляем существующую запись
+                        try (PreparedStatement updateStmt = UPDATE_RATING.prepare(conn)) {
+                            updateStmt.setInt(1, rating);
+                            updateStmt.setInt(2, carId);
+                            updateStmt.setInt(3, userId);
+                            rows = updateStmt.executeUpdate();
+                        }
+                    } else {
+                        // Вставляем новую запись
+                        try (PreparedStatement insertStmt = INSERT_RATING.prepare(conn)) {
+                            insertStmt.setInt(1, carId);
+                            insertStmt.setInt(2, userId);
+                            insertStmt.setInt(3, rating);
+                            rows = insertStmt.executeUpdate();
+                        }
+                    }
+                    conn.commit();
+
+                    // Все строки пользователя теперь с этой оценкой
+                    RatingAggregates.apply(carId, rows * rating - oldSum, rows - oldCount, 0);
+                    return rows;
                 }
-            }
+            });
 
             LoggerUtil.action("Оценка " + rating + " поставлена для авто ID=" + carId);
+            StatisticsCache.invalidate(Section.FEEDBACK);
             return true;
         } catch (Exception e) {
             LoggerUtil.error("Ошибка установки оценки", e);
@@ -165,9 +238,8 @@ public class CommentsService {
      * Получить оценку пользователя для автомобиля
      */
     public static int getUserRating(int carId, int userId) {
-        String sql = "SELECT rating FROM comments_ratings WHERE car_id = ? AND user_id = ? AND rating IS NOT NULL";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = USER_RATING.prepare(conn)) {
             stmt.setInt(1, carId);
             stmt.setInt(2, userId);
             ResultSet rs = stmt.executeQuery();
@@ -184,36 +256,13 @@ public class CommentsService {
      * Получить среднюю оценку автомобиля
      */
     public static double getAverageRating(int carId) {
-        String sql = "SELECT AVG(CAST(rating AS FLOAT)) FROM comments_ratings WHERE car_id = ? AND rating IS NOT NULL";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, carId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble(1);
-            }
-        } catch (Exception e) {
-            LoggerUtil.error("Ошибка получения средней оценки", e);
-        }
-        return 0.0;
+        return RatingAggregates.getAverageRating(carId);
     }
 
     /**
      * Получить количество оценок автомобиля
      */
     public static int getRatingsCount(int carId) {
-        String sql = "SELECT COUNT(*) FROM comments_ratings WHERE car_id = ? AND rating IS NOT NULL";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, carId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
-        } catch (Exception e) {
-            LoggerUtil.error("Ошибка подсчёта оценок", e);
-        }
-        return 0;
+        return RatingAggregates.getRatingsCount(carId);
     }
 }
-
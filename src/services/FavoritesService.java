@@ -1,16 +1,92 @@
 package services;
 
 import database.DatabaseConnection;
+import database.SqlTemplate;
 import models.Car;
+import models.DashboardSnapshot.Section;
 import models.Favorite;
+import utils.LoggerUtil;
 
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 public class FavoritesService {
 
+    private static final SqlTemplate CAR_IDS_BY_USER = SqlTemplate.define("favorites.carIdsByUser",
+            "SELECT car_id FROM favorites WHERE user_id = ?");
+    private static final SqlTemplate INSERT = SqlTemplate.define("favorites.insert",
+            "INSERT INTO favorites (user_id, car_id) VALUES (?, ?)");
+    private static final SqlTemplate DELETE = SqlTemplate.define("favorites.delete",
+            "DELETE FROM favorites WHERE user_id = ? AND car_id = ?");
+    private static final SqlTemplate CARS_BY_USER = SqlTemplate.define("favorites.carsByUser",
+            "SELECT c.*, " + CarsService.MAIN_IMAGE_URL + " FROM Cars c " +
+            "INNER JOIN favorites f ON c.id = f.car_id " +
+            "WHERE f.user_id = ? " +
+            "ORDER BY f.created_at DESC");
+    private static final SqlTemplate COUNT_BY_USER = SqlTemplate.define("favorites.countByUser",
+            "SELECT COUNT(*) FROM Favorites WHERE user_id = ?");
+
+    // Избранное пользователя текущей сессии: бит на id авто (id из IDENTITY идут подряд — набор компактный).
+    // Загружается при входе, обновляется вместе с записью в базу, очищается при выходе.
+    private static int sessionUserId = -1;
+    private static BitSet sessionFavorites;
+
+    // Неудачная загрузка набора: isFavorite не повторяет её на каждую ячейку, пока база недоступна
+    private static final long LOAD_RETRY_MS = Long.getLong("carhub.favorites.retrySeconds", 30) * 1000;
+    private static int failedUserId = -1;
+    private static long failedAt;
+
+    // Загрузить избранное пользователя одним запросом (при входе)
+    public static synchronized void loadSession(int userId) {
+        sessionUserId = -1;
+        sessionFavorites = null;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                markLoadFailed(userId);
+                return;
+            }
+
+            BitSet favorites = new BitSet();
+            try (PreparedStatement stmt = CAR_IDS_BY_USER.prepare(conn)) {
+                stmt.setInt(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        favorites.set(rs.getInt(1));
+                    }
+                }
+            }
+            sessionUserId = userId;
+            sessionFavorites = favorites;
+            failedUserId = -1;
+            LoggerUtil.info("Загружено избранное пользователя ID=" + userId + ": " + favorites.cardinality() + " авто");
+        } catch (SQLException e) {
+            markLoadFailed(userId);
+            LoggerUtil.error("Ошибка загрузки избранного пользователя ID=" + userId, e);
+        }
+    }
+
+    private static void markLoadFailed(int userId) {
+        failedUserId = userId;
+        failedAt = System.currentTimeMillis();
+    }
+
+    // Забыть избранное (при выходе)
+    public static synchronized void clearSession() {
+        sessionUserId = -1;
+        sessionFavorites = null;
+        failedUserId = -1;
+    }
+
+    // Учесть изменение в наборе сессии, если он принадлежит этому пользователю
+    private static synchronized void updateSession(int userId, int carId, boolean favorite) {
+        if (sessionUserId == userId && sessionFavorites != null && carId >= 0) {
+            sessionFavorites.set(carId, favorite);
+        }
+    }
+
     // Добавить авто в избранное
     public static boolean addToFavorites(int userId, int carId) {
         try (Connection conn = DatabaseConnection.getConnection()) {
@@ -19,12 +95,15 @@ public class FavoritesService {
                 return false;
             }
 
-            String sql = "INSERT INTO favorites (user_id, car_id) VALUES (?, ?)";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, userId);
-            stmt.setInt(2, carId);
-            int rows = stmt.executeUpdate();
+            int rows;
+            try (PreparedStatement stmt = INSERT.prepare(conn)) {
+                stmt.setInt(1, userId);
+                stmt.setInt(2, carId);
+                rows = stmt.executeUpdate();
+            }
             System.out.println("✅ addToFavorites: userId=" + userId + ", carId=" + carId + ", rows=" + rows);
+            if (rows > 0) updateSession(userId, carId, true);
+            StatisticsCache.invalidate(Section.FAVORITES);
             return rows > 0;
         } catch (SQLException e) {
             System.err.println("❌ addToFavorites ERROR: " + e.getMessage());
@@ -38,12 +117,15 @@ public class FavoritesService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return false;
 
-            String sql = "DELETE FROM favorites WHERE user_id = ? AND car_id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, userId);
-            stmt.setInt(2, carId);
-            int rows = stmt.executeUpdate();
+            int rows;
+            try (PreparedStatement stmt = DELETE.prepare(conn)) {
+                stmt.setInt(1, userId);
+                stmt.setInt(2, carId);
+                rows = stmt.executeUpdate();
+            }
             System.out.println("✅ removeFromFavorites: userId=" + userId + ", carId=" + carId + ", rows=" + rows);
+            updateSession(userId, carId, false);
+            StatisticsCache.invalidate(Section.FAVORITES);
             return rows > 0;
         } catch (SQLException e) {
             System.err.println("❌ removeFromFavorites ERROR: " + e.getMessage());
@@ -52,77 +134,31 @@ public class FavoritesService {
         }
     }
 
-    // Проверить, находится ли авто в избранном
-    public static boolean isFavorite(int userId, int carId) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
-            if (conn == null) return false;
-
-            String sql = "SELECT COUNT(*) FROM favorites WHERE user_id = ? AND car_id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, userId);
-            stmt.setInt(2, carId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                boolean result = rs.getInt(1) > 0;
-                System.out.println("✅ isFavorite: userId=" + userId + ", carId=" + carId + ", result=" + result);
-                return result;
+    // Проверить, находится ли авто в избранном (по набору сессии, без запроса к базе)
+    public static synchronized boolean isFavorite(int userId, int carId) {
+        if (userId <= 0 || carId < 0) return false;
+        // Другой пользователь или набор не загрузился при входе — загружаем сейчас,
+        // но после неудачи не чаще раза в LOAD_RETRY_MS
+        if (sessionUserId != userId || sessionFavorites == null) {
+            if (failedUserId == userId && System.currentTimeMillis() - failedAt < LOAD_RETRY_MS) {
+                return false;
             }
-        } catch (SQLException e) {
-            System.err.println("❌ isFavorite ERROR: " + e.getMessage());
-            e.printStackTrace();
+            loadSession(userId);
+            if (sessionFavorites == null) return false;
         }
-        return false;
+        return sessionFavorites.get(carId);
     }
 
-    // Получить все избранные авто пользователя
+    // Получить все избранные авто пользователя (главное фото подтягивается тем же запросом)
     public static List<Car> getFavoritesCars(int userId) {
         List<Car> favorites = new ArrayList<>();
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return favorites;
 
-            String sql = "SELECT c.* FROM Cars c " +
-                        "INNER JOIN favorites f ON c.id = f.car_id " +
-                        "WHERE f.user_id = ? " +
-                        "ORDER BY f.created_at DESC";
-
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-
-            // Проверяем наличие дополнительных колонок
-            ResultSetMetaData meta = rs.getMetaData();
-            boolean hasBrand = hasColumn(meta, "brand");
-            boolean hasYear = hasColumn(meta, "year");
-            boolean hasMileage = hasColumn(meta, "mileage");
-            boolean hasDesc = hasColumn(meta, "description");
-            boolean hasImage = hasColumn(meta, "imageUrl") || hasColumn(meta, "image_url");
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String name = rs.getString("name");
-                String model = rs.getString("model");
-                double price = rs.getDouble("price");
-
-                if (hasBrand || hasYear || hasMileage || hasDesc || hasImage) {
-                    String brand = hasBrand ? rs.getString("brand") : null;
-                    Integer year = hasYear ? (Integer) rs.getObject("year") : null;
-                    Integer mileage = hasMileage ? (Integer) rs.getObject("mileage") : null;
-                    String description = hasDesc ? rs.getString("description") : null;
-                    String imageUrl = null;
-                    if (hasImage) {
-                        if (hasColumn(meta, "imageUrl")) imageUrl = rs.getString("imageUrl");
-                        else if (hasColumn(meta, "image_url")) imageUrl = rs.getString("image_url");
-                    }
-
-                    // ✅ ЗАГРУЖАЕМ ГЛАВНОЕ ФОТО ИЗ ТАБЛИЦЫ CarImages
-                    String mainImageUrl = getMainImageUrl(conn, id);
-                    if (mainImageUrl != null && !mainImageUrl.isEmpty()) {
-                        imageUrl = mainImageUrl;
-                    }
-
-                    favorites.add(new Car(id, name, model, price, brand, year, mileage, description, imageUrl));
-                } else {
-                    favorites.add(new Car(id, name, model, price));
+            try (PreparedStatement stmt = CARS_BY_USER.prepare(conn)) {
+                stmt.setInt(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    favorites.addAll(CarsService.readCars(rs));
                 }
             }
         } catch (SQLException e) {
@@ -136,42 +172,17 @@ public class FavoritesService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            String sql = "SELECT COUNT(*) FROM Favorites WHERE user_id = ?";
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = COUNT_BY_USER.prepare(conn)) {
+                stmt.setInt(1, userId);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt(1);
+                    }
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return 0;
     }
-
-    private static boolean hasColumn(ResultSetMetaData meta, String column) throws SQLException {
-        for (int i = 1; i <= meta.getColumnCount(); i++) {
-            if (meta.getColumnLabel(i).equalsIgnoreCase(column)) return true;
-        }
-        return false;
-    }
-
-    /**
-     * Получает URL главной фотографии автомобиля из таблицы CarImages
-     */
-    private static String getMainImageUrl(Connection conn, int carId) {
-        try {
-            String sql = "SELECT image_url FROM CarImages WHERE car_id = ? AND is_main = 1";
-            PreparedStatement ps = conn.prepareStatement(sql);
-            ps.setInt(1, carId);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return rs.getString("image_url");
-            }
-        } catch (SQLException e) {
-            // Если таблицы CarImages нет - пропускаем
-        }
-        return null;
-    }
 }
-
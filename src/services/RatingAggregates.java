@@ -0,0 +1,308 @@
+package services;
+
+import database.DatabaseConnection;
+import database.SqlTemplate;
+import utils.LoggerUtil;
+
+import java.sql.*;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Агрегаты отзывов по автомобилям в памяти процесса: сумма и количество оценок,
+ * количество комментариев. Средняя оценка и счётчики — O(1) без запроса к базе.
+ *
+ * Загружаются одним сгруппированным запросом при первом обращении, дальше
+ * CommentsService обновляет их вместе с записью в comments_ratings (write()/apply()).
+ * Раз в carhub.ratings.reloadSeconds (по умолчанию 300 с) перечитываются целиком в фоне,
+ * чтобы подхватить изменения, сделанные другими клиентами базы: до замены читается прежняя таблица.
+ *
+ * Блокировка класса держится только на время чтения или изменения таблицы, не на время запросов.
+ * Перечитанная таблица не подменяет текущую, если во время запроса шла запись отзывов:
+ * неизвестно, вошло ли изменение в результат запроса (иначе оно потерялось бы или учлось дважды).
+ */
+public class RatingAggregates {
+
+    private static final long RELOAD_MS = Long.getLong("carhub.ratings.reloadSeconds", 300) * 1000;
+    // Повтор перечитывания, отменённого из-за параллельной записи
+    private static final long RETRY_MS = 2000;
+    // Первую загрузку ждут читатели — её повторяем сразу
+    private static final int INITIAL_LOAD_ATTEMPTS = 3;
+
+    private static final SqlTemplate AGGREGATES = SqlTemplate.define("ratings.aggregates",
+            "SELECT car_id, SUM(rating) AS rating_sum, COUNT(rating) AS ratings_count, " +
+            "COUNT(comment) AS comments_count " +
+            "FROM comments_ratings GROUP BY car_id");
+
+    private static final int NO_KEY = Integer.MIN_VALUE;
+
+    // Текущая таблица; читается и меняется под блокировкой класса, перечитанная подменяет её целиком
+    private static Table table = new Table();
+    private static boolean loaded;
+    // Записи отзывов: сколько идёт сейчас и сколько завершилось (эпоха)
+    private static int writesInFlight;
+    private static long writeEpoch;
+
+    // Одна загрузка за раз (первая — в потоке читателя, остальные — в планировщике)
+    private static final Object loadLock = new Object();
+    private static ScheduledExecutorService scheduler;
+    private static boolean reloadScheduled;
+
+    /**
+     * Изменение отзывов в базе вместе с агрегатами
+     */
+    @FunctionalInterface
+    interface Write<T> {
+        T run() throws SQLException;
+    }
+
+    /**
+     * Выполнить запись в comments_ratings (с apply(...) после коммита). Блокировка на время
+     * записи не держится — запись только отмечается, чтобы параллельное перечитывание её учло.
+     */
+    static <T> T write(Write<T> write) throws SQLException {
+        synchronized (RatingAggregates.class) {
+            writesInFlight++;
+        }
+        try {
+            return write.run();
+        } finally {
+            synchronized (RatingAggregates.class) {
+                writesInFlight--;
+                writeEpoch++;
+            }
+        }
+    }
+
+    /**
+     * Учесть изменение отзывов автомобиля (вызывать после коммита, внутри write)
+     */
+    static synchronized void apply(int carId, int ratingSumDelta, int ratingCountDelta, int commentCountDelta) {
+        // Ещё не загружены — при загрузке изменение уже будет в базе
+        if (!loaded) return;
+        Table t = table;
+        int slot = t.slotFor(carId);
+        t.ratingSum[slot] += ratingSumDelta;
+        t.ratingCount[slot] += ratingCountDelta;
+        t.commentCount[slot] += commentCountDelta;
+    }
+
+    public static double getAverageRating(int carId) {
+        ensureLoaded();
+        synchronized (RatingAggregates.class) {
+            int slot = table.find(carId);
+            return slot < 0 || table.ratingCount[slot] == 0 ? 0.0 : (double) table.ratingSum[slot] / table.ratingCount[slot];
+        }
+    }
+
+    public static int getRatingsCount(int carId) {
+        ensureLoaded();
+        synchronized (RatingAggregates.class) {
+            int slot = table.find(carId);
+            return slot < 0 ? 0 : table.ratingCount[slot];
+        }
+    }
+
+    public static int getCommentsCount(int carId) {
+        ensureLoaded();
+        synchronized (RatingAggregates.class) {
+            int slot = table.find(carId);
+            return slot < 0 ? 0 : table.commentCount[slot];
+        }
+    }
+
+    /**
+     * Загрузить агрегаты заранее (в фоне, до первой карточки)
+     */
+    public static void preload() {
+        ensureLoaded();
+    }
+
+    /**
+     * Перечитать агрегаты в фоне (после изменений в обход CommentsService, например каскадного удаления).
+     * До замены читатели получают прежние значения.
+     */
+    public static void invalidate() {
+        synchronized (RatingAggregates.class) {
+            if (!loaded) return;
+        }
+        scheduleReload(0);
+    }
+
+    /**
+     * Первая загрузка — в потоке первого читателя; дальше таблица только перечитывается в фоне
+     */
+    private static void ensureLoaded() {
+        synchronized (RatingAggregates.class) {
+            if (loaded) return;
+        }
+        synchronized (loadLock) {
+            synchronized (RatingAggregates.class) {
+                if (loaded) return;
+            }
+            for (int attempt = 1; attempt <= INITIAL_LOAD_ATTEMPTS; attempt++) {
+                if (reload(attempt == INITIAL_LOAD_ATTEMPTS)) break;
+            }
+            startScheduler();
+        }
+    }
+
+    /**
+     * Перечитать агрегаты запросом вне блокировки и подменить таблицу.
+     *
+     * @param force подменить, даже если во время запроса шла запись
+     * @return false, если результат отброшен из-за параллельной записи
+     */
+    private static boolean reload(boolean force) {
+        long epoch;
+        synchronized (RatingAggregates.class) {
+            epoch = writesInFlight == 0 ? writeEpoch : -1;
+        }
+
+        Table loadedTable = new Table();
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) {
+                // Нет подключения: при первой загрузке считаем, что отзывов нет, иначе оставляем прежние
+                return installIfEmpty();
+            }
+            try (PreparedStatement stmt = AGGREGATES.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    loadedTable.put(rs.getInt("car_id"), rs.getInt("rating_sum"),
+                            rs.getInt("ratings_count"), rs.getInt("comments_count"));
+                }
+            }
+        } catch (SQLException e) {
+            // Таблицы отзывов может не быть — считаем, что отзывов нет
+            LoggerUtil.warning("Не удалось загрузить агрегаты отзывов: " + e.getMessage());
+            return installIfEmpty();
+        }
+
+        synchronized (RatingAggregates.class) {
+            if (!force && (epoch < 0 || writesInFlight > 0 || writeEpoch != epoch)) {
+                return false;
+            }
+            install(loadedTable);
+        }
+        LoggerUtil.info("Загружены агрегаты отзывов: " + loadedTable.size + " авто");
+        return true;
+    }
+
+    private static synchronized boolean installIfEmpty() {
+        if (!loaded) install(new Table());
+        return true;
+    }
+
+    // Вызывается под блокировкой класса
+    private static void install(Table loadedTable) {
+        table = loadedTable;
+        loaded = true;
+    }
+
+    private static void reloadInBackground() {
+        synchronized (RatingAggregates.class) {
+            reloadScheduled = false;
+        }
+        try {
+            boolean swapped;
+            synchronized (loadLock) {
+                swapped = reload(false);
+            }
+            if (!swapped) {
+                scheduleReload(RETRY_MS);
+            }
+        } catch (Exception e) {
+            LoggerUtil.error("Ошибка фонового перечитывания агрегатов отзывов", e);
+        }
+    }
+
+    private static void scheduleReload(long delayMs) {
+        synchronized (RatingAggregates.class) {
+            if (scheduler == null || reloadScheduled) return;
+            reloadScheduled = true;
+        }
+        scheduler.schedule(RatingAggregates::reloadInBackground, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void startScheduler() {
+        synchronized (RatingAggregates.class) {
+            if (scheduler != null) return;
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "carhub-ratings");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        scheduler.scheduleWithFixedDelay(RatingAggregates::reloadInBackground, RELOAD_MS, RELOAD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Открытая адресация: car_id → слот в параллельных массивах
+     */
+    private static final class Table {
+        int[] keys = emptyKeys(16);
+        int[] ratingSum = new int[16];
+        int[] ratingCount = new int[16];
+        int[] commentCount = new int[16];
+        int size;
+
+        void put(int carId, int sum, int ratings, int comments) {
+            int slot = slotFor(carId);
+            ratingSum[slot] = sum;
+            ratingCount[slot] = ratings;
+            commentCount[slot] = comments;
+        }
+
+        int find(int carId) {
+            int mask = keys.length - 1;
+            for (int i = mix(carId) & mask; ; i = (i + 1) & mask) {
+                if (keys[i] == carId) return i;
+                if (keys[i] == NO_KEY) return -1;
+            }
+        }
+
+        int slotFor(int carId) {
+            int slot = find(carId);
+            if (slot >= 0) return slot;
+
+            // Заполненность не больше половины — цепочки проб остаются короткими
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int i = mix(carId) & mask;
+            while (keys[i] != NO_KEY) i = (i + 1) & mask;
+            keys[i] = carId;
+            size++;
+            return i;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys, oldSum = ratingSum, oldRatings = ratingCount, oldComments = commentCount;
+            int capacity = keys.length * 2;
+            keys = emptyKeys(capacity);
+            ratingSum = new int[capacity];
+            ratingCount = new int[capacity];
+            commentCount = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == NO_KEY) continue;
+                put(oldKeys[i], oldSum[i], oldRatings[i], oldComments[i]);
+            }
+        }
+    }
+
+    private static int[] emptyKeys(int capacity) {
+        int[] k = new int[capacity];
+        Arrays.fill(k, NO_KEY);
+        return k;
+    }
+
+    // Перемешивание битов: последовательные id не должны занимать соседние слоты подряд
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -1,8 +1,10 @@
 package services;
 
 import database.DatabaseConnection;
+import database.SqlTemplate;
 import models.Reservation;
 import models.Purchase;
+import models.DashboardSnapshot.Section;
 import utils.LoggerUtil;
 
 import java.sql.*;
@@ -15,6 +17,42 @@ import java.util.List;
  */
 public class ReservationsService {
 
+    private static final SqlTemplate INSERT_RESERVATION = SqlTemplate.define("reservations.insert",
+            "INSERT INTO Reservations (car_id, user_id, customer_name, phone, email, reservation_date, notes) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)");
+    private static final SqlTemplate ALL_RESERVATIONS = SqlTemplate.define("reservations.all",
+            "SELECT r.*, c.name as car_name, u.username " +
+            "FROM Reservations r " +
+            "JOIN Cars c ON r.car_id = c.id " +
+            "JOIN users_secure u ON r.user_id = u.id " +
+            "ORDER BY r.created_at DESC");
+    private static final SqlTemplate RESERVATIONS_BY_STATUS = SqlTemplate.define("reservations.byStatus",
+            "SELECT r.*, c.name as car_name, u.username " +
+            "FROM Reservations r " +
+            "JOIN Cars c ON r.car_id = c.id " +
+            "JOIN users_secure u ON r.user_id = u.id " +
+            "WHERE r.status = ? " +
+            "ORDER BY r.created_at DESC");
+    private static final SqlTemplate UPDATE_RESERVATION_STATUS = SqlTemplate.define("reservations.updateStatus",
+            "UPDATE Reservations SET status = ?, updated_at = GETDATE() WHERE id = ?");
+    private static final SqlTemplate DELETE_RESERVATION = SqlTemplate.define("reservations.delete",
+            "DELETE FROM Reservations WHERE id = ?");
+    private static final SqlTemplate INSERT_PURCHASE = SqlTemplate.define("purchases.insert",
+            "INSERT INTO Purchases (car_id, user_id, customer_name, phone, email, price, payment_method, notes) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    private static final SqlTemplate ALL_PURCHASES = SqlTemplate.define("purchases.all",
+            "SELECT p.*, c.name as car_name, u.username " +
+            "FROM Purchases p " +
+            "JOIN Cars c ON p.car_id = c.id " +
+            "JOIN users_secure u ON p.user_id = u.id " +
+            "ORDER BY p.purchase_date DESC");
+    private static final SqlTemplate UPDATE_PURCHASE_STATUS = SqlTemplate.define("purchases.updateStatus",
+            "UPDATE Purchases SET status = ? WHERE id = ?");
+    private static final SqlTemplate COMPLETE_PURCHASE = SqlTemplate.define("purchases.complete",
+            "UPDATE Purchases SET status = ?, completed_at = GETDATE() WHERE id = ?");
+    private static final SqlTemplate DELETE_PURCHASE = SqlTemplate.define("purchases.delete",
+            "DELETE FROM Purchases WHERE id = ?");
+
     // ========== БРОНИРОВАНИЯ ==========
 
     /**
@@ -22,10 +60,8 @@ public class ReservationsService {
      */
     public static boolean createReservation(int carId, int userId, String customerName,
                                            String phone, String email, LocalDateTime reservationDate, String notes) {
-        String sql = "INSERT INTO Reservations (car_id, user_id, customer_name, phone, email, reservation_date, notes) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = INSERT_RESERVATION.prepare(conn)) {
             stmt.setInt(1, carId);
             stmt.setInt(2, userId);
             stmt.setString(3, customerName);
@@ -37,6 +73,7 @@ public class ReservationsService {
             int rows = stmt.executeUpdate();
             if (rows > 0) {
                 LoggerUtil.action("Создано бронирование: " + customerName + " для авто ID=" + carId);
+                StatisticsCache.invalidate(Section.ORDERS);
                 return true;
             }
         } catch (Exception e) {
@@ -50,14 +87,8 @@ public class ReservationsService {
      */
     public static List<Reservation> getAllReservations() {
         List<Reservation> list = new ArrayList<>();
-        String sql = "SELECT r.*, c.name as car_name, u.username " +
-                    "FROM Reservations r " +
-                    "JOIN Cars c ON r.car_id = c.id " +
-                    "JOIN users_secure u ON r.user_id = u.id " +
-                    "ORDER BY r.created_at DESC";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
+             PreparedStatement stmt = ALL_RESERVATIONS.prepare(conn);
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
@@ -74,15 +105,8 @@ public class ReservationsService {
      */
     public static List<Reservation> getReservationsByStatus(String status) {
         List<Reservation> list = new ArrayList<>();
-        String sql = "SELECT r.*, c.name as car_name, u.username " +
-                    "FROM Reservations r " +
-                    "JOIN Cars c ON r.car_id = c.id " +
-                    "JOIN users_secure u ON r.user_id = u.id " +
-                    "WHERE r.status = ? " +
-                    "ORDER BY r.created_at DESC";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = RESERVATIONS_BY_STATUS.prepare(conn)) {
             stmt.setString(1, status);
             ResultSet rs = stmt.executeQuery();
 
@@ -99,9 +123,8 @@ public class ReservationsService {
      * Обновить статус бронирования
      */
     public static boolean updateReservationStatus(int reservationId, String newStatus) {
-        String sql = "UPDATE Reservations SET status = ?, updated_at = GETDATE() WHERE id = ?";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = UPDATE_RESERVATION_STATUS.prepare(conn)) {
             stmt.setString(1, newStatus);
             stmt.setInt(2, reservationId);
 
@@ -120,14 +143,14 @@ public class ReservationsService {
      * Удалить бронирование
      */
     public static boolean deleteReservation(int reservationId) {
-        String sql = "DELETE FROM Reservations WHERE id = ?";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = DELETE_RESERVATION.prepare(conn)) {
             stmt.setInt(1, reservationId);
 
             int rows = stmt.executeUpdate();
             if (rows > 0) {
                 LoggerUtil.action("Удалено бронирование ID=" + reservationId);
+                StatisticsCache.invalidate(Section.ORDERS);
                 return true;
             }
         } catch (Exception e) {
@@ -144,10 +167,8 @@ public class ReservationsService {
     public static boolean createPurchase(int carId, int userId, String customerName,
                                         String phone, String email, double price,
                                         String paymentMethod, String notes) {
-        String sql = "INSERT INTO Purchases (car_id, user_id, customer_name, phone, email, price, payment_method, notes) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = INSERT_PURCHASE.prepare(conn)) {
             stmt.setInt(1, carId);
             stmt.setInt(2, userId);
             stmt.setString(3, customerName);
@@ -160,6 +181,7 @@ public class ReservationsService {
             int rows = stmt.executeUpdate();
             if (rows > 0) {
                 LoggerUtil.action("Создана покупка: " + customerName + " для авто ID=" + carId + ", цена: " + price);
+                StatisticsCache.invalidate(Section.ORDERS);
                 return true;
             }
         } catch (Exception e) {
@@ -173,14 +195,8 @@ public class ReservationsService {
      */
     public static List<Purchase> getAllPurchases() {
         List<Purchase> list = new ArrayList<>();
-        String sql = "SELECT p.*, c.name as car_name, u.username " +
-                    "FROM Purchases p " +
-                    "JOIN Cars c ON p.car_id = c.id " +
-                    "JOIN users_secure u ON p.user_id = u.id " +
-                    "ORDER BY p.purchase_date DESC";
-
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql);
+             PreparedStatement stmt = ALL_PURCHASES.prepare(conn);
              ResultSet rs = stmt.executeQuery()) {
 
             while (rs.next()) {
@@ -196,11 +212,9 @@ public class ReservationsService {
      * Обновить статус покупки
      */
     public static boolean updatePurchaseStatus(int purchaseId, String newStatus) {
-        String sql = "UPDATE Purchases SET status = ?" +
-                    (newStatus.equals("completed") ? ", completed_at = GETDATE()" : "") +
-                    " WHERE id = ?";
+        SqlTemplate update = newStatus.equals("completed") ? COMPLETE_PURCHASE : UPDATE_PURCHASE_STATUS;
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = update.prepare(conn)) {
             stmt.setString(1, newStatus);
             stmt.setInt(2, purchaseId);
 
@@ -219,14 +233,14 @@ public class ReservationsService {
      * Удалить покупку
      */
     public static boolean deletePurchase(int purchaseId) {
-        String sql = "DELETE FROM Purchases WHERE id = ?";
         try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = DELETE_PURCHASE.prepare(conn)) {
             stmt.setInt(1, purchaseId);
 
             int rows = stmt.executeUpdate();
             if (rows > 0) {
                 LoggerUtil.action("Удалена покупка ID=" + purchaseId);
+                StatisticsCache.invalidate(Section.ORDERS);
                 return true;
             }
         } catch (Exception e) {
@@ -0,0 +1,149 @@
+package services;
+
+import models.DashboardSnapshot;
+import models.DashboardSnapshot.Section;
+import monitoring.StatisticsRefreshEvent;
+import utils.LoggerUtil;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Кэш снимка статистики (DashboardSnapshot).
+ *
+ * Снимок моложе carhub.stats.maxAgeSeconds (по умолчанию 60 с) отдаётся без запроса к базе.
+ * Планировщик пересчитывает его в фоне каждые carhub.stats.refreshSeconds (по умолчанию 30 с),
+ * поэтому экран статистики обычно открывается мгновенно. Сервисы, меняющие данные,
+ * вызывают invalidate(раздел) — пересчитывается только этот раздел, сразу в фоне.
+ */
+public class StatisticsCache {
+
+    private static final Duration MAX_AGE = Duration.ofSeconds(Long.getLong("carhub.stats.maxAgeSeconds", 60));
+    private static final long REFRESH_SECONDS = Long.getLong("carhub.stats.refreshSeconds", 30);
+    // Пауза перед пересчётом после изменения — серия правок даёт один пересчёт
+    private static final long INVALIDATE_DELAY_MS = 500;
+
+    private static final Object lock = new Object();
+    private static volatile DashboardSnapshot snapshot;
+    private static final Set<Section> dirty = EnumSet.noneOf(Section.class);
+    private static boolean refreshScheduled;
+
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Снимок статистики: из кэша, если он свежий и не инвалидирован, иначе пересчитывается.
+     * Может обращаться к базе — вызывать не из FX-потока.
+     */
+    public static DashboardSnapshot getSnapshot() {
+        startScheduler();
+        DashboardSnapshot current = snapshot;
+        if (current != null && isFresh(current) && !hasDirtySections()) {
+            return current;
+        }
+        return refresh();
+    }
+
+    /**
+     * Отметить разделы устаревшими (после изменения данных)
+     */
+    public static void invalidate(Section... sections) {
+        synchronized (lock) {
+            Collections.addAll(dirty, sections);
+            // Пока статистику ни разу не открывали, пересчитывать нечего
+            if (snapshot == null || scheduler == null || refreshScheduled) return;
+            refreshScheduled = true;
+        }
+        scheduler.schedule(StatisticsCache::refreshInBackground, INVALIDATE_DELAY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Все разделы устарели (кнопка "Обновить", удаление с каскадом на несколько таблиц)
+     */
+    public static void invalidateAll() {
+        invalidate(Section.values());
+    }
+
+    /**
+     * Пересчитать устаревшие разделы; если снимка нет или он старше MAX_AGE — все разделы
+     */
+    private static DashboardSnapshot refresh() {
+        // Один пересчёт за раз: параллельные вызовы дождутся его и получат готовый снимок
+        synchronized (StatisticsCache.class) {
+            DashboardSnapshot current = snapshot;
+            Set<Section> sections;
+            synchronized (lock) {
+                if (current != null && isFresh(current) && dirty.isEmpty()) {
+                    return current;
+                }
+                sections = current == null || !isFresh(current) ? EnumSet.allOf(Section.class) : EnumSet.copyOf(dirty);
+                // Изменения, пришедшие во время запроса, снова пометят раздел
+                dirty.clear();
+            }
+
+            StatisticsRefreshEvent event = new StatisticsRefreshEvent();
+            event.begin();
+            long start = System.currentTimeMillis();
+            boolean full = sections.size() == Section.values().length;
+            DashboardSnapshot updated = full
+                    ? StatisticsService.getDashboardSnapshot()
+                    : StatisticsService.getDashboardSnapshot(sections, current);
+            snapshot = updated;
+            event.end();
+            if (event.shouldCommit()) {
+                event.sections = sections.toString();
+                event.full = full;
+                event.commit();
+            }
+            LoggerUtil.info("Статистика пересчитана " + sections + " за " + (System.currentTimeMillis() - start) + " мс");
+            return updated;
+        }
+    }
+
+    private static void refreshInBackground() {
+        synchronized (lock) {
+            refreshScheduled = false;
+        }
+        try {
+            refresh();
+        } catch (Exception e) {
+            LoggerUtil.error("Ошибка фонового обновления статистики", e);
+        }
+    }
+
+    private static boolean isFresh(DashboardSnapshot s) {
+        return Duration.between(s.loadedAt(), Instant.now()).compareTo(MAX_AGE) < 0;
+    }
+
+    private static boolean hasDirtySections() {
+        synchronized (lock) {
+            return !dirty.isEmpty();
+        }
+    }
+
+    /**
+     * Планировщик запускается при первом обращении к статистике:
+     * пользователям, которые её не открывают, фоновые запросы не нужны
+     */
+    private static void startScheduler() {
+        synchronized (lock) {
+            if (scheduler != null) return;
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "carhub-stats");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        scheduler.scheduleWithFixedDelay(() -> {
+            synchronized (lock) {
+                dirty.addAll(EnumSet.allOf(Section.class));
+            }
+            refreshInBackground();
+        }, REFRESH_SECONDS, REFRESH_SECONDS, TimeUnit.SECONDS);
+    }
+}
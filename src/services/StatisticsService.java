@@ -1,23 +1,110 @@
 package services;
 
 import database.DatabaseConnection;
+import database.SqlTemplate;
 import models.Car;
+import models.DashboardSnapshot;
+import models.DashboardSnapshot.Section;
 import utils.LoggerUtil;
 
 import java.sql.*;
+import java.time.Instant;
 import java.util.*;
 
 public class StatisticsService {
 
+    // Размер топа — параметр TOP (?), а не часть текста: план запроса один для любого limit
+    private static final String TOP_BRANDS_SQL =
+            "SELECT TOP (?) brand, COUNT(*) AS count " +
+            "FROM Cars " +
+            "WHERE brand IS NOT NULL AND brand != '' " +
+            "GROUP BY brand " +
+            "ORDER BY count DESC";
+
+    private static final SqlTemplate TOTAL_CARS = SqlTemplate.define("statistics.totalCars",
+            "SELECT COUNT(*) FROM Cars");
+    private static final SqlTemplate AVERAGE_PRICE = SqlTemplate.define("statistics.averagePrice",
+            "SELECT AVG(price) FROM Cars");
+    private static final SqlTemplate MOST_EXPENSIVE = SqlTemplate.define("statistics.mostExpensiveCar",
+            "SELECT TOP 1 * FROM Cars ORDER BY price DESC");
+    private static final SqlTemplate CHEAPEST = SqlTemplate.define("statistics.cheapestCar",
+            "SELECT TOP 1 * FROM Cars ORDER BY price ASC");
+    private static final SqlTemplate TOP_BRANDS = SqlTemplate.define("statistics.topBrands", TOP_BRANDS_SQL);
+    private static final SqlTemplate TOTAL_USERS = SqlTemplate.define("statistics.totalUsers",
+            "SELECT COUNT(*) FROM users_secure WHERE role = 'user'");
+    private static final SqlTemplate TOTAL_ADMINS = SqlTemplate.define("statistics.totalAdmins",
+            "SELECT COUNT(*) FROM users_secure WHERE role = 'admin'");
+    private static final SqlTemplate ACTIVE_USERS = SqlTemplate.define("statistics.activeUsers",
+            "SELECT COUNT(*) FROM users_secure WHERE is_active = 1");
+    private static final SqlTemplate INACTIVE_USERS = SqlTemplate.define("statistics.inactiveUsers",
+            "SELECT COUNT(*) FROM users_secure WHERE is_active = 0");
+    private static final SqlTemplate TOTAL_RESERVATIONS = SqlTemplate.define("statistics.totalReservations",
+            "SELECT COUNT(*) FROM Reservations");
+    private static final SqlTemplate TOTAL_PURCHASES = SqlTemplate.define("statistics.totalPurchases",
+            "SELECT COUNT(*) FROM Purchases");
+    private static final SqlTemplate TOTAL_COMMENTS = SqlTemplate.define("statistics.totalComments",
+            "SELECT COUNT(*) FROM comments_ratings WHERE comment IS NOT NULL AND comment != ''");
+    private static final SqlTemplate TOTAL_RATINGS = SqlTemplate.define("statistics.totalRatings",
+            "SELECT COUNT(*) FROM comments_ratings WHERE rating IS NOT NULL AND rating > 0");
+    private static final SqlTemplate CARS_BY_YEAR = SqlTemplate.define("statistics.carsByYear",
+            "SELECT year, COUNT(*) as count " +
+            "FROM Cars " +
+            "WHERE year IS NOT NULL " +
+            "GROUP BY year " +
+            "ORDER BY year DESC");
+    private static final SqlTemplate AVERAGE_MILEAGE = SqlTemplate.define("statistics.averageMileage",
+            "SELECT AVG(CAST(mileage AS FLOAT)) FROM Cars WHERE mileage IS NOT NULL");
+    private static final SqlTemplate TOTAL_FAVORITES = SqlTemplate.define("statistics.totalFavorites",
+            "SELECT COUNT(*) FROM Favorites");
+    private static final SqlTemplate FAVORITES_DETAILS = SqlTemplate.define("statistics.favoritesDetails",
+            "SELECT f.id, u.username, c.name + ' ' + c.model AS car_name, c.brand, f.created_at " +
+            "FROM Favorites f " +
+            "JOIN users_secure u ON f.user_id = u.id " +
+            "JOIN Cars c ON f.car_id = c.id " +
+            "ORDER BY f.created_at DESC");
+    private static final SqlTemplate RESERVATIONS_DETAILS = SqlTemplate.define("statistics.reservationsDetails",
+            "SELECT r.id, r.customer_name, c.name + ' ' + c.model AS car_name, r.status, r.created_at " +
+            "FROM Reservations r " +
+            "JOIN Cars c ON r.car_id = c.id " +
+            "ORDER BY r.created_at DESC");
+    private static final SqlTemplate PURCHASES_DETAILS = SqlTemplate.define("statistics.purchasesDetails",
+            "SELECT p.id, p.customer_name, c.name + ' ' + c.model AS car_name, p.status, p.created_at " +
+            "FROM purchases p " +
+            "JOIN Cars c ON p.car_id = c.id " +
+            "ORDER BY p.created_at DESC");
+    private static final SqlTemplate COMMENTS_DETAILS = SqlTemplate.define("statistics.commentsDetails",
+            "SELECT cr.id, u.username, c.name + ' ' + c.model AS car_name, " +
+            "SUBSTRING(cr.comment, 1, 50) + '...' AS comment_short, cr.created_at " +
+            "FROM comments_ratings cr " +
+            "JOIN users_secure u ON cr.user_id = u.id " +
+            "JOIN Cars c ON cr.car_id = c.id " +
+            "WHERE cr.comment IS NOT NULL " +
+            "ORDER BY cr.created_at DESC");
+    private static final SqlTemplate RATINGS_DETAILS = SqlTemplate.define("statistics.ratingsDetails",
+            "SELECT cr.id, u.username, c.name + ' ' + c.model AS car_name, " +
+            "CAST(cr.rating AS VARCHAR) + '/5 звезд' AS rating_str, cr.created_at " +
+            "FROM comments_ratings cr " +
+            "JOIN users_secure u ON cr.user_id = u.id " +
+            "JOIN Cars c ON cr.car_id = c.id " +
+            "WHERE cr.rating IS NOT NULL " +
+            "ORDER BY cr.created_at DESC");
+    private static final SqlTemplate ADMINS_DETAILS = SqlTemplate.define("statistics.adminsDetails",
+            "SELECT id, username, fullname, role, created_at FROM users_secure WHERE role = 'admin' ORDER BY id DESC");
+    private static final SqlTemplate ACTIVE_USERS_DETAILS = SqlTemplate.define("statistics.activeUsersDetails",
+            "SELECT id, username, fullname, role, created_at FROM users_secure WHERE is_active = 1 ORDER BY id DESC");
+    private static final SqlTemplate INACTIVE_USERS_DETAILS = SqlTemplate.define("statistics.inactiveUsersDetails",
+            "SELECT id, username, fullname, role, created_at FROM users_secure WHERE is_active = 0 ORDER BY id DESC");
+
     // Общее количество автомобилей
     public static int getTotalCars() {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Cars");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = TOTAL_CARS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -30,10 +117,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT AVG(price) FROM Cars");
-            if (rs.next()) {
-                return rs.getDouble(1);
+            try (PreparedStatement stmt = AVERAGE_PRICE.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -46,10 +134,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return null;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT TOP 1 * FROM Cars ORDER BY price DESC");
-            if (rs.next()) {
-                return extractCarFromResultSet(rs);
+            try (PreparedStatement stmt = MOST_EXPENSIVE.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractCarFromResultSet(rs);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -62,10 +151,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return null;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT TOP 1 * FROM Cars ORDER BY price ASC");
-            if (rs.next()) {
-                return extractCarFromResultSet(rs);
+            try (PreparedStatement stmt = CHEAPEST.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return extractCarFromResultSet(rs);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -79,16 +169,13 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return brands;
 
-            String sql = "SELECT TOP " + limit + " brand, COUNT(*) as count " +
-                        "FROM Cars " +
-                        "WHERE brand IS NOT NULL AND brand != '' " +
-                        "GROUP BY brand " +
-                        "ORDER BY count DESC";
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                brands.put(rs.getString("brand"), rs.getInt("count"));
+            try (PreparedStatement stmt = TOP_BRANDS.prepare(conn)) {
+                stmt.setInt(1, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        brands.put(rs.getString("brand"), rs.getInt("count"));
+                    }
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -101,10 +188,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users_secure WHERE role = 'user'");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = TOTAL_USERS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -117,10 +205,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users_secure WHERE role = 'admin'");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = TOTAL_ADMINS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -133,10 +222,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users_secure WHERE is_active = 1");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = ACTIVE_USERS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -149,10 +239,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users_secure WHERE is_active = 0");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = INACTIVE_USERS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -165,16 +256,15 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            DatabaseMetaData meta = conn.getMetaData();
-            ResultSet tables = meta.getTables(null, null, "Reservations", null);
-            if (!tables.next()) {
+            if (!tableExists(conn, "Reservations")) {
                 return 0;
             }
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Reservations");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = TOTAL_RESERVATIONS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -187,16 +277,15 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            DatabaseMetaData meta = conn.getMetaData();
-            ResultSet tables = meta.getTables(null, null, "Purchases", null);
-            if (!tables.next()) {
+            if (!tableExists(conn, "Purchases")) {
                 return 0;
             }
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Purchases");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = TOTAL_PURCHASES.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -209,16 +298,15 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            DatabaseMetaData meta = conn.getMetaData();
-            ResultSet tables = meta.getTables(null, null, "comments_ratings", null);
-            if (!tables.next()) {
+            if (!tableExists(conn, "comments_ratings")) {
                 return 0;
             }
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM comments_ratings WHERE comment IS NOT NULL AND comment != ''");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = TOTAL_COMMENTS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -231,16 +319,15 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            DatabaseMetaData meta = conn.getMetaData();
-            ResultSet tables = meta.getTables(null, null, "comments_ratings", null);
-            if (!tables.next()) {
+            if (!tableExists(conn, "comments_ratings")) {
                 return 0;
             }
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM comments_ratings WHERE rating IS NOT NULL AND rating > 0");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = TOTAL_RATINGS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -254,16 +341,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return yearStats;
 
-            String sql = "SELECT year, COUNT(*) as count " +
-                        "FROM Cars " +
-                        "WHERE year IS NOT NULL " +
-                        "GROUP BY year " +
-                        "ORDER BY year DESC";
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-            while (rs.next()) {
-                yearStats.put(rs.getInt("year"), rs.getInt("count"));
+            try (PreparedStatement stmt = CARS_BY_YEAR.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    yearStats.put(rs.getInt("year"), rs.getInt("count"));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -276,10 +358,11 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return 0;
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT AVG(CAST(mileage AS FLOAT)) FROM Cars WHERE mileage IS NOT NULL");
-            if (rs.next()) {
-                return rs.getDouble(1);
+            try (PreparedStatement stmt = AVERAGE_MILEAGE.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -293,16 +376,15 @@ public class StatisticsService {
             if (conn == null) return 0;
 
             // Проверяем существование таблицы
-            DatabaseMetaData meta = conn.getMetaData();
-            ResultSet tables = meta.getTables(null, null, "Favorites", null);
-            if (!tables.next()) {
+            if (!tableExists(conn, "Favorites")) {
                 return 0; // Таблица не существует
             }
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM Favorites");
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (PreparedStatement stmt = TOTAL_FAVORITES.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -310,6 +392,179 @@ public class StatisticsService {
         return 0;
     }
 
+    // Сколько брендов показывать в топе на экране статистики
+    public static final int TOP_BRANDS_LIMIT = 5;
+
+    /**
+     * Все показатели экрана статистики за одно обращение к базе: одно соединение,
+     * один пакет запросов с несколькими результатами вместо ~15 отдельных.
+     * Необязательные таблицы проверяются одним запросом к метаданным, для отсутствующих — 0.
+     */
+    public static DashboardSnapshot getDashboardSnapshot() {
+        DashboardSnapshot snapshot = getDashboardSnapshot(EnumSet.allOf(Section.class), DashboardSnapshot.EMPTY);
+        // Нет подключения — пустой снимок не помечается свежим, чтобы кэш не держал его
+        return snapshot == DashboardSnapshot.EMPTY ? snapshot : snapshot.withLoadedAt(Instant.now());
+    }
+
+    /**
+     * Пересчитать только указанные разделы снимка, остальные значения взять из previous
+     * (время снимка loadedAt не меняется — его обновляет только полный пересчёт)
+     */
+    public static DashboardSnapshot getDashboardSnapshot(Set<Section> sections, DashboardSnapshot previous) {
+        if (sections.isEmpty()) return previous;
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            if (conn == null) return previous;
+
+            Set<String> tables = existingTables(conn);
+            SqlTemplate batch = SqlTemplate.variant("statistics.dashboard", dashboardSql(sections, tables));
+            try (PreparedStatement stmt = batch.prepare(conn)) {
+                if (sections.contains(Section.CARS)) {
+                    stmt.setInt(1, TOP_BRANDS_LIMIT);
+                }
+                stmt.execute();
+
+                ResultSet totals = stmt.getResultSet();
+                if (!totals.next()) {
+                    throw new SQLException("Пакет статистики вернул пустой результат");
+                }
+                DashboardSnapshot snapshot = previous;
+                if (sections.contains(Section.USERS)) {
+                    snapshot = snapshot.withUsers(totals.getInt("total_users"), totals.getInt("total_admins"),
+                            totals.getInt("active_users"), totals.getInt("inactive_users"));
+                }
+                if (sections.contains(Section.FAVORITES)) {
+                    snapshot = snapshot.withFavorites(totals.getInt("total_favorites"));
+                }
+                if (sections.contains(Section.ORDERS)) {
+                    snapshot = snapshot.withOrders(totals.getInt("total_reservations"), totals.getInt("total_purchases"));
+                }
+                if (sections.contains(Section.FEEDBACK)) {
+                    snapshot = snapshot.withFeedback(totals.getInt("total_comments"), totals.getInt("total_ratings"));
+                }
+                if (sections.contains(Section.CARS)) {
+                    int totalCars = totals.getInt("total_cars");
+                    double averagePrice = totals.getDouble("avg_price");
+                    double averageMileage = totals.getDouble("avg_mileage");
+
+                    ResultSet rs = nextResultSet(stmt);
+                    Car mostExpensive = rs.next() ? extractCarFromResultSet(rs) : null;
+
+                    rs = nextResultSet(stmt);
+                    Car cheapest = rs.next() ? extractCarFromResultSet(rs) : null;
+
+                    Map<String, Integer> topBrands = new LinkedHashMap<>();
+                    rs = nextResultSet(stmt);
+                    while (rs.next()) {
+                        topBrands.put(rs.getString("brand"), rs.getInt("count"));
+                    }
+                    snapshot = snapshot.withCars(totalCars, averagePrice, averageMileage, mostExpensive, cheapest, topBrands);
+                }
+                return snapshot;
+            }
+        } catch (SQLException e) {
+            // Старая схема (нет brand/mileage и т.п.) — собираем показатели прежними запросами
+            LoggerUtil.warning("Пакет статистики не выполнен, показатели загружаются по отдельности: " + e.getMessage());
+            return getDashboardSnapshotSeparately(sections, previous);
+        }
+    }
+
+    private static DashboardSnapshot getDashboardSnapshotSeparately(Set<Section> sections, DashboardSnapshot previous) {
+        DashboardSnapshot snapshot = previous;
+        if (sections.contains(Section.CARS)) {
+            snapshot = snapshot.withCars(getTotalCars(), getAveragePrice(), getAverageMileage(),
+                    getMostExpensiveCar(), getCheapestCar(), getTopBrands(TOP_BRANDS_LIMIT));
+        }
+        if (sections.contains(Section.USERS)) {
+            snapshot = snapshot.withUsers(getTotalUsers(), getTotalAdmins(), getTotalActiveUsers(), getTotalInactiveUsers());
+        }
+        if (sections.contains(Section.FAVORITES)) {
+            snapshot = snapshot.withFavorites(getTotalFavorites());
+        }
+        if (sections.contains(Section.ORDERS)) {
+            snapshot = snapshot.withOrders(getTotalReservations(), getTotalPurchases());
+        }
+        if (sections.contains(Section.FEEDBACK)) {
+            snapshot = snapshot.withFeedback(getTotalComments(), getTotalRatings());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Пакет запросов снимка: первая строка — счётчики и средние разделов (скалярные подзапросы),
+     * для раздела CARS затем самый дорогой, самый дешёвый автомобиль и топ брендов (параметр TOP).
+     * Текст зависит только от набора разделов и существующих таблиц — вариантов немного.
+     */
+    private static String dashboardSql(Set<Section> sections, Set<String> tables) {
+        List<String> columns = new ArrayList<>();
+        if (sections.contains(Section.CARS)) {
+            columns.add("(SELECT COUNT(*) FROM Cars) AS total_cars");
+            columns.add("(SELECT AVG(price) FROM Cars) AS avg_price");
+            columns.add("(SELECT AVG(CAST(mileage AS FLOAT)) FROM Cars WHERE mileage IS NOT NULL) AS avg_mileage");
+        }
+        if (sections.contains(Section.USERS)) {
+            columns.add("(SELECT COUNT(*) FROM users_secure WHERE role = 'user') AS total_users");
+            columns.add("(SELECT COUNT(*) FROM users_secure WHERE role = 'admin') AS total_admins");
+            columns.add("(SELECT COUNT(*) FROM users_secure WHERE is_active = 1) AS active_users");
+            columns.add("(SELECT COUNT(*) FROM users_secure WHERE is_active = 0) AS inactive_users");
+        }
+        if (sections.contains(Section.FAVORITES)) {
+            columns.add(countIfExists(tables, "Favorites", "", "total_favorites"));
+        }
+        if (sections.contains(Section.ORDERS)) {
+            columns.add(countIfExists(tables, "Reservations", "", "total_reservations"));
+            columns.add(countIfExists(tables, "Purchases", "", "total_purchases"));
+        }
+        if (sections.contains(Section.FEEDBACK)) {
+            columns.add(countIfExists(tables, "comments_ratings", " WHERE comment IS NOT NULL AND comment != ''", "total_comments"));
+            columns.add(countIfExists(tables, "comments_ratings", " WHERE rating IS NOT NULL AND rating > 0", "total_ratings"));
+        }
+
+        String sql = "SELECT " + String.join(", ", columns);
+        if (sections.contains(Section.CARS)) {
+            sql += "; " +
+                   "SELECT TOP 1 * FROM Cars ORDER BY price DESC; " +
+                   "SELECT TOP 1 * FROM Cars ORDER BY price ASC; " +
+                   TOP_BRANDS_SQL;
+        }
+        return sql;
+    }
+
+    private static String countIfExists(Set<String> tables, String table, String where, String alias) {
+        if (!tables.contains(table.toLowerCase())) {
+            return "0 AS " + alias;
+        }
+        return "(SELECT COUNT(*) FROM " + table + where + ") AS " + alias;
+    }
+
+    // Имена всех таблиц базы (в нижнем регистре) — один запрос к метаданным вместо проверки каждой
+    private static Set<String> existingTables(Connection conn) throws SQLException {
+        Set<String> tables = new HashSet<>();
+        try (ResultSet rs = conn.getMetaData().getTables(null, null, "%", new String[]{"TABLE"})) {
+            while (rs.next()) {
+                tables.add(rs.getString("TABLE_NAME").toLowerCase());
+            }
+        }
+        return tables;
+    }
+
+    // Есть ли таблица в базе
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (ResultSet rs = conn.getMetaData().getTables(null, null, table, null)) {
+            return rs.next();
+        }
+    }
+
+    // Следующий результат пакета (счётчики обновлений пропускаются)
+    private static ResultSet nextResultSet(Statement stmt) throws SQLException {
+        while (!stmt.getMoreResults()) {
+            if (stmt.getUpdateCount() == -1) {
+                throw new SQLException("Пакет статистики вернул меньше результатов, чем ожидалось");
+            }
+        }
+        return stmt.getResultSet();
+    }
+
     // Вспомогательный метод для извлечения Car из ResultSet
     private static Car extractCarFromResultSet(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
@@ -360,25 +615,19 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return items;
 
-            String sql = "SELECT f.id, u.username, c.name + ' ' + c.model AS car_name, c.brand, f.created_at " +
-                        "FROM Favorites f " +
-                        "JOIN users_secure u ON f.user_id = u.id " +
-                        "JOIN Cars c ON f.car_id = c.id " +
-                        "ORDER BY f.created_at DESC";
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String username = rs.getString("username");
-                String carName = rs.getString("car_name");
-                String brand = rs.getString("brand");
-                String date = rs.getTimestamp("created_at") != null ?
-                    rs.getTimestamp("created_at").toLocalDateTime().format(
-                        java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
-
-                items.add(new models.StatDetailsItem(id, username, carName, brand, date));
+            try (PreparedStatement stmt = FAVORITES_DETAILS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String username = rs.getString("username");
+                    String carName = rs.getString("car_name");
+                    String brand = rs.getString("brand");
+                    String date = rs.getTimestamp("created_at") != null ?
+                        rs.getTimestamp("created_at").toLocalDateTime().format(
+                            java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
+
+                    items.add(new models.StatDetailsItem(id, username, carName, brand, date));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -400,34 +649,27 @@ public class StatisticsService {
             }
 
             // Проверка существования таблицы
-            DatabaseMetaData meta = conn.getMetaData();
-            ResultSet tables = meta.getTables(null, null, "Reservations", null);
-            if (!tables.next()) {
+            if (!tableExists(conn, "Reservations")) {
                 System.err.println("⚠️ Таблица Reservations не найдена");
                 return items;
             }
 
-            String sql = "SELECT r.id, r.customer_name, c.name + ' ' + c.model AS car_name, r.status, r.created_at " +
-                        "FROM Reservations r " +
-                        "JOIN Cars c ON r.car_id = c.id " +
-                        "ORDER BY r.created_at DESC";
+            try (PreparedStatement stmt = RESERVATIONS_DETAILS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String customerName = rs.getString("customer_name");
+                    String carName = rs.getString("car_name");
+                    String status = rs.getString("status");
+                    String date = rs.getTimestamp("created_at") != null ?
+                        rs.getTimestamp("created_at").toLocalDateTime().format(
+                            java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
 
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String customerName = rs.getString("customer_name");
-                String carName = rs.getString("car_name");
-                String status = rs.getString("status");
-                String date = rs.getTimestamp("created_at") != null ?
-                    rs.getTimestamp("created_at").toLocalDateTime().format(
-                        java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
+                    items.add(new models.StatDetailsItem(id, customerName, carName, status, date));
+                }
 
-                items.add(new models.StatDetailsItem(id, customerName, carName, status, date));
+                System.out.println("✅ Загружено бронирований: " + items.size());
             }
-
-            System.out.println("✅ Загружено бронирований: " + items.size());
         } catch (SQLException e) {
             System.err.println("❌ Ошибка загрузки бронирований: " + e.getMessage());
             e.printStackTrace();
@@ -450,33 +692,27 @@ public class StatisticsService {
             }
 
             // Попробуем разные варианты имени таблицы
-            String sql = "SELECT p.id, p.customer_name, c.name + ' ' + c.model AS car_name, p.status, p.created_at " +
-                        "FROM purchases p " +
-                        "JOIN Cars c ON p.car_id = c.id " +
-                        "ORDER BY p.created_at DESC";
-
-            System.out.println("🔍 Выполняем SQL: " + sql);
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            int count = 0;
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String customerName = rs.getString("customer_name");
-                String carName = rs.getString("car_name");
-                String status = rs.getString("status");
-                String date = rs.getTimestamp("created_at") != null ?
-                    rs.getTimestamp("created_at").toLocalDateTime().format(
-                        java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
+            System.out.println("🔍 Выполняем SQL: " + PURCHASES_DETAILS.getSql());
+
+            try (PreparedStatement stmt = PURCHASES_DETAILS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                int count = 0;
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String customerName = rs.getString("customer_name");
+                    String carName = rs.getString("car_name");
+                    String status = rs.getString("status");
+                    String date = rs.getTimestamp("created_at") != null ?
+                        rs.getTimestamp("created_at").toLocalDateTime().format(
+                            java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
+
+                    items.add(new models.StatDetailsItem(id, customerName, carName, status, date));
+                    count++;
+                }
 
-                items.add(new models.StatDetailsItem(id, customerName, carName, status, date));
-                count++;
+                System.out.println("✅ Загружено покупок: " + count);
+                LoggerUtil.info("Загружено деталей покупок: " + count);
             }
-
-            System.out.println("✅ Загружено покупок: " + count);
-            LoggerUtil.info("Загружено деталей покупок: " + count);
-
         } catch (SQLException e) {
             System.err.println("❌ Ошибка загрузки покупок: " + e.getMessage());
             e.printStackTrace();
@@ -495,27 +731,19 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return items;
 
-            String sql = "SELECT cr.id, u.username, c.name + ' ' + c.model AS car_name, " +
-                        "SUBSTRING(cr.comment, 1, 50) + '...' AS comment_short, cr.created_at " +
-                        "FROM comments_ratings cr " +
-                        "JOIN users_secure u ON cr.user_id = u.id " +
-                        "JOIN Cars c ON cr.car_id = c.id " +
-                        "WHERE cr.comment IS NOT NULL " +
-                        "ORDER BY cr.created_at DESC";
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String username = rs.getString("username");
-                String carName = rs.getString("car_name");
-                String comment = rs.getString("comment_short");
-                String date = rs.getTimestamp("created_at") != null ?
-                    rs.getTimestamp("created_at").toLocalDateTime().format(
-                        java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
-
-                items.add(new models.StatDetailsItem(id, username, carName, comment, date));
+            try (PreparedStatement stmt = COMMENTS_DETAILS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String username = rs.getString("username");
+                    String carName = rs.getString("car_name");
+                    String comment = rs.getString("comment_short");
+                    String date = rs.getTimestamp("created_at") != null ?
+                        rs.getTimestamp("created_at").toLocalDateTime().format(
+                            java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
+
+                    items.add(new models.StatDetailsItem(id, username, carName, comment, date));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -533,27 +761,19 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return items;
 
-            String sql = "SELECT cr.id, u.username, c.name + ' ' + c.model AS car_name, " +
-                        "CAST(cr.rating AS VARCHAR) + '/5 звезд' AS rating_str, cr.created_at " +
-                        "FROM comments_ratings cr " +
-                        "JOIN users_secure u ON cr.user_id = u.id " +
-                        "JOIN Cars c ON cr.car_id = c.id " +
-                        "WHERE cr.rating IS NOT NULL " +
-                        "ORDER BY cr.created_at DESC";
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String username = rs.getString("username");
-                String carName = rs.getString("car_name");
-                String rating = rs.getString("rating_str");
-                String date = rs.getTimestamp("created_at") != null ?
-                    rs.getTimestamp("created_at").toLocalDateTime().format(
-                        java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
-
-                items.add(new models.StatDetailsItem(id, username, carName, rating, date));
+            try (PreparedStatement stmt = RATINGS_DETAILS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String username = rs.getString("username");
+                    String carName = rs.getString("car_name");
+                    String rating = rs.getString("rating_str");
+                    String date = rs.getTimestamp("created_at") != null ?
+                        rs.getTimestamp("created_at").toLocalDateTime().format(
+                            java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")) : "—";
+
+                    items.add(new models.StatDetailsItem(id, username, carName, rating, date));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -575,37 +795,35 @@ public class StatisticsService {
             }
 
             // Добавляем created_at в SELECT
-            String sql = "SELECT id, username, fullname, role, created_at FROM users_secure WHERE role = 'admin' ORDER BY id DESC";
-
-            System.out.println("🔍 Запрос админов: " + sql);
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            System.out.println("📊 Выполнен запрос админов");
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String username = rs.getString("username") != null ? rs.getString("username") : "—";
-                String fullname = rs.getString("fullname") != null ? rs.getString("fullname") : "—";
-                String role = rs.getString("role") != null ? rs.getString("role") : "—";
-                String date = "—";
-
-                try {
-                    Timestamp timestamp = rs.getTimestamp("created_at");
-                    if (timestamp != null) {
-                        date = timestamp.toLocalDateTime().format(
-                            java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+            System.out.println("🔍 Запрос админов: " + ADMINS_DETAILS.getSql());
+
+            try (PreparedStatement stmt = ADMINS_DETAILS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                System.out.println("📊 Выполнен запрос админов");
+
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String username = rs.getString("username") != null ? rs.getString("username") : "—";
+                    String fullname = rs.getString("fullname") != null ? rs.getString("fullname") : "—";
+                    String role = rs.getString("role") != null ? rs.getString("role") : "—";
+                    String date = "—";
+
+                    try {
+                        Timestamp timestamp = rs.getTimestamp("created_at");
+                        if (timestamp != null) {
+                            date = timestamp.toLocalDateTime().format(
+                                java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+                        }
+                    } catch (Exception ignored) {
+                        // Если created_at не существует или null
                     }
-                } catch (Exception ignored) {
-                    // Если created_at не существует или null
+
+                    items.add(new models.StatDetailsItem(id, username, fullname, "Роль: " + role, date));
+                    System.out.println("✅ Админ добавлен: " + username);
                 }
 
-                items.add(new models.StatDetailsItem(id, username, fullname, "Роль: " + role, date));
-                System.out.println("✅ Админ добавлен: " + username);
+                System.out.println("✅ Всего загружено админов: " + items.size());
             }
-
-            System.out.println("✅ Всего загружено админов: " + items.size());
         } catch (SQLException e) {
             System.err.println("❌ Ошибка загрузки админов: " + e.getMessage());
             e.printStackTrace();
@@ -623,29 +841,27 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return items;
 
-            String sql = "SELECT id, username, fullname, role, created_at FROM users_secure WHERE is_active = 1 ORDER BY id DESC";
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String username = rs.getString("username") != null ? rs.getString("username") : "—";
-                String fullname = rs.getString("fullname") != null ? rs.getString("fullname") : "—";
-                String role = rs.getString("role") != null ? rs.getString("role") : "—";
-                String date = "—";
-
-                try {
-                    Timestamp timestamp = rs.getTimestamp("created_at");
-                    if (timestamp != null) {
-                        date = timestamp.toLocalDateTime().format(
-                            java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+            try (PreparedStatement stmt = ACTIVE_USERS_DETAILS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String username = rs.getString("username") != null ? rs.getString("username") : "—";
+                    String fullname = rs.getString("fullname") != null ? rs.getString("fullname") : "—";
+                    String role = rs.getString("role") != null ? rs.getString("role") : "—";
+                    String date = "—";
+
+                    try {
+                        Timestamp timestamp = rs.getTimestamp("created_at");
+                        if (timestamp != null) {
+                            date = timestamp.toLocalDateTime().format(
+                                java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+                        }
+                    } catch (Exception ignored) {
+                        // Если created_at не существует или null
                     }
-                } catch (Exception ignored) {
-                    // Если created_at не существует или null
-                }
 
-                items.add(new models.StatDetailsItem(id, username, fullname, "Роль: " + role, date));
+                    items.add(new models.StatDetailsItem(id, username, fullname, "Роль: " + role, date));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -663,29 +879,27 @@ public class StatisticsService {
         try (Connection conn = DatabaseConnection.getConnection()) {
             if (conn == null) return items;
 
-            String sql = "SELECT id, username, fullname, role, created_at FROM users_secure WHERE is_active = 0 ORDER BY id DESC";
-
-            Statement stmt = conn.createStatement();
-            ResultSet rs = stmt.executeQuery(sql);
-
-            while (rs.next()) {
-                int id = rs.getInt("id");
-                String username = rs.getString("username") != null ? rs.getString("username") : "—";
-                String fullname = rs.getString("fullname") != null ? rs.getString("fullname") : "—";
-                String role = rs.getString("role") != null ? rs.getString("role") : "—";
-                String date = "—";
-
-                try {
-                    Timestamp timestamp = rs.getTimestamp("created_at");
-                    if (timestamp != null) {
-                        date = timestamp.toLocalDateTime().format(
-                            java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+            try (PreparedStatement stmt = INACTIVE_USERS_DETAILS.prepare(conn);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("id");
+                    String username = rs.getString("username") != null ? rs.getString("username") : "—";
+                    String fullname = rs.getString("fullname") != null ? rs.getString("fullname") : "—";
+                    String role = rs.getString("role") != null ? rs.getString("role") : "—";
+                    String date = "—";
+
+                    try {
+                        Timestamp timestamp = rs.getTimestamp("created_at");
+                        if (timestamp != null) {
+                            date = timestamp.toLocalDateTime().format(
+                                java.time.format.DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm"));
+                        }
+                    } catch (Exception ignored) {
+                        // Если created_at не существует или null
                     }
-                } catch (Exception ignored) {
-                    // Если created_at не существует или null
-                }
 
-                items.add(new models.StatDetailsItem(id, username, fullname, "Роль: " + role, date));
+                    items.add(new models.StatDetailsItem(id, username, fullname, "Роль: " + role, date));
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
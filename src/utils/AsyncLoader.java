@@ -0,0 +1,141 @@
+package utils;
+
+import javafx.application.Platform;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Window;
+import javafx.stage.WindowEvent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Фоновая загрузка данных вне JavaFX Application Thread.
+ * Запросы к базе выполняются в виртуальных потоках, результат возвращается
+ * в поток интерфейса. Загрузки объединяются в Scope, который отменяется
+ * при закрытии окна (или смене сцены), чтобы не обновлять уже скрытый экран.
+ */
+public class AsyncLoader {
+
+    private static final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * Причина ошибки загрузки в виде Exception (для LoggerUtil.error)
+     */
+    public static Exception cause(Throwable error) {
+        Throwable e = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return e instanceof Exception ex ? ex : new RuntimeException(e);
+    }
+
+    /**
+     * Отмена загрузки (экран закрыт или загрузка перезапущена) — это не ошибка
+     */
+    public static boolean isCancelled(Throwable error) {
+        return error instanceof CancellationException
+                || (error instanceof CompletionException && error.getCause() instanceof CancellationException);
+    }
+
+    /**
+     * Новая группа загрузок, привязанная к узлу экрана
+     */
+    public static Scope scopeFor(Node node) {
+        Scope scope = new Scope();
+        scope.bindTo(node);
+        return scope;
+    }
+
+    /**
+     * Группа загрузок одного экрана. Все CompletableFuture завершаются в FX-потоке,
+     * поэтому thenAccept/whenComplete можно сразу использовать для обновления UI.
+     */
+    public static class Scope {
+        private volatile boolean closed;
+        private Window watchedWindow;
+        private final javafx.event.EventHandler<WindowEvent> onHidden = e -> close();
+
+        /**
+         * Выполнить загрузку в фоне
+         */
+        public <T> CompletableFuture<T> load(Callable<T> work) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            if (closed) {
+                result.cancel(false);
+                return result;
+            }
+
+            executor.submit(() -> {
+                try {
+                    T value = work.call();
+                    completeOnFx(result, value, null);
+                } catch (Throwable e) {
+                    completeOnFx(result, null, e);
+                }
+            });
+            return result;
+        }
+
+        /**
+         * Отменить все незавершённые загрузки; их результаты будут отброшены
+         */
+        public void close() {
+            closed = true;
+            if (watchedWindow != null) {
+                watchedWindow.removeEventHandler(WindowEvent.WINDOW_HIDDEN, onHidden);
+                watchedWindow = null;
+            }
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        private <T> void completeOnFx(CompletableFuture<T> result, T value, Throwable error) {
+            Platform.runLater(() -> {
+                if (closed || error instanceof CancellationException) {
+                    result.cancel(false);
+                } else if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        }
+
+        /**
+         * Закрыть scope, когда окно узла скрыто или узел ушёл со сцены окна
+         */
+        private void bindTo(Node node) {
+            if (node == null) return;
+
+            node.sceneProperty().addListener((obs, oldScene, newScene) -> {
+                if (oldScene != null && newScene == null) close();
+                watchScene(newScene);
+            });
+            watchScene(node.getScene());
+        }
+
+        private void watchScene(Scene scene) {
+            if (scene == null) return;
+
+            scene.windowProperty().addListener((obs, oldWindow, newWindow) -> {
+                // stage.setScene(...) — сцена больше не показывается
+                if (oldWindow != null && newWindow == null) close();
+                watchWindow(newWindow);
+            });
+            watchWindow(scene.getWindow());
+        }
+
+        private void watchWindow(Window window) {
+            if (window == null || closed) return;
+            if (watchedWindow != null) {
+                watchedWindow.removeEventHandler(WindowEvent.WINDOW_HIDDEN, onHidden);
+            }
+            watchedWindow = window;
+            window.addEventHandler(WindowEvent.WINDOW_HIDDEN, onHidden);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package utils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Асинхронная запись лога: вызывающий поток (часто FX) только кладёт запись в кольцевой буфер,
+ * форматирование, вывод в консоль и запись в файл выполняет фоновый поток "carhub-log"
+ * пачками через один открытый файл с ротацией (RollingLogFile).
+ *
+ * Буфер без блокировок (много писателей, один читатель): слот занимается CAS по номеру записи.
+ * При переполнении важные записи (ошибки, предупреждения, вход/выход) ждут место до
+ * carhub.log.blockMs, остальные сразу отбрасываются; число отброшенных пишется в лог.
+ */
+public class AsyncLogAppender {
+
+    private static final int BATCH_LIMIT = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    /**
+     * Запись лога. label == null — системное событие без типа, raw — текст как есть (без времени)
+     */
+    private record Entry(long millis, String label, String message, boolean raw) {}
+
+    private final RollingLogFile file;
+    private final boolean console;
+    private final long blockNanos;
+
+    // Кольцевой буфер: sequences[i] == номер записи — слот свободен для неё,
+    // номер + 1 — запись готова к чтению
+    private final Entry[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private long droppedReported;
+
+    private final Thread writer;
+    private volatile boolean writerParked;
+    private volatile boolean closed;
+
+    // Файл пишет только поток writer; lock нужен для clear() и close()
+    private final Object fileLock = new Object();
+
+    private final StringBuilder text = new StringBuilder(16 * 1024);
+    private long firstMillis;
+    private long lastMillis;
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedTimestamp;
+
+    /**
+     * @param file       файл лога (дописывается, ротацию выполняет он сам)
+     * @param capacity   размер буфера (округляется до степени двойки)
+     * @param blockMillis сколько важная запись ждёт места в полном буфере
+     * @param console    дублировать ли записи в System.out
+     */
+    public AsyncLogAppender(RollingLogFile file, int capacity, long blockMillis, boolean console) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.file = file;
+        this.console = console;
+        this.blockNanos = TimeUnit.MILLISECONDS.toNanos(blockMillis);
+        this.slots = new Entry[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+
+        writer = new Thread(this::writeLoop, "carhub-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Поставить запись в очередь
+     *
+     * @param label     тип записи (null — системное событие)
+     * @param important не отбрасывать сразу при переполнении, а подождать место
+     */
+    public void append(String label, String message, boolean important) {
+        offer(new Entry(System.currentTimeMillis(), label, message, false), important);
+    }
+
+    /**
+     * Текст без времени и типа (разделители)
+     */
+    public void appendRaw(String text) {
+        offer(new Entry(0, null, text, true), true);
+    }
+
+    /**
+     * Сколько записей отброшено из-за переполнения буфера
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Очистить файл лога (записи в очереди попадут уже в пустой файл)
+     */
+    public void clear() {
+        synchronized (fileLock) {
+            try {
+                file.truncate();
+            } catch (IOException e) {
+                System.err.println("Ошибка очистки лог-файла: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Дописать всё из буфера и закрыть файл (хук завершения приложения)
+     */
+    public void close(long timeoutMillis) {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (fileLock) {
+            if (!writer.isAlive()) {
+                // Записи, успевшие попасть в буфер после последнего прохода потока
+                Entry[] batch = new Entry[BATCH_LIMIT];
+                int count;
+                while ((count = drain(batch)) > 0) {
+                    write(batch, count);
+                }
+            }
+            file.close();
+        }
+    }
+
+    private void offer(Entry entry, boolean important) {
+        if (closed && !writer.isAlive()) {
+            // Поток записи уже завершён (поздний вызов из хука) — пишем сразу
+            synchronized (fileLock) {
+                write(new Entry[]{entry}, 1);
+                file.close();
+            }
+            return;
+        }
+
+        long deadline = 0;
+        while (true) {
+            long position = tail.get();
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = entry;
+                    sequences.set(index, position + 1);
+                    if (writerParked) {
+                        LockSupport.unpark(writer);
+                    }
+                    return;
+                }
+            } else if (sequence < position) {
+                // Буфер полон
+                if (!important || closed) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                long now = System.nanoTime();
+                if (deadline == 0) {
+                    deadline = now + blockNanos;
+                } else if (now >= deadline) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                LockSupport.unpark(writer);
+                LockSupport.parkNanos(50_000);
+            }
+            // sequence > position — другой поток уже занял слот, пробуем следующий
+        }
+    }
+
+    private void writeLoop() {
+        Entry[] batch = new Entry[BATCH_LIMIT];
+        while (true) {
+            int count = drain(batch);
+            if (count > 0) {
+                synchronized (fileLock) {
+                    write(batch, count);
+                }
+                java.util.Arrays.fill(batch, 0, count, null);
+                continue;
+            }
+            if (closed) {
+                synchronized (fileLock) {
+                    write(batch, 0);
+                }
+                return;
+            }
+            writerParked = true;
+            // Повторная проверка: запись могла прийти между drain() и writerParked = true
+            if (!hasPending()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+            writerParked = false;
+        }
+    }
+
+    private int drain(Entry[] batch) {
+        int count = 0;
+        while (count < batch.length) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) break;
+            batch[count++] = slots[index];
+            slots[index] = null;
+            sequences.set(index, head + mask + 1);
+            head++;
+        }
+        return count;
+    }
+
+    private boolean hasPending() {
+        return sequences.get((int) head & mask) == head + 1;
+    }
+
+    /**
+     * Отформатировать пачку и записать её одним вызовом в консоль и в файл.
+     * Если в пачке сменился день, часть до полуночи уходит в старый сегмент.
+     */
+    private void write(Entry[] batch, int count) {
+        text.setLength(0);
+        firstMillis = 0;
+        long droppedNow = dropped.get();
+        if (droppedNow != droppedReported) {
+            appendLine(System.currentTimeMillis(), LoggerUtil.LogLevel.WARNING.getLabel(),
+                    "Пропущено записей лога (буфер переполнен): " + (droppedNow - droppedReported));
+            droppedReported = droppedNow;
+        }
+        for (int i = 0; i < count; i++) {
+            Entry entry = batch[i];
+            if (entry.raw()) {
+                text.append(entry.message());
+                continue;
+            }
+            if (file.isNewDay(entry.millis())) {
+                flush();
+                file.roll();
+            }
+            appendLine(entry.millis(), entry.label(), entry.message());
+        }
+        flush();
+    }
+
+    private void flush() {
+        if (text.length() == 0) return;
+
+        if (console) {
+            PrintStream out = System.out;
+            out.print(text);
+        }
+        try {
+            ByteBuffer bytes = StandardCharsets.UTF_8.encode(java.nio.CharBuffer.wrap(text));
+            file.write(bytes, firstMillis, lastMillis);
+        } catch (IOException e) {
+            System.err.println("Ошибка записи в лог-файл: " + e.getMessage());
+            file.close();
+        }
+        text.setLength(0);
+        firstMillis = 0;
+    }
+
+    private void appendLine(long millis, String label, String message) {
+        if (firstMillis == 0) {
+            firstMillis = millis;
+        }
+        lastMillis = millis;
+        text.append('[').append(timestamp(millis)).append("] ");
+        if (label != null) {
+            text.append(label).append(": ");
+        }
+        text.append(message).append(System.lineSeparator());
+    }
+
+    // Время форматируется один раз на секунду — в пачке записи обычно из одной секунды
+    private String timestamp(long millis) {
+        long second = millis / 1000;
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()).format(TIMESTAMP);
+        }
+        return cachedTimestamp;
+    }
+}
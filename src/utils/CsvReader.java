@@ -0,0 +1,236 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Потоковое чтение CSV (RFC 4180): записи читаются по одной, в памяти только текущая.
+ *
+ * Кодировка определяется по BOM (UTF-8, UTF-16 LE/BE), без BOM — UTF-8. Разделитель
+ * (запятая, точка с запятой или табуляция) определяется по строке заголовка: Excel
+ * с русской локалью сохраняет CSV через точку с запятой. Поля в кавычках могут содержать
+ * разделитель, перевод строки и удвоенные кавычки.
+ */
+public class CsvReader implements Closeable {
+
+    // Защита от незакрытой кавычки: иначе весь остаток файла стал бы одной записью
+    private static final int MAX_RECORD_CHARS = 64 * 1024;
+
+    private final CountingInputStream counter;
+    private final BufferedReader reader;
+    private final long totalBytes;
+    private char delimiter;
+    private long lineNumber = 1;
+    private long recordLine;
+    private int pending = -2;
+
+    private CsvReader(CountingInputStream counter, InputStream in, Charset charset, long totalBytes) {
+        this.counter = counter;
+        this.reader = new BufferedReader(new InputStreamReader(in, charset), 64 * 1024);
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Открыть файл: кодировка по BOM, разделитель — по первой строке
+     */
+    public static CsvReader open(File file) throws IOException {
+        CountingInputStream counter = new CountingInputStream(Files.newInputStream(file.toPath()));
+        try {
+            PushbackInputStream in = new PushbackInputStream(counter, 3);
+            byte[] bom = new byte[3];
+            int n = in.readNBytes(bom, 0, 3);
+            Charset charset = StandardCharsets.UTF_8;
+            int skip = 0;
+            if (n >= 3 && (bom[0] & 0xFF) == 0xEF && (bom[1] & 0xFF) == 0xBB && (bom[2] & 0xFF) == 0xBF) {
+                skip = 3;
+            } else if (n >= 2 && (bom[0] & 0xFF) == 0xFF && (bom[1] & 0xFF) == 0xFE) {
+                charset = StandardCharsets.UTF_16LE;
+                skip = 2;
+            } else if (n >= 2 && (bom[0] & 0xFF) == 0xFE && (bom[1] & 0xFF) == 0xFF) {
+                charset = StandardCharsets.UTF_16BE;
+                skip = 2;
+            }
+            in.unread(bom, skip, n - skip);
+
+            CsvReader csv = new CsvReader(counter, in, charset, file.length());
+            csv.delimiter = csv.detectDelimiter();
+            return csv;
+        } catch (IOException | RuntimeException e) {
+            counter.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Самый частый из , ; \t вне кавычек в первой строке (по умолчанию — запятая)
+     */
+    private char detectDelimiter() throws IOException {
+        reader.mark(MAX_RECORD_CHARS);
+        int commas = 0, semicolons = 0, tabs = 0;
+        boolean quoted = false;
+        for (int i = 0, c; i < MAX_RECORD_CHARS && (c = reader.read()) != -1; i++) {
+            if (c == '"') quoted = !quoted;
+            else if (!quoted && (c == '\n' || c == '\r')) break;
+            else if (!quoted && c == ',') commas++;
+            else if (!quoted && c == ';') semicolons++;
+            else if (!quoted && c == '\t') tabs++;
+        }
+        reader.reset();
+        if (semicolons > commas && semicolons >= tabs) return ';';
+        if (tabs > commas && tabs > semicolons) return '\t';
+        return ',';
+    }
+
+    /**
+     * Следующая запись или null в конце файла. Пустые строки пропускаются.
+     */
+    public List<String> next() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == -1) return null;
+            if (c == '\r' || c == '\n') {
+                consumeNewline(c);
+                continue;
+            }
+            unread(c);
+            return readRecord();
+        }
+    }
+
+    private List<String> readRecord() throws IOException {
+        recordLine = lineNumber;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        int chars = 0;
+
+        while (true) {
+            int c = read();
+            if (++chars > MAX_RECORD_CHARS) {
+                throw new IOException("Слишком длинная запись в строке " + recordLine + " (незакрытая кавычка?)");
+            }
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("Незакрытая кавычка в записи со строки " + recordLine);
+                }
+                if (c == '"') {
+                    int next = read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        unread(next);
+                    }
+                } else {
+                    if (c == '\n') lineNumber++;
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                fields.add(field.toString());
+                if (c != -1) consumeNewline(c);
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+        }
+    }
+
+    private void consumeNewline(int c) throws IOException {
+        lineNumber++;
+        if (c == '\r') {
+            int next = read();
+            if (next != '\n') unread(next);
+        }
+    }
+
+    private int read() throws IOException {
+        if (pending != -2) {
+            int c = pending;
+            pending = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pending = c;
+    }
+
+    /**
+     * Номер строки файла, с которой началась последняя прочитанная запись
+     */
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    /**
+     * Прочитано байт файла (с учётом буфера чтения — для индикатора прогресса)
+     */
+    public long getBytesRead() {
+        return counter.count;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Счётчик прочитанных байт
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
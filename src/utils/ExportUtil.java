@@ -4,6 +4,7 @@ import models.Car;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Locale;
 
 /**
  * Утилита для экспорта данных в различные форматы
@@ -28,9 +29,9 @@ public class ExportUtil {
             // Заголовок CSV
             writer.write("ID,Название,Модель,Цена,Бренд,Год,Пробег,Описание,Фото\n");
 
-            // Данные
+            // Данные (цена с точкой при любой локали — иначе запятая сдвигает колонки)
             for (Car car : cars) {
-                String line = String.format("%d,\"%s\",\"%s\",%.2f,\"%s\",%s,%s,\"%s\",\"%s\"\n",
+                String line = String.format(Locale.ROOT, "%d,\"%s\",\"%s\",%.2f,\"%s\",%s,%s,\"%s\",\"%s\"\n",
                     car.getId(),
                     escapeCSV(car.getName()),
                     escapeCSV(car.getModel()),
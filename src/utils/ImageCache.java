@@ -1,87 +1,280 @@
 package utils;
 
 import javafx.scene.image.Image;
-import java.util.HashMap;
+import monitoring.ImageLoadEvent;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Кэш для изображений, чтобы не загружать их повторно
+ * Кэш для изображений, чтобы не загружать их повторно.
+ * LRU с ограничением по объёму декодированных пикселей (ширина × высота × 4 байта),
+ * потокобезопасный. Повторный запрос URL, который ещё грузится, получает тот же
+ * объект Image — загрузка выполняется один раз.
  */
 public class ImageCache {
 
-    private static final Map<String, Image> cache = new HashMap<>();
-    private static final int MAX_CACHE_SIZE = 50; // Максимум 50 изображений в кэше
+    // Бюджет памяти на декодированные изображения (можно переопределить через -Dcarhub.imageCache.maxBytes)
+    private static final long MAX_BYTES = Long.getLong("carhub.imageCache.maxBytes", 128L * 1024 * 1024);
+
+    private static final String PLACEHOLDER_URL = "https://via.placeholder.com/400x250?text=No+Image";
+
+    // accessOrder = true: при get() запись переносится в конец, первой вытесняется самая старая
+    private static final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private static long totalBytes = 0;
+    private static Image placeholder;
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private static class Entry {
+        final Image image;
+        long bytes;
+        // JFR: загрузка от запроса до готовых пикселей (null — событие не записывается)
+        ImageLoadEvent event;
+
+        Entry(Image image) {
+            this.image = image;
+        }
+    }
 
     /**
-     * Получить изображение из кэша или загрузить новое
+     * Получить изображение из кэша или загрузить новое (в исходном размере)
      */
     public static Image getImage(String url) {
+        return getImage(url, 0, 0);
+    }
+
+    /**
+     * Получить изображение, уменьшенное при декодировании до размера width × height
+     * (с сохранением пропорций). 0 — исходный размер.
+     */
+    public static Image getImage(String url, double width, double height) {
         if (url == null || url.isBlank()) {
             return getPlaceholder();
         }
 
-        // Проверяем кэш
-        if (cache.containsKey(url)) {
-            return cache.get(url);
+        String key = width > 0 || height > 0 ? url + "@" + (int) width + "x" + (int) height : url;
+
+        Entry entry;
+        synchronized (cache) {
+            // Проверяем кэш (в том числе изображения, которые ещё загружаются)
+            entry = cache.get(key);
+            if (entry != null && !entry.image.isError()) {
+                hits.incrementAndGet();
+                return entry.image;
+            }
+            if (entry != null) {
+                // Прошлая загрузка завершилась ошибкой — пробуем заново
+                remove(key);
+            }
+            misses.incrementAndGet();
         }
 
-        // Загружаем новое изображение
-        Image image = loadImage(url);
+        // Чтение миниатюры с диска и создание Image — без блокировки кэша:
+        // остальные запросы и вытеснение не ждут дискового ввода-вывода
+        ImageLoadEvent event = new ImageLoadEvent();
+        event.begin();
+        Image image = null;
+        boolean sized = width > 0 && height > 0;
+        if (sized) {
+            // Уменьшенная копия, сохранённая на диске при прошлых запусках
+            image = ThumbnailStore.load(url, (int) width, (int) height);
+        }
+        boolean fromDisk = image != null;
+        if (image == null) {
+            image = loadImage(url, width, height);
+            if (image == null) {
+                return getPlaceholder();
+            }
+        }
 
-        // Добавляем в кэш (если кэш не переполнен)
-        if (cache.size() < MAX_CACHE_SIZE) {
-            cache.put(url, image);
+        synchronized (cache) {
+            // Пока шла загрузка, то же изображение мог положить в кэш другой поток
+            Entry existing = cache.get(key);
+            if (existing != null && !existing.image.isError()) {
+                return existing.image;
+            }
+            entry = new Entry(image);
+            if (event.isEnabled()) {
+                event.url = url;
+                event.requestedWidth = (int) width;
+                event.requestedHeight = (int) height;
+                event.thumbnail = fromDisk;
+                entry.event = event;
+            }
+            cache.put(key, entry);
         }
 
-        return image;
+        if (sized && !fromDisk) {
+            ThumbnailStore.saveWhenLoaded(url, (int) width, (int) height, image);
+        }
+        trackSize(key, entry);
+        return entry.image;
+    }
+
+    /**
+     * Учитываем реальный объём после декодирования (загрузка идёт в фоне)
+     */
+    private static void trackSize(String key, Entry entry) {
+        Image image = entry.image;
+        image.progressProperty().addListener((obs, oldV, newV) -> {
+            if (newV.doubleValue() >= 1.0) {
+                onLoaded(key, entry);
+            }
+        });
+        image.errorProperty().addListener((obs, oldV, newV) -> {
+            if (newV) {
+                onLoaded(key, entry);
+            }
+        });
+        // Загрузка могла завершиться до подписки
+        if (image.getProgress() >= 1.0 || image.isError()) {
+            onLoaded(key, entry);
+        }
+    }
+
+    private static void onLoaded(String key, Entry entry) {
+        commitLoadEvent(entry);
+        synchronized (cache) {
+            if (cache.get(key) != entry) return; // Уже вытеснено
+
+            if (entry.image.isError()) {
+                System.err.println("⚠️ Ошибка загрузки изображения: " + key);
+                remove(key);
+                return;
+            }
+
+            long bytes = (long) entry.image.getWidth() * (long) entry.image.getHeight() * 4;
+            totalBytes += bytes - entry.bytes;
+            entry.bytes = bytes;
+            evictIfNeeded();
+        }
+    }
+
+    private static void commitLoadEvent(Entry entry) {
+        ImageLoadEvent event = entry.event;
+        if (event == null) return;
+        entry.event = null;
+        event.end();
+        if (event.shouldCommit()) {
+            event.width = (int) entry.image.getWidth();
+            event.height = (int) entry.image.getHeight();
+            event.error = entry.image.isError();
+            event.commit();
+        }
+    }
+
+    private static void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> it = cache.entrySet().iterator();
+        // Самое свежее изображение не вытесняем, даже если оно одно больше бюджета
+        while (totalBytes > MAX_BYTES && cache.size() > 1 && it.hasNext()) {
+            Entry eldest = it.next().getValue();
+            it.remove();
+            totalBytes -= eldest.bytes;
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static void remove(String key) {
+        Entry removed = cache.remove(key);
+        if (removed != null) {
+            totalBytes -= removed.bytes;
+        }
     }
 
     /**
      * Загрузка изображения с обработкой ошибок
      */
-    private static Image loadImage(String url) {
+    private static Image loadImage(String url, double width, double height) {
         try {
             // Локальный файл из resources
             if (url.startsWith("/resources/") || url.startsWith("resources/")) {
                 String resourcePath = url.startsWith("/") ? url : "/" + url;
                 var resourceUrl = ImageCache.class.getResource(resourcePath);
                 if (resourceUrl != null) {
-                    return new Image(resourceUrl.toExternalForm(), true);
+                    return new Image(resourceUrl.toExternalForm(), width, height, true, true, true);
                 }
             }
 
             // URL из интернета или локальный файл
-            return new Image(url, true);
+            return new Image(url, width, height, true, true, true);
 
         } catch (Exception e) {
             System.err.println("⚠️ Ошибка загрузки изображения: " + url);
-            return getPlaceholder();
+            return null;
         }
     }
 
     /**
-     * Плейсхолдер для отсутствующих изображений
+     * Плейсхолдер для отсутствующих изображений (хранится отдельно и не вытесняется)
      */
     private static Image getPlaceholder() {
-        String placeholderUrl = "https://via.placeholder.com/400x250?text=No+Image";
-        if (!cache.containsKey(placeholderUrl)) {
-            cache.put(placeholderUrl, new Image(placeholderUrl, true));
+        synchronized (cache) {
+            if (placeholder == null) {
+                placeholder = new Image(PLACEHOLDER_URL, true);
+            }
+            return placeholder;
         }
-        return cache.get(placeholderUrl);
+    }
+
+    /**
+     * Убрать из кэша все размеры изображения, в том числе копии на диске
+     */
+    public static void invalidate(String url) {
+        if (url == null || url.isBlank()) return;
+        synchronized (cache) {
+            cache.keySet().removeIf(key -> key.equals(url) || key.startsWith(url + "@"));
+            totalBytes = 0;
+            for (Entry entry : cache.values()) {
+                totalBytes += entry.bytes;
+            }
+        }
+        ThumbnailStore.invalidate(url);
     }
 
     /**
      * Очистить кэш (полезно при выходе из приложения)
      */
     public static void clearCache() {
-        cache.clear();
+        synchronized (cache) {
+            cache.clear();
+            totalBytes = 0;
+        }
     }
 
     /**
      * Получить размер кэша
      */
     public static int getCacheSize() {
-        return cache.size();
+        synchronized (cache) {
+            return cache.size();
+        }
     }
-}
 
+    /**
+     * Объём декодированных изображений в кэше, байт
+     */
+    public static long getCacheBytes() {
+        synchronized (cache) {
+            return totalBytes;
+        }
+    }
+
+    public static long getHits() { return hits.get(); }
+    public static long getMisses() { return misses.get(); }
+    public static long getEvictions() { return evictions.get(); }
+
+    /**
+     * Краткая сводка для логов
+     */
+    public static String getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        double hitRate = h + m == 0 ? 0 : 100.0 * h / (h + m);
+        return String.format("изображений=%d, объём=%.1f МБ из %.1f МБ, попадания=%d (%.1f%%), промахи=%d, вытеснено=%d",
+                getCacheSize(), getCacheBytes() / 1048576.0, MAX_BYTES / 1048576.0, h, hitRate, m, evictions.get());
+    }
+}
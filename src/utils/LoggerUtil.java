@@ -1,19 +1,26 @@
 package utils;
 
 import java.io.File;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.List;
 
 /**
- * Утилита для логирования действий пользователей и системных событий
+ * Утилита для логирования действий пользователей и системных событий.
+ * Запись асинхронная (см. AsyncLogAppender): вызов только ставит сообщение в очередь.
  */
 public class LoggerUtil {
 
     private static final String LOG_FILE = "carhub_logs.txt";
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final RollingLogFile logFile = new RollingLogFile(
+            Path.of(LOG_FILE),
+            Long.getLong("carhub.log.maxSizeMb", 10) * 1024 * 1024,
+            Integer.getInteger("carhub.log.maxSegments", 30));
+    private static final AsyncLogAppender appender = new AsyncLogAppender(
+            logFile,
+            Integer.getInteger("carhub.log.bufferSize", 8192),
+            Long.getLong("carhub.log.blockMs", 100),
+            !Boolean.getBoolean("carhub.log.noConsole"));
     private static boolean sessionActive = false;
     private static String currentSessionUser = null;
 
@@ -25,6 +32,7 @@ public class LoggerUtil {
             }
             logSystemEvent("Приложение завершено");
             writeSeparator();
+            appender.close(2000);
         }));
     }
 
@@ -54,26 +62,8 @@ public class LoggerUtil {
      * Основной метод логирования
      */
     private static void log(LogLevel level, String message) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String logEntry = String.format("[%s] %s: %s%n", timestamp, level.getLabel(), message);
-
-        // Вывод в консоль
-        System.out.print(logEntry);
-
-        // Запись в файл
-        writeToFile(logEntry);
-    }
-
-    /**
-     * Запись в файл с правильной кодировкой UTF-8
-     */
-    private static void writeToFile(String logEntry) {
-        try (FileWriter fw = new FileWriter(LOG_FILE, java.nio.charset.StandardCharsets.UTF_8, true);
-             PrintWriter pw = new PrintWriter(fw)) {
-            pw.print(logEntry);
-        } catch (IOException e) {
-            System.err.println("Ошибка записи в лог-файл: " + e.getMessage());
-        }
+        // Форматирование, консоль и файл — в потоке записи лога
+        appender.append(level.getLabel(), message, level != LogLevel.INFO && level != LogLevel.ACTION && level != LogLevel.SUCCESS);
     }
 
     // ========== ПУБЛИЧНЫЕ МЕТОДЫ ==========
@@ -142,14 +132,14 @@ public class LoggerUtil {
             sessionActive = true;
         }
         currentSessionUser = username;
-        auth(String.format("👤 Вход: пользователь '%s' (роль: %s)", username, role));
+        auth("👤 Вход: пользователь '" + username + "' (роль: " + role + ")");
     }
 
     /**
      * Логирование выхода пользователя
      */
     public static void logLogout(String username) {
-        auth(String.format("👋 Выход: пользователь '%s'", username));
+        auth("👋 Выход: пользователь '" + username + "'");
         logSessionEnd(username, "Нормальный выход");
     }
 
@@ -171,66 +161,74 @@ public class LoggerUtil {
      * Системное событие (без типа лога)
      */
     private static void logSystemEvent(String message) {
-        String timestamp = LocalDateTime.now().format(formatter);
-        String logEntry = String.format("[%s] %s%n", timestamp, message);
-        System.out.print(logEntry);
-        writeToFile(logEntry);
+        appender.append(null, message, true);
     }
 
     /**
      * Разделитель между сессиями
      */
     private static void writeSeparator() {
-        String separator = "\n" + "=".repeat(80) + "\n";
-        writeToFile(separator);
+        appender.appendRaw("\n" + "=".repeat(80) + "\n");
     }
 
     /**
      * Логирование регистрации
      */
     public static void logRegistration(String username) {
-        auth(String.format("Регистрация нового пользователя: '%s'", username));
+        auth("Регистрация нового пользователя: '" + username + "'");
     }
 
     /**
      * Логирование добавления авто
      */
     public static void logCarAdded(String carName, String username) {
-        action(String.format("Добавлен автомобиль '%s' пользователем '%s'", carName, username));
+        action("Добавлен автомобиль '" + carName + "' пользователем '" + username + "'");
     }
 
     /**
      * Логирование редактирования авто
      */
     public static void logCarEdited(String carName, String username) {
-        action(String.format("Изменён автомобиль '%s' пользователем '%s'", carName, username));
+        action("Изменён автомобиль '" + carName + "' пользователем '" + username + "'");
     }
 
     /**
      * Логирование удаления авто
      */
     public static void logCarDeleted(String carName, String username) {
-        action(String.format("Удалён автомобиль '%s' пользователем '%s'", carName, username));
+        action("Удалён автомобиль '" + carName + "' пользователем '" + username + "'");
     }
 
     /**
      * Логирование экспорта
      */
     public static void logExport(String username, int recordCount) {
-        action(String.format("Экспорт данных: %d записей, пользователь '%s'", recordCount, username));
+        action("Экспорт данных: " + recordCount + " записей, пользователь '" + username + "'");
     }
 
     /**
      * Очистка старых логов (опционально)
      */
     public static void clearLogs() {
-        File logFile = new File(LOG_FILE);
-        if (logFile.exists()) {
-            logFile.delete();
-        }
+        // Файл держит открытым поток записи — усекаем через него, а не удаляем
+        appender.clear();
         info("Лог-файл очищен");
     }
 
+    /**
+     * Сколько записей отброшено из-за переполнения очереди лога
+     */
+    public static long getDroppedCount() {
+        return appender.getDroppedCount();
+    }
+
+    /**
+     * Архивные сегменты лога за период (по индексу logs/carhub_logs.index.txt)
+     */
+    public static List<RollingLogFile.Segment> findLogSegments(LocalDateTime from, LocalDateTime to) {
+        return logFile.findSegments(from, to);
+    }
+
     /**
      * Получить путь к лог-файлу
      */
@@ -0,0 +1,304 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Активный лог-файл с ротацией по размеру и по дням.
+ *
+ * Закрытый сегмент переименовывается в logs/carhub_logs.2025-01-31.1.txt и сжимается
+ * в .gz фоновым потоком; хранится не больше maxSegments сегментов. Файл logs/carhub_logs.index.txt
+ * содержит по строке на сегмент: начало, конец, имя — чтобы найти логи за период без чтения архивов.
+ *
+ * Если ротация не удалась (в Windows активный файл часто держит открытым другой процесс),
+ * запись продолжается в активный файл, а ротация повторяется не чаще раза в минуту.
+ *
+ * Не потокобезопасен: вызывается только потоком записи AsyncLogAppender (под его блокировкой).
+ */
+public class RollingLogFile {
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ISO_LOCAL_DATE;
+    private static final DateTimeFormatter INDEX_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final long ROLL_RETRY_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    /**
+     * Сегмент архива: время первой и последней записи и файл (.gz, пока не сжат — .txt)
+     */
+    public record Segment(LocalDateTime from, LocalDateTime to, Path file) {}
+
+    private final Path active;
+    private final Path archiveDir;
+    private final String baseName;
+    private final Path index;
+    private final long maxBytes;
+    private final int maxSegments;
+
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "carhub-log-gzip");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private FileChannel channel;
+    private long size;
+    private long firstMillis = -1;
+    private long lastMillis = -1;
+    private LocalDate day;
+    // Неудачная ротация: до этого момента новая не пробуется, ошибка сообщается один раз
+    private long rollRetryAt;
+    private boolean rollFailed;
+
+    /**
+     * @param active      активный файл (carhub_logs.txt)
+     * @param maxBytes    размер, после которого сегмент закрывается
+     * @param maxSegments сколько архивных сегментов хранить
+     */
+    public RollingLogFile(Path active, long maxBytes, int maxSegments) {
+        Path parent = active.toAbsolutePath().getParent();
+        String fileName = active.getFileName().toString();
+        int dot = fileName.lastIndexOf('.');
+        this.active = active;
+        this.baseName = dot > 0 ? fileName.substring(0, dot) : fileName;
+        this.archiveDir = parent.resolve("logs");
+        this.index = archiveDir.resolve(baseName + ".index.txt");
+        this.maxBytes = maxBytes;
+        this.maxSegments = maxSegments;
+
+        // Сегменты, которые не успели сжать до закрытия приложения
+        for (Segment segment : readIndex()) {
+            if (segment.file().getFileName().toString().endsWith(".txt")) {
+                compressor.submit(() -> compress(segment.file()));
+            }
+        }
+    }
+
+    /**
+     * Нужно ли закрыть сегмент перед записью с этим временем (сменился день)
+     */
+    public boolean isNewDay(long millis) {
+        return day != null && size > 0 && !toDate(millis).equals(day) && canRoll();
+    }
+
+    /**
+     * Дописать пачку; firstMillis/lastMillis — время первой и последней записи в ней
+     */
+    public void write(ByteBuffer bytes, long batchFirstMillis, long batchLastMillis) throws IOException {
+        if (channel == null) {
+            open();
+        }
+        if (size > 0 && size + bytes.remaining() > maxBytes && canRoll()) {
+            roll();
+        }
+        if (channel == null) {
+            open();
+        }
+        while (bytes.hasRemaining()) {
+            size += channel.write(bytes);
+        }
+        if (batchFirstMillis > 0) {
+            if (firstMillis < 0) {
+                firstMillis = batchFirstMillis;
+                day = toDate(batchFirstMillis);
+            }
+            lastMillis = batchLastMillis;
+        }
+    }
+
+    /**
+     * Закрыть текущий сегмент: переименовать в архив, добавить в индекс и отдать на сжатие.
+     * Ошибка не выбрасывается: она пишется в stderr (один раз до успешной ротации),
+     * запись продолжается в активный файл, следующая попытка — через минуту.
+     *
+     * @return false, если ротация не удалась
+     */
+    public boolean roll() {
+        try {
+            rollSegment();
+            rollFailed = false;
+            return true;
+        } catch (IOException e) {
+            if (!rollFailed) {
+                System.err.println("Ошибка ротации лог-файла, запись продолжается в " + active.getFileName()
+                        + ": " + e.getMessage());
+                rollFailed = true;
+            }
+            rollRetryAt = System.nanoTime() + ROLL_RETRY_NANOS;
+            return false;
+        }
+    }
+
+    private boolean canRoll() {
+        return !rollFailed || System.nanoTime() - rollRetryAt >= 0;
+    }
+
+    private void rollSegment() throws IOException {
+        close();
+        if (!Files.exists(active) || Files.size(active) == 0) return;
+
+        long from = firstMillis > 0 ? firstMillis : Files.getLastModifiedTime(active).toMillis();
+        long to = lastMillis > 0 ? lastMillis : Files.getLastModifiedTime(active).toMillis();
+        Files.createDirectories(archiveDir);
+        String prefix = baseName + "." + toDate(from).format(DAY) + ".";
+        int number = 1;
+        while (Files.exists(archiveDir.resolve(prefix + number + ".txt"))
+                || Files.exists(archiveDir.resolve(prefix + number + ".txt.gz"))) {
+            number++;
+        }
+        Path segment = archiveDir.resolve(prefix + number + ".txt");
+        Files.move(active, segment, StandardCopyOption.ATOMIC_MOVE);
+        // Сегмент уже в архиве: следующая запись откроет новый активный файл, даже если индекс не обновится
+        firstMillis = -1;
+        lastMillis = -1;
+        day = null;
+        compressor.submit(() -> compress(segment));
+
+        List<Segment> index = readIndex();
+        index.add(new Segment(toDateTime(from), toDateTime(to), segment));
+        while (index.size() > maxSegments) {
+            Segment oldest = index.remove(0);
+            Files.deleteIfExists(oldest.file());
+            Files.deleteIfExists(gzipped(oldest.file()));
+        }
+        writeIndex(index);
+    }
+
+    /**
+     * Очистить активный файл
+     */
+    public void truncate() throws IOException {
+        if (channel != null) {
+            channel.truncate(0);
+        } else {
+            Files.deleteIfExists(active);
+        }
+        size = 0;
+        firstMillis = -1;
+        lastMillis = -1;
+        day = null;
+    }
+
+    public void close() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+    }
+
+    /**
+     * Архивные сегменты, пересекающиеся с периодом [from, to], от старых к новым
+     */
+    public List<Segment> findSegments(LocalDateTime from, LocalDateTime to) {
+        List<Segment> found = new ArrayList<>();
+        for (Segment segment : readIndex()) {
+            if (!segment.to().isBefore(from) && !segment.from().isAfter(to)) {
+                found.add(segment);
+            }
+        }
+        return found;
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(active, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+        if (size > 0 && firstMillis < 0) {
+            // Файл остался от прошлого запуска
+            BasicFileAttributes attributes = Files.readAttributes(active, BasicFileAttributes.class);
+            firstMillis = attributes.creationTime().toMillis();
+            lastMillis = attributes.lastModifiedTime().toMillis();
+            day = toDate(lastMillis);
+        }
+    }
+
+    private void compress(Path segment) {
+        Path target = gzipped(segment);
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            if (!Files.exists(segment)) return;
+            try (InputStream in = Files.newInputStream(segment);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+                in.transferTo(out);
+            }
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(segment);
+        } catch (IOException e) {
+            System.err.println("Ошибка сжатия лог-сегмента " + segment.getFileName() + ": " + e.getMessage());
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Индекс хранит имя .txt; если сегмент уже сжат, возвращается путь к .gz
+     */
+    private List<Segment> readIndex() {
+        List<Segment> segments = new ArrayList<>();
+        if (!Files.exists(index)) return segments;
+        try {
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t");
+                if (parts.length != 3) continue;
+                Path file = archiveDir.resolve(parts[2]);
+                if (!Files.exists(file) && Files.exists(gzipped(file))) {
+                    file = gzipped(file);
+                }
+                segments.add(new Segment(LocalDateTime.parse(parts[0], INDEX_TIME), LocalDateTime.parse(parts[1], INDEX_TIME), file));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ошибка чтения индекса логов: " + e.getMessage());
+        }
+        return segments;
+    }
+
+    private void writeIndex(List<Segment> segments) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (Segment segment : segments) {
+            String name = segment.file().getFileName().toString();
+            if (name.endsWith(".gz")) {
+                name = name.substring(0, name.length() - 3);
+            }
+            text.append(segment.from().format(INDEX_TIME)).append('\t')
+                .append(segment.to().format(INDEX_TIME)).append('\t')
+                .append(name).append('\n');
+        }
+        Path temp = index.resolveSibling(index.getFileName() + ".tmp");
+        Files.writeString(temp, text, StandardCharsets.UTF_8);
+        Files.move(temp, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static Path gzipped(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".gz") ? file : file.resolveSibling(name + ".gz");
+    }
+
+    private static LocalDate toDate(long millis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
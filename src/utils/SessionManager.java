@@ -1,5 +1,7 @@
 package utils;
 
+import services.FavoritesService;
+
 public class SessionManager {
     private static int currentUserId = -1;
     private static String currentUsername = null;
@@ -12,6 +14,7 @@ public class SessionManager {
     }
 
     public static void logout() {
+        FavoritesService.clearSession();
         currentUserId = -1;
         currentUsername = null;
         currentRole = null;
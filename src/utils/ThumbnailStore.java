@@ -0,0 +1,295 @@
+package utils;
+
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelReader;
+import javafx.scene.image.WritableImage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Дисковый кэш уменьшенных копий изображений.
+ * Каждая копия (URL + целевой размер) хранится как уже декодированные пиксели BGRA,
+ * поэтому при повторном запуске файл просто копируется в WritableImage без декодирования JPEG.
+ *
+ * Формат файла: MAGIC, ширина, высота (int), затем ширина × высота × 4 байта.
+ *
+ * Объём каталога ограничен (-Dcarhub.thumbnails.maxBytes, по умолчанию 256 МБ): при превышении
+ * удаляются копии, которые дольше всех не читались. Порядок обращений переживает перезапуск
+ * через время изменения файла, поэтому копии фото, которых больше нет в каталоге, со временем уходят.
+ */
+public class ThumbnailStore {
+
+    private static final int MAGIC = 0x43485431; // "CHT1"
+    private static final int HEADER_SIZE = 12;
+
+    private static final Path DIR = Paths.get(System.getProperty("carhub.thumbnails.dir", "thumbnail_cache"));
+    private static final long MAX_BYTES = Long.getLong("carhub.thumbnails.maxBytes", 256L * 1024 * 1024);
+
+    // Файлы каталога в порядке обращений (accessOrder) и их суммарный размер
+    private static final LinkedHashMap<Path, Long> index = new LinkedHashMap<>(256, 0.75f, true);
+    private static long totalBytes;
+
+    // Запись на диск — в одном фоновом потоке, чтобы не мешать интерфейсу
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "carhub-thumbnail-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        // Каталог сканируется в фоне: первые миниатюры не ждут обхода файлов
+        writer.submit(ThumbnailStore::scan);
+    }
+
+    /**
+     * Загрузить уменьшенную копию с диска
+     *
+     * @return изображение или null, если копии ещё нет (или файл повреждён)
+     */
+    public static Image load(String url, int width, int height) {
+        Path file = fileFor(url, width, height);
+        if (!Files.exists(file)) return null;
+
+        boolean corrupt = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) return null;
+
+            // Читаем целиком, без mmap: отображённый файл на Windows нельзя удалить до сборки мусора,
+            // а invalidate() должен срабатывать сразу
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // читаем до конца файла
+            }
+            buffer.flip();
+
+            int magic = buffer.getInt();
+            int w = buffer.getInt();
+            int h = buffer.getInt();
+            if (magic != MAGIC || w <= 0 || h <= 0 || size != HEADER_SIZE + (long) w * h * 4) {
+                corrupt = true;
+            } else {
+                WritableImage image = new WritableImage(w, h);
+                image.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getByteBgraPreInstance(),
+                        buffer.array(), HEADER_SIZE, w * 4);
+                touch(file, size);
+                return image;
+            }
+        } catch (IOException e) {
+            LoggerUtil.warning("Не удалось прочитать миниатюру " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        // Файл уже закрыт — на Windows открытый файл не удалить
+        if (corrupt) {
+            delete(file);
+        }
+        return null;
+    }
+
+    /**
+     * Сохранить уменьшенную копию, когда изображение догрузится
+     */
+    public static void saveWhenLoaded(String url, int width, int height, Image image) {
+        if (image.getProgress() >= 1.0) {
+            save(url, width, height, image);
+            return;
+        }
+        image.progressProperty().addListener((obs, oldV, newV) -> {
+            if (newV.doubleValue() >= 1.0) {
+                save(url, width, height, image);
+            }
+        });
+    }
+
+    private static void save(String url, int width, int height, Image image) {
+        if (image.isError() || image.getPixelReader() == null) return;
+
+        writer.submit(() -> {
+            int w = (int) image.getWidth();
+            int h = (int) image.getHeight();
+            if (w <= 0 || h <= 0) return;
+
+            PixelReader reader = image.getPixelReader();
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + w * h * 4);
+            buffer.putInt(MAGIC).putInt(w).putInt(h);
+            reader.getPixels(0, 0, w, h, PixelFormat.getByteBgraPreInstance(), buffer.array(), HEADER_SIZE, w * 4);
+            buffer.rewind();
+
+            Path file = fileFor(url, width, height);
+            try {
+                Files.createDirectories(DIR);
+                // Пишем во временный файл и переименовываем, чтобы не оставить недописанную миниатюру
+                Path tmp = Files.createTempFile(DIR, "thumb", ".tmp");
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                added(file, buffer.capacity());
+                evictIfNeeded();
+            } catch (IOException e) {
+                LoggerUtil.warning("Не удалось сохранить миниатюру " + file + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Удалить все уменьшенные копии изображения (после изменения фото автомобиля)
+     */
+    public static void invalidate(String url) {
+        if (url == null || url.isBlank() || !Files.isDirectory(DIR)) return;
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DIR, hash(url) + "_*")) {
+            for (Path file : files) {
+                delete(file);
+            }
+        } catch (IOException e) {
+            LoggerUtil.warning("Не удалось удалить миниатюры для " + url + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Обращение к копии: в индексе она становится самой свежей, на диске — тоже (время изменения)
+     */
+    private static void touch(Path file, long size) {
+        synchronized (index) {
+            if (index.get(file) == null) {
+                index.put(file, size);
+                totalBytes += size;
+            }
+        }
+        writer.submit(() -> {
+            try {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            } catch (IOException ignored) {
+                // Файл успели вытеснить или удалить
+            }
+        });
+    }
+
+    private static void added(Path file, long size) {
+        synchronized (index) {
+            Long previous = index.put(file, size);
+            totalBytes += size - (previous != null ? previous : 0);
+        }
+    }
+
+    private static void delete(Path file) {
+        synchronized (index) {
+            Long size = index.remove(file);
+            if (size != null) totalBytes -= size;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LoggerUtil.warning("Не удалось удалить миниатюру " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Удалить копии, которые дольше всех не читались, пока каталог больше бюджета (в потоке записи)
+     */
+    private static void evictIfNeeded() {
+        List<Path> victims = new ArrayList<>();
+        synchronized (index) {
+            Iterator<Map.Entry<Path, Long>> it = index.entrySet().iterator();
+            // Самую свежую копию не удаляем, даже если она одна больше бюджета
+            while (totalBytes > MAX_BYTES && index.size() > 1 && it.hasNext()) {
+                Map.Entry<Path, Long> eldest = it.next();
+                it.remove();
+                totalBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+            }
+        }
+        for (Path file : victims) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                LoggerUtil.warning("Не удалось удалить миниатюру " + file + ": " + e.getMessage());
+            }
+        }
+        if (!victims.isEmpty()) {
+            LoggerUtil.info("Кэш миниатюр: удалено " + victims.size() + " старых копий");
+        }
+    }
+
+    /**
+     * Заполнить индекс файлами, оставшимися с прошлых запусков (старые — первыми),
+     * удалить недописанные временные файлы
+     */
+    private static void scan() {
+        if (!Files.isDirectory(DIR)) return;
+
+        record Found(Path file, long size, long modified) {}
+        List<Found> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(DIR)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(".thumb")) {
+                    found.add(new Found(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+                }
+            }
+        } catch (IOException e) {
+            LoggerUtil.warning("Не удалось просмотреть каталог миниатюр " + DIR + ": " + e.getMessage());
+            return;
+        }
+        found.sort(Comparator.comparingLong(Found::modified));
+
+        synchronized (index) {
+            // Копии, прочитанные или записанные до окончания обхода, — самые свежие
+            Map<Path, Long> recent = new LinkedHashMap<>(index);
+            index.clear();
+            totalBytes = 0;
+            for (Found f : found) {
+                index.put(f.file(), f.size());
+                totalBytes += f.size();
+            }
+            for (Map.Entry<Path, Long> e : recent.entrySet()) {
+                Long previous = index.remove(e.getKey());
+                if (previous != null) totalBytes -= previous;
+                index.put(e.getKey(), e.getValue());
+                totalBytes += e.getValue();
+            }
+        }
+        evictIfNeeded();
+    }
+
+    private static Path fileFor(String url, int width, int height) {
+        return DIR.resolve(hash(url) + "_" + width + "x" + height + ".thumb");
+    }
+
+    private static String hash(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
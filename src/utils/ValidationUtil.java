@@ -87,6 +87,28 @@ public class ValidationUtil {
         return len >= minLen && len <= maxLen;
     }
 
+    /**
+     * Проверка полей автомобиля — общие правила формы добавления (CarFormController)
+     * и импорта из CSV. Возвращает сообщение о первой ошибке или null, если всё верно.
+     */
+    public static String validateCar(String name, String model, String priceText, String brand,
+                                     String yearText, String mileageText, String description) {
+        if (!isNotEmpty(name)) return formatValidationError("Название", "не может быть пустым");
+        if (!isValidLength(name, 2, 100)) return formatValidationError("Название", "должно быть от 2 до 100 символов");
+        if (!isNotEmpty(model)) return formatValidationError("Модель", "не может быть пустой");
+        if (!isValidLength(model, 1, 50)) return formatValidationError("Модель", "должна быть от 1 до 50 символов");
+        if (!isValidPrice(priceText)) return formatValidationError("Цена", "должна быть положительным числом");
+        if (isNotEmpty(brand) && !isValidLength(brand, 2, 50)) {
+            return formatValidationError("Бренд", "должен быть от 2 до 50 символов");
+        }
+        if (!isValidYear(yearText)) return formatValidationError("Год", "должен быть в диапазоне 1900-2030");
+        if (!isValidMileage(mileageText)) return formatValidationError("Пробег", "должен быть от 0 до 999999 км");
+        if (description != null && description.length() > 500) {
+            return formatValidationError("Описание", "не должно превышать 500 символов");
+        }
+        return null;
+    }
+
     /**
      * Форматирование сообщения об ошибке валидации
      */
@@ -12,36 +12,109 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.StackPane;
 import javafx.scene.layout.Region;
 import models.Car;
+import models.CardStats;
+import services.CardStatsService;
 import services.FavoritesService;
-import services.CommentsService;
 import utils.SessionManager;
 import utils.ImageCache;
 
 public class CarCardView extends VBox {
-    private final Car car;
+    private static final String BASE_STYLE = "-fx-background-color: white; " +
+            "-fx-background-radius: 15; " +
+            "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.15), 12, 0, 0, 4); " +
+            "-fx-cursor: hand;";
+    private static final String HOVER_STYLE = "-fx-background-color: white; " +
+            "-fx-background-radius: 15; " +
+            "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.35), 20, 0, 0, 8); " +
+            "-fx-cursor: hand;";
+    private static final String SELECTED_STYLE = "-fx-background-color: #E3F2FD; " +
+            "-fx-background-radius: 10; " +
+            "-fx-effect: dropshadow(gaussian, rgba(33,150,243,0.5), 15, 0, 0, 4); " +
+            "-fx-cursor: hand;";
+
+    private Car car;
+    private CardStats stats;
+    private boolean selected;
     private ImageView imageView;
     private Button favoriteButton;
+    private Label nameLabel;
+    private Label modelLabel;
+    private Label infoLabel;
+    private Label ratingLabel;
+    private Label commentsLabel;
+    private Label priceLabel;
     private Runnable onFavoriteChanged;
 
+    /**
+     * Карточка с самостоятельной загрузкой агрегатов (для одиночных карточек)
+     */
     public CarCardView(Car car) {
-        this.car = car;
+        this(car, CardStatsService.loadFor(java.util.List.of(car.getId()), SessionManager.getCurrentUserId())
+                .getOrDefault(car.getId(), CardStats.EMPTY));
+    }
+
+    /**
+     * Карточка с заранее загруженными агрегатами (см. CardStatsService.loadFor)
+     */
+    public CarCardView(Car car, CardStats stats) {
+        initializeUI();
+        bind(car, stats);
+    }
+
+    /**
+     * Пустая карточка для переиспользования в CarGridView (данные задаются через bind)
+     */
+    CarCardView() {
         initializeUI();
-        updateFavoriteButton();
     }
 
     public void setOnFavoriteChanged(Runnable callback) {
         this.onFavoriteChanged = callback;
     }
 
+    /**
+     * Привязать карточку к автомобилю. Узлы карточки не пересоздаются —
+     * обновляются только тексты, фото и состояние кнопки избранного.
+     */
+    public void bind(Car car, CardStats stats) {
+        this.car = car;
+        this.stats = stats != null ? stats : CardStats.EMPTY;
+
+        nameLabel.setText(car.getName());
+
+        // Модель и бренд
+        modelLabel.setText((car.getBrand() != null ? car.getBrand() + " • " : "") + car.getModel());
+
+        // Информация (год, пробег)
+        StringBuilder info = new StringBuilder();
+        if (car.getYear() != null) info.append("📅 ").append(car.getYear());
+        if (car.getMileage() != null) {
+            if (!info.isEmpty()) info.append("  •  ");
+            info.append("🛣️ ").append(String.format("%,d", car.getMileage())).append(" км");
+        }
+        infoLabel.setText(info.toString());
+
+        updateStatsLabels();
+        priceLabel.setText(utils.PriceFormatter.format(car.getPrice()));
+        loadImage();
+        updateFavoriteButton();
+    }
+
+    /**
+     * Обновить только агрегаты (рейтинг, комментарии, избранное) — пришли после bind
+     */
+    public void updateStats(CardStats stats) {
+        this.stats = stats != null ? stats : CardStats.EMPTY;
+        updateStatsLabels();
+        updateFavoriteButton();
+    }
+
     private void initializeUI() {
         // Стиль карточки с новым дизайном
         setAlignment(Pos.TOP_CENTER);
         setPadding(new Insets(15));
         setSpacing(10);
-        setStyle("-fx-background-color: white; " +
-                "-fx-background-radius: 15; " +
-                "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.15), 12, 0, 0, 4); " +
-                "-fx-cursor: hand;");
+        setStyle(BASE_STYLE);
         setPrefWidth(300);
         setMaxWidth(300);
 
@@ -52,7 +125,6 @@ public class CarCardView extends VBox {
         imageView.setPreserveRatio(true);
         imageView.setSmooth(true);
         imageView.setStyle("-fx-background-radius: 12; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 8, 0, 0, 2);");
-        loadImage();
 
         // Кнопка избранного (только для пользователей)
         StackPane imageContainer = new StackPane(imageView);
@@ -78,25 +150,18 @@ public class CarCardView extends VBox {
         }
 
         // Название
-        Label nameLabel = new Label(car.getName());
+        nameLabel = new Label();
         nameLabel.setStyle("-fx-font-size: 17px; -fx-font-weight: bold; -fx-text-fill: #333;");
         nameLabel.setWrapText(true);
         nameLabel.setMaxWidth(270);
 
         // Модель и бренд
-        String brandInfo = (car.getBrand() != null ? car.getBrand() + " • " : "") + car.getModel();
-        Label modelLabel = new Label(brandInfo);
+        modelLabel = new Label();
         modelLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #666;");
         modelLabel.setMaxWidth(270);
 
         // Информация (год, пробег)
-        StringBuilder info = new StringBuilder();
-        if (car.getYear() != null) info.append("📅 ").append(car.getYear());
-        if (car.getMileage() != null) {
-            if (!info.isEmpty()) info.append("  •  ");
-            info.append("🛣️ ").append(String.format("%,d", car.getMileage())).append(" км");
-        }
-        Label infoLabel = new Label(info.toString());
+        infoLabel = new Label();
         infoLabel.setStyle("-fx-font-size: 13px; -fx-text-fill: #888;");
         infoLabel.setMaxWidth(270);
 
@@ -105,29 +170,18 @@ public class CarCardView extends VBox {
         ratingBox.setAlignment(Pos.CENTER_LEFT);
         ratingBox.setStyle("-fx-padding: 5 0 0 0;");
 
-        // Рейтинг
-        double avgRating = CommentsService.getAverageRating(car.getId());
-        int ratingsCount = CommentsService.getRatingsCount(car.getId());
-        if (ratingsCount > 0) {
-            Label ratingLabel = new Label(String.format("⭐ %.1f", avgRating));
-            ratingLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #FF9800;");
-            ratingBox.getChildren().add(ratingLabel);
-        }
-
-        // Количество комментариев
-        int commentsCount = CommentsService.getCommentsCount(car.getId());
-        if (commentsCount > 0) {
-            Label commentsLabel = new Label(String.format("💬 %d", commentsCount));
-            commentsLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #666;");
-            ratingBox.getChildren().add(commentsLabel);
-        }
+        ratingLabel = new Label();
+        ratingLabel.setStyle("-fx-font-size: 14px; -fx-font-weight: bold; -fx-text-fill: #FF9800;");
+        commentsLabel = new Label();
+        commentsLabel.setStyle("-fx-font-size: 14px; -fx-text-fill: #666;");
+        ratingBox.getChildren().addAll(ratingLabel, commentsLabel);
 
         // Разделитель
         Region spacer = new Region();
         VBox.setVgrow(spacer, Priority.ALWAYS);
 
         // Цена с градиентом
-        Label priceLabel = new Label(utils.PriceFormatter.format(car.getPrice()));
+        priceLabel = new Label();
         priceLabel.setStyle(
             "-fx-font-size: 22px; " +
             "-fx-font-weight: bold; " +
@@ -139,34 +193,51 @@ public class CarCardView extends VBox {
 
         // Улучшенный эффект при наведении
         setOnMouseEntered(e -> {
-            setStyle("-fx-background-color: white; " +
-                    "-fx-background-radius: 15; " +
-                    "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.35), 20, 0, 0, 8); " +
-                    "-fx-cursor: hand;");
+            setStyle(HOVER_STYLE);
             setScaleX(1.03);
             setScaleY(1.03);
         });
 
         setOnMouseExited(e -> {
-            setStyle("-fx-background-color: white; " +
-                    "-fx-background-radius: 15; " +
-                    "-fx-effect: dropshadow(gaussian, rgba(102,126,234,0.15), 12, 0, 0, 4); " +
-                    "-fx-cursor: hand;");
+            setStyle(selected ? SELECTED_STYLE : BASE_STYLE);
             setScaleX(1.0);
             setScaleY(1.0);
         });
     }
 
+    private void updateStatsLabels() {
+        // Рейтинг
+        boolean hasRatings = stats.getRatingsCount() > 0;
+        ratingLabel.setText(hasRatings ? String.format("⭐ %.1f", stats.getAverageRating()) : "");
+        ratingLabel.setVisible(hasRatings);
+        ratingLabel.setManaged(hasRatings);
+
+        // Количество комментариев
+        boolean hasComments = stats.getCommentsCount() > 0;
+        commentsLabel.setText(hasComments ? String.format("💬 %d", stats.getCommentsCount()) : "");
+        commentsLabel.setVisible(hasComments);
+        commentsLabel.setManaged(hasComments);
+    }
+
+    /**
+     * Подсветка выбранной карточки
+     */
+    public void setSelected(boolean selected) {
+        this.selected = selected;
+        setStyle(selected ? SELECTED_STYLE : BASE_STYLE);
+    }
+
     private void toggleFavorite() {
-        if (!SessionManager.isLoggedIn()) return;
+        if (!SessionManager.isLoggedIn() || car == null) return;
 
         int userId = SessionManager.getCurrentUserId();
-        boolean isFav = FavoritesService.isFavorite(userId, car.getId());
+        boolean isFav = stats.isFavorite();
 
-        if (isFav) {
-            FavoritesService.removeFromFavorites(userId, car.getId());
-        } else {
-            FavoritesService.addToFavorites(userId, car.getId());
+        boolean changed = isFav
+                ? FavoritesService.removeFromFavorites(userId, car.getId())
+                : FavoritesService.addToFavorites(userId, car.getId());
+        if (changed) {
+            stats = stats.withFavorite(!isFav);
         }
 
         updateFavoriteButton();
@@ -179,10 +250,7 @@ public class CarCardView extends VBox {
     private void updateFavoriteButton() {
         if (favoriteButton == null || !SessionManager.isLoggedIn()) return;
 
-        int userId = SessionManager.getCurrentUserId();
-        boolean isFav = FavoritesService.isFavorite(userId, car.getId());
-
-        if (isFav) {
+        if (stats.isFavorite()) {
             favoriteButton.setStyle(
                 "-fx-background-color: rgba(244,67,54,0.95); " +
                 "-fx-text-fill: white; " +
@@ -204,13 +272,17 @@ public class CarCardView extends VBox {
 
     private void loadImage() {
         // ✅ ИСПОЛЬЗУЕМ КЭШ для оптимизации загрузки изображений
+        // Декодируем сразу в размер карточки, а не в исходном разрешении
         String url = car.getImageUrl();
-        Image img = ImageCache.getImage(url);
+        Image img = ImageCache.getImage(url, imageView.getFitWidth(), imageView.getFitHeight());
         imageView.setImage(img);
     }
 
     public Car getCar() {
         return car;
     }
-}
 
+    public CardStats getStats() {
+        return stats;
+    }
+}
@@ -0,0 +1,416 @@
+package views;
+
+import javafx.animation.Animation;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ContextMenu;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.util.Duration;
+import models.Car;
+import models.CardStats;
+import services.CardStatsService;
+import utils.AsyncLoader;
+import utils.LoggerUtil;
+import utils.SessionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+
+/**
+ * Виртуализированная сетка карточек автомобилей.
+ * Создаются только видимые строки (ListView переиспользует ячейки),
+ * каждая строка держит фиксированный набор CarCardView и при прокрутке
+ * перепривязывает их к другим автомобилям. Количество узлов не зависит
+ * от размера каталога.
+ *
+ * ListView.refresh() не вызывается: он пересоздаёт все ячейки вместе с карточками.
+ * Вместо этого список строк меняется только с конца, а живые ячейки
+ * перепривязываются к новым данным напрямую.
+ */
+public final class CarGridView extends StackPane {
+
+    private static final double CARD_WIDTH = 300;
+
+    // Сколько строк вперёд подгружать агрегаты одним запросом
+    private static final int STATS_PREFETCH_ROWS = 5;
+
+    // Пауза перед повтором после ошибки загрузки агрегатов (пока база недоступна — не на каждую перерисовку)
+    private static final Duration STATS_RETRY_DELAY = Duration.seconds(5);
+
+    // За сколько строк до конца сетки просить следующую страницу каталога
+    private static final int NEAR_END_ROWS = 3;
+
+    private final ListView<Integer> rows = new ListView<>();
+    private final ObservableList<Integer> rowIndexes = FXCollections.observableArrayList();
+    // Ячейки, созданные ListView; выброшенные им ячейки уходят вместе со своими карточками
+    private final Set<RowCell> cells = Collections.newSetFromMap(new WeakHashMap<>());
+    private final Map<Integer, CardStats> statsCache = new HashMap<>();
+    // Агрегаты, которые сейчас загружаются в фоне
+    private final Set<Integer> statsLoading = new HashSet<>();
+    private int statsGeneration;
+    private AsyncLoader.Scope statsScope;
+    private final PauseTransition statsRetry = new PauseTransition(STATS_RETRY_DELAY);
+
+    private List<Car> cars = Collections.emptyList();
+    private int columns = 1;
+    private double hgap = 20;
+    private double vgap = 20;
+    private int selectedCarId = -1;
+
+    private Consumer<Car> onSelect;
+    private Consumer<Car> onOpen;
+    private BiFunction<Car, Node, ContextMenu> contextMenuFactory;
+    private Runnable onNearEnd;
+
+    public CarGridView() {
+        rows.setItems(rowIndexes);
+        rows.setCellFactory(lv -> new RowCell());
+        rows.setFocusTraversable(false);
+        rows.setStyle("-fx-background-color: transparent; -fx-background-insets: 0; -fx-padding: 0;");
+        rows.widthProperty().addListener((obs, oldW, newW) -> updateColumns());
+        getChildren().add(rows);
+        statsRetry.setOnFinished(e -> retryStats());
+    }
+
+    /**
+     * Показать список автомобилей. Узлы карточек не пересоздаются.
+     * Если новый список продолжает прежний (догружена страница), прокрутка сохраняется,
+     * иначе сетка прокручивается в начало.
+     */
+    public void setCars(List<Car> cars) {
+        List<Car> previous = this.cars;
+        this.cars = cars != null ? new ArrayList<>(cars) : Collections.emptyList();
+        rebuildRows();
+        if (!startsWith(this.cars, previous)) {
+            rows.scrollTo(0);
+        }
+    }
+
+    public List<Car> getCars() {
+        return Collections.unmodifiableList(cars);
+    }
+
+    /**
+     * Сбросить кэш агрегатов (рейтинг, комментарии, избранное) и перерисовать видимые карточки
+     */
+    public void invalidateStats() {
+        statsCache.clear();
+        resetStatsLoading();
+        rebindCells();
+    }
+
+    /**
+     * Сбросить агрегаты одного автомобиля
+     */
+    public void invalidateStats(int carId) {
+        statsCache.remove(carId);
+        resetStatsLoading();
+        rebindCells();
+    }
+
+    public void refresh() {
+        rebindCells();
+    }
+
+    public void scrollTo(Car car) {
+        int index = cars.indexOf(car);
+        if (index >= 0) {
+            rows.scrollTo(index / columns);
+        }
+    }
+
+    public Car getSelectedCar() {
+        for (Car car : cars) {
+            if (car.getId() == selectedCarId) return car;
+        }
+        return null;
+    }
+
+    public void setOnSelect(Consumer<Car> onSelect) {
+        this.onSelect = onSelect;
+    }
+
+    public void setOnOpen(Consumer<Car> onOpen) {
+        this.onOpen = onOpen;
+    }
+
+    public void setContextMenuFactory(BiFunction<Car, Node, ContextMenu> contextMenuFactory) {
+        this.contextMenuFactory = contextMenuFactory;
+    }
+
+    /**
+     * Вызывается, когда показаны последние строки сетки (подгрузка следующей страницы)
+     */
+    public void setOnNearEnd(Runnable onNearEnd) {
+        this.onNearEnd = onNearEnd;
+    }
+
+    public double getHgap() {
+        return hgap;
+    }
+
+    public void setHgap(double hgap) {
+        this.hgap = hgap;
+        updateColumns();
+        rebindCells();
+    }
+
+    public double getVgap() {
+        return vgap;
+    }
+
+    public void setVgap(double vgap) {
+        this.vgap = vgap;
+        rebindCells();
+    }
+
+    private void updateColumns() {
+        double available = rows.getWidth() - hgap - 20; // 20 — полоса прокрутки
+        int newColumns = Math.max(1, (int) (available / (CARD_WIDTH + hgap)));
+        if (newColumns != columns) {
+            columns = newColumns;
+            rebuildRows();
+        }
+    }
+
+    private void rebuildRows() {
+        // Список строк меняется только с конца, чтобы ListView не сбрасывал прокрутку
+        int rowCount = (cars.size() + columns - 1) / columns;
+        if (rowIndexes.size() > rowCount) {
+            rowIndexes.remove(rowCount, rowIndexes.size());
+        } else {
+            List<Integer> added = new ArrayList<>();
+            for (int i = rowIndexes.size(); i < rowCount; i++) {
+                added.add(i);
+            }
+            rowIndexes.addAll(added);
+        }
+        rebindCells();
+    }
+
+    /**
+     * Перепривязать видимые ячейки к текущим данным (без пересоздания узлов)
+     */
+    private void rebindCells() {
+        boolean nearEnd = false;
+        for (RowCell cell : liveCells()) {
+            if (cell.isEmpty() || cell.getItem() == null) continue;
+            // Запасные (скрытые) ячейки тоже: ListView не вызовет updateItem, если номер строки не изменился
+            boolean last = cell.bindRow(cell.getItem());
+            nearEnd |= last && cell.isVisible();
+        }
+        // Как и при прокрутке: следующая страница запрашивается уже после обновления сетки
+        if (nearEnd && onNearEnd != null) {
+            Platform.runLater(onNearEnd);
+        }
+    }
+
+    /**
+     * Ячейки, которые ListView ещё показывает (или держит в запасе)
+     */
+    private List<RowCell> liveCells() {
+        List<RowCell> live = new ArrayList<>(cells.size());
+        for (Iterator<RowCell> it = cells.iterator(); it.hasNext(); ) {
+            RowCell cell = it.next();
+            if (cell.getParent() == null) {
+                it.remove();
+            } else {
+                live.add(cell);
+            }
+        }
+        return live;
+    }
+
+    private static boolean startsWith(List<Car> cars, List<Car> prefix) {
+        if (prefix.isEmpty() || cars.size() < prefix.size()) return prefix.isEmpty();
+        for (int i = 0; i < prefix.size(); i++) {
+            if (cars.get(i).getId() != prefix.get(i).getId()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Агрегаты для карточки. Отсутствующие загружаются в фоне пачкой на несколько строк вперёд;
+     * до их прихода карточка показывает прежние агрегаты этого автомобиля или пустые.
+     */
+    private CardStats statsFor(Car car, int row, CarCardView card) {
+        CardStats stats = statsCache.get(car.getId());
+        if (stats != null) return stats;
+
+        requestStats(row);
+        Car shown = card.getCar();
+        return shown != null && shown.getId() == car.getId() ? card.getStats() : CardStats.EMPTY;
+    }
+
+    private void requestStats(int row) {
+        if (statsRetry.getStatus() == Animation.Status.RUNNING) return;
+        int from = row * columns;
+        int to = Math.min(cars.size(), (row + 1 + STATS_PREFETCH_ROWS) * columns);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            int id = cars.get(i).getId();
+            if (!statsCache.containsKey(id) && statsLoading.add(id)) missing.add(id);
+        }
+        if (missing.isEmpty()) return;
+
+        if (statsScope == null || statsScope.isClosed()) {
+            statsScope = AsyncLoader.scopeFor(this);
+        }
+        int generation = statsGeneration;
+        int userId = SessionManager.getCurrentUserId();
+        statsScope.load(() -> CardStatsService.loadFor(missing, userId)).whenComplete((loaded, error) -> {
+            // Агрегаты сброшены, пока шла загрузка, — результат устарел
+            if (generation != statsGeneration) return;
+            if (error != null) {
+                missing.forEach(statsLoading::remove);
+                if (!AsyncLoader.isCancelled(error)) {
+                    LoggerUtil.error("Ошибка загрузки агрегатов карточек", AsyncLoader.cause(error));
+                    statsRetry.playFromStart();
+                }
+                return;
+            }
+            for (Integer id : missing) {
+                statsLoading.remove(id);
+                statsCache.put(id, loaded.getOrDefault(id, CardStats.EMPTY));
+            }
+            for (RowCell cell : liveCells()) {
+                for (CarCardView card : cell.cards) {
+                    Car car = card.getCar();
+                    if (card.isVisible() && car != null && loaded.containsKey(car.getId())) {
+                        card.updateStats(loaded.get(car.getId()));
+                    }
+                }
+            }
+        });
+    }
+
+    private void resetStatsLoading() {
+        statsGeneration++;
+        statsLoading.clear();
+        statsRetry.stop();
+    }
+
+    /**
+     * Повтор после ошибки: агрегаты видимых строк запрашиваются заново
+     */
+    private void retryStats() {
+        for (RowCell cell : liveCells()) {
+            if (cell.isVisible() && !cell.isEmpty() && cell.getItem() != null) {
+                requestStats(cell.getItem());
+            }
+        }
+    }
+
+    private void select(Car car) {
+        selectedCarId = car.getId();
+        for (RowCell cell : liveCells()) {
+            for (CarCardView card : cell.cards) {
+                card.setSelected(card.getCar() != null && card.getCar().getId() == selectedCarId);
+            }
+        }
+        if (onSelect != null) onSelect.accept(car);
+    }
+
+    private CarCardView createCard() {
+        CarCardView card = new CarCardView();
+
+        // Клик и выделение
+        card.setOnMouseClicked(e -> {
+            Car car = card.getCar();
+            if (car == null) return;
+            if (e.getClickCount() == 1) {
+                select(car);
+            } else if (e.getClickCount() == 2 && onOpen != null) {
+                onOpen.accept(car);
+            }
+        });
+
+        // Контекстное меню по правой кнопке
+        card.setOnContextMenuRequested(event -> {
+            Car car = card.getCar();
+            if (car == null || contextMenuFactory == null) return;
+            ContextMenu contextMenu = contextMenuFactory.apply(car, card);
+            contextMenu.show(card, event.getScreenX(), event.getScreenY());
+        });
+
+        // Избранное переключено на карточке — запоминаем новое состояние
+        card.setOnFavoriteChanged(() -> statsCache.put(card.getCar().getId(), card.getStats()));
+
+        return card;
+    }
+
+    /**
+     * Строка сетки: набор карточек, которые перепривязываются при прокрутке
+     */
+    private class RowCell extends ListCell<Integer> {
+        private final HBox box = new HBox();
+        private final List<CarCardView> cards = new ArrayList<>();
+
+        RowCell() {
+            box.setAlignment(Pos.TOP_LEFT);
+            setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+        }
+
+        @Override
+        protected void updateItem(Integer row, boolean empty) {
+            super.updateItem(row, empty);
+            if (empty || row == null) {
+                setGraphic(null);
+                return;
+            }
+
+            cells.add(this);
+            if (bindRow(row) && onNearEnd != null) {
+                onNearEnd.run();
+            }
+        }
+
+        /**
+         * Привязать карточки строки к автомобилям; true — строка близко к концу сетки
+         */
+        boolean bindRow(int row) {
+            box.setSpacing(hgap);
+            // Отступы по краям сетки равны промежуткам между карточками
+            box.setPadding(new Insets(row == 0 ? vgap : 0, hgap, vgap, hgap));
+
+            while (cards.size() < columns) {
+                CarCardView card = createCard();
+                cards.add(card);
+                box.getChildren().add(card);
+            }
+
+            for (int i = 0; i < cards.size(); i++) {
+                CarCardView card = cards.get(i);
+                int index = row * columns + i;
+                boolean visible = i < columns && index < cars.size();
+                card.setVisible(visible);
+                card.setManaged(visible);
+                if (visible) {
+                    Car car = cars.get(index);
+                    card.bind(car, statsFor(car, row, card));
+                    card.setSelected(car.getId() == selectedCarId);
+                }
+            }
+            setGraphic(box);
+
+            return row >= rowIndexes.size() - NEAR_END_ROWS;
+        }
+    }
+}